@@ -1,10 +1,13 @@
 package com.pulse.anomaly;
 
+import com.pulse.shard.TrendShards;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@Import(TrendShards.class)
 @EnableScheduling
 public class PulseAnomalyApplication {
   public static void main(String[] args) {
@@ -0,0 +1,163 @@
+package com.pulse.anomaly.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keyword dictionary for the segment log. An id is not reassigned while a retained segment can
+ * still refer to it, so a segment record stays valid for as long as the segment is kept.
+ *
+ * Layout: [magic:4] then [id:4][len:2][keyword:UTF-8] per entry. New keywords are appended; a
+ * torn trailing entry (crash mid-write) is dropped on load and overwritten by the next append.
+ * Each id remembers the last epoch a segment record referred to it (the load time for entries read
+ * from disk), and compact(before) rewrites the file without the ids no retained segment can
+ * reference, so the file and the in-heap maps shrink with segment retention. Not thread-safe;
+ * SegmentLog serializes access.
+ */
+final class KeywordIds {
+
+  private static final int MAGIC = 0x504b4432;   // "PKD2"
+
+  private final Path path;
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final Map<Integer, Long> lastUsed = new HashMap<>();
+  private int nextId;
+  private DataOutputStream out;
+
+  KeywordIds(Path path) {
+    this.path = path;
+  }
+
+  void open(long nowEpoch) throws IOException {
+    long valid = 4;
+    if (Files.exists(path) && Files.size(path) >= 4) {
+      try (InputStream raw = Files.newInputStream(path);
+           DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+        if (in.readInt() != MAGIC) throw new IOException("Not a keyword dictionary: " + path);
+        while (true) {
+          int id = in.readInt();
+          int len = in.readUnsignedShort();
+          byte[] name = new byte[len];
+          in.readFully(name);
+          add(new String(name, StandardCharsets.UTF_8), id, nowEpoch);
+          valid += 6 + len;
+        }
+      } catch (EOFException endOfFile) {
+        // Clean end, or a torn entry that is truncated below
+      }
+      if (Files.size(path) > valid) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+          ch.truncate(valid);
+        }
+      }
+      out = append(path);
+    } else {
+      out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)));
+      out.writeInt(MAGIC);
+    }
+  }
+
+  /** Existing id, or -1 if the keyword is not in the dictionary. */
+  int find(String keyword) {
+    return ids.getOrDefault(keyword, -1);
+  }
+
+  int idOf(String keyword) throws IOException {
+    Integer id = ids.get(keyword);
+    if (id != null) return id;
+    byte[] name = keyword.getBytes(StandardCharsets.UTF_8);
+    if (name.length > 0xFFFF) throw new IOException("Keyword too long for the dictionary");
+    int assigned = nextId;
+    write(out, assigned, name);
+    add(keyword, assigned, Long.MIN_VALUE);
+    return assigned;
+  }
+
+  boolean contains(int id) {
+    return lastUsed.containsKey(id);
+  }
+
+  /** Records that a segment record at {@code epoch} refers to the id. */
+  void used(int id, long epoch) {
+    lastUsed.merge(id, epoch, Math::max);
+  }
+
+  int size() {
+    return ids.size();
+  }
+
+  /**
+   * Drops the ids last used before {@code before} (the oldest retained segment's start) and
+   * rewrites the file with the rest. Returns the number dropped.
+   */
+  int compact(long before) throws IOException {
+    int dropped = 0;
+    for (Iterator<Map.Entry<String, Integer>> it = ids.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<String, Integer> e = it.next();
+      if (lastUsed.get(e.getValue()) < before) {
+        lastUsed.remove(e.getValue());
+        it.remove();
+        dropped++;
+      }
+    }
+    if (dropped == 0) return 0;
+
+    // If the rewrite fails the old file stays; its extra entries are only re-read on restart
+    out.close();
+    try {
+      Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+      try (DataOutputStream rewrite = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)))) {
+        rewrite.writeInt(MAGIC);
+        for (Map.Entry<String, Integer> e : ids.entrySet()) {
+          write(rewrite, e.getValue(), e.getKey().getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      out = append(path);
+    }
+    return dropped;
+  }
+
+  // New entries must be durable before a segment record refers to them
+  void flush() throws IOException {
+    out.flush();
+  }
+
+  void close() throws IOException {
+    if (out != null) out.close();
+  }
+
+  private void add(String keyword, int id, long usedAt) {
+    ids.put(keyword, id);
+    lastUsed.put(id, usedAt);
+    nextId = Math.max(nextId, id + 1);
+  }
+
+  private static void write(DataOutputStream to, int id, byte[] name) throws IOException {
+    to.writeInt(id);
+    to.writeShort(name.length);
+    to.write(name);
+  }
+
+  private static DataOutputStream append(Path path) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+  }
+}
@@ -0,0 +1,252 @@
+package com.pulse.anomaly.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One memory-mapped segment file of the keyword time-series log.
+ *
+ * Layout: header [magic:4][version:4][startEpoch:8][resolutionSeconds:4][reserved:4][end:8], then
+ * one record per tick: [epoch:8][n:4][payloadLen:4][ids column][counts column]. Ids are sorted
+ * ascending and stored as varint deltas; counts are plain varints. {@code end} is advanced only
+ * after a record is fully written, so a crash leaves at most one unreferenced tail.
+ *
+ * Every {@value #INDEX_EVERY}th record's epoch and offset go into an in-memory sparse index
+ * (rebuilt by a scan on open), so a range query jumps close to its start without decoding the
+ * records in front of it. Not thread-safe; SegmentLog serializes writers.
+ */
+final class Segment {
+
+  static final int MAGIC = 0x50534731;   // "PSG1"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+  private static final int END_OFFSET = 24;
+  private static final int RECORD_HEADER_BYTES = 16;
+  private static final int INDEX_EVERY = 32;
+
+  /** Receives one decoded record; arrays are reused between calls, valid for [0, n). */
+  interface TickVisitor {
+    void visit(long epoch, int[] ids, long[] counts, int n);
+  }
+
+  /** Receives one keyword's count from a record that contains it. */
+  interface PointVisitor {
+    void visit(long epoch, long count);
+  }
+
+  final Path path;
+  final long startEpoch;
+  final int resolutionSeconds;
+
+  private FileChannel channel;     // open only while writable
+  private ByteBuffer buf;
+  private int end;
+  private long lastEpoch = Long.MIN_VALUE;
+  private int records;
+  private long[] indexEpochs = new long[16];
+  private int[] indexOffsets = new int[16];
+  private int indexSize;
+  private byte[] scratch = new byte[4096];
+
+  private Segment(Path path, long startEpoch, int resolutionSeconds) {
+    this.path = path;
+    this.startEpoch = startEpoch;
+    this.resolutionSeconds = resolutionSeconds;
+  }
+
+  static Segment create(Path path, long startEpoch, int resolutionSeconds, int capacity) throws IOException {
+    Segment s = new Segment(path, startEpoch, resolutionSeconds);
+    s.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MappedByteBuffer map = s.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(HEADER_BYTES, capacity));
+    map.putInt(MAGIC).putInt(VERSION).putLong(startEpoch).putInt(resolutionSeconds).putInt(0).putLong(HEADER_BYTES);
+    s.buf = map;
+    s.end = HEADER_BYTES;
+    return s;
+  }
+
+  /** Opens an existing file read-only, dropping any tail past the committed end. */
+  static Segment open(Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(ch.size(), HEADER_BYTES));
+      if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not a history segment: " + path);
+      }
+      Segment s = new Segment(path, header.getLong(), header.getInt());
+      header.getInt();
+      long end = header.getLong();
+      if (end < HEADER_BYTES || end > ch.size()) throw new IOException("Corrupt segment end in " + path);
+      if (ch.size() > end) ch.truncate(end);
+      s.buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, end);
+      s.end = (int) end;
+      s.rebuildIndex();
+      return s;
+    }
+  }
+
+  private void rebuildIndex() {
+    int pos = HEADER_BYTES;
+    while (pos + RECORD_HEADER_BYTES <= end) {
+      long epoch = buf.getLong(pos);
+      int len = buf.getInt(pos + 12);
+      indexRecord(epoch, pos);
+      pos += RECORD_HEADER_BYTES + len;
+    }
+  }
+
+  private void indexRecord(long epoch, int offset) {
+    if (records++ % INDEX_EVERY == 0) {
+      if (indexSize == indexEpochs.length) {
+        indexEpochs = Arrays.copyOf(indexEpochs, indexSize * 2);
+        indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+      }
+      indexEpochs[indexSize] = epoch;
+      indexOffsets[indexSize++] = offset;
+    }
+    lastEpoch = epoch;
+  }
+
+  boolean writable() {
+    return channel != null;
+  }
+
+  long lastEpoch() {
+    return lastEpoch;
+  }
+
+  int bytes() {
+    return end;
+  }
+
+  int records() {
+    return records;
+  }
+
+  /** Appends one tick; ids must be sorted ascending. Returns false when the mapping is full. */
+  boolean append(long epoch, int[] ids, long[] counts, int n) {
+    int len = 0;
+    int prev = 0;
+    ensureScratch(n * 15);
+    for (int i = 0; i < n; i++) {
+      len = putVarint(scratch, len, ids[i] - prev);
+      prev = ids[i];
+    }
+    for (int i = 0; i < n; i++) len = putVarint(scratch, len, counts[i]);
+    if (end + RECORD_HEADER_BYTES + len > buf.capacity()) return false;
+
+    buf.putLong(end, epoch).putInt(end + 8, n).putInt(end + 12, len);
+    buf.put(end + RECORD_HEADER_BYTES, scratch, 0, len);
+    indexRecord(epoch, end);
+    end += RECORD_HEADER_BYTES + len;
+    buf.putLong(END_OFFSET, end);
+    return true;
+  }
+
+  /** Flushes, trims the file to its committed length and remaps it read-only. */
+  void seal() throws IOException {
+    if (channel == null) return;
+    ((MappedByteBuffer) buf).force();
+    channel.truncate(end);
+    buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+    channel.close();
+    channel = null;
+  }
+
+  /** Visits every record with fromEpoch <= epoch <= toEpoch, oldest first. */
+  void scan(long fromEpoch, long toEpoch, TickVisitor visitor) {
+    int[] ids = new int[64];
+    long[] counts = new long[64];
+    int[] cursor = new int[1];
+    for (int pos = seek(fromEpoch); pos + RECORD_HEADER_BYTES <= end; ) {
+      long epoch = buf.getLong(pos);
+      int n = buf.getInt(pos + 8);
+      int len = buf.getInt(pos + 12);
+      if (epoch > toEpoch) break;
+      if (epoch >= fromEpoch) {
+        if (ids.length < n) {
+          ids = new int[n];
+          counts = new long[n];
+        }
+        cursor[0] = pos + RECORD_HEADER_BYTES;
+        int id = 0;
+        for (int i = 0; i < n; i++) ids[i] = id += (int) readVarint(cursor);
+        for (int i = 0; i < n; i++) counts[i] = readVarint(cursor);
+        visitor.visit(epoch, ids, counts, n);
+      }
+      pos += RECORD_HEADER_BYTES + len;
+    }
+  }
+
+  /** Visits the records in [fromEpoch, toEpoch] that contain {@code id}; other counts are skipped. */
+  void scan(int id, long fromEpoch, long toEpoch, PointVisitor visitor) {
+    int[] cursor = new int[1];
+    for (int pos = seek(fromEpoch); pos + RECORD_HEADER_BYTES <= end; ) {
+      long epoch = buf.getLong(pos);
+      int n = buf.getInt(pos + 8);
+      int len = buf.getInt(pos + 12);
+      if (epoch > toEpoch) break;
+      if (epoch >= fromEpoch) {
+        cursor[0] = pos + RECORD_HEADER_BYTES;
+        int cur = 0;
+        int at = -1;
+        for (int i = 0; i < n; i++) {
+          cur += (int) readVarint(cursor);
+          if (cur == id) at = i;
+        }
+        if (at >= 0) {
+          for (int i = 0; i < at; i++) readVarint(cursor);
+          visitor.visit(epoch, readVarint(cursor));
+        }
+      }
+      pos += RECORD_HEADER_BYTES + len;
+    }
+  }
+
+  // Offset of the last indexed record at or before fromEpoch
+  private int seek(long fromEpoch) {
+    int lo = 0;
+    int hi = indexSize - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (indexEpochs[mid] <= fromEpoch) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found < 0 ? HEADER_BYTES : indexOffsets[found];
+  }
+
+  private long readVarint(int[] cursor) {
+    long result = 0;
+    int shift = 0;
+    int p = cursor[0];
+    while (p < end) {
+      byte b = buf.get(p++);
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) break;
+      shift += 7;
+    }
+    cursor[0] = p;
+    return result;
+  }
+
+  private void ensureScratch(int bytes) {
+    if (scratch.length < bytes) scratch = new byte[Math.max(bytes, scratch.length * 2)];
+  }
+
+  private static int putVarint(byte[] out, int len, long v) {
+    while ((v & ~0x7FL) != 0) {
+      out[len++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    out[len++] = (byte) v;
+    return len;
+  }
+}
@@ -0,0 +1,362 @@
+package com.pulse.anomaly.history;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local, append-only log of per-tick keyword counts for history beyond the Redis window.
+ *
+ * Each detection tick appends one columnar record of (keyword id, cumulative count) for the
+ * keywords whose count changed since they were last written; ids come from an append-only
+ * dictionary (KeywordIds). Records go to a memory-mapped segment that rolls every
+ * {@code roll-seconds}; the first record of a segment is a keyframe carrying the last written
+ * count of every keyword seen within {@code keyframe-horizon-seconds}, so a point lookup rarely
+ * has to look past one segment. Sealed segments older than {@code compact-after-seconds} are
+ * rewritten at {@code compact-resolution-seconds} (last value per bucket, which is lossless for
+ * cumulative counts at that resolution) and deleted after {@code retention-days}.
+ *
+ * Counts are cumulative, so a series is a step function: the value at t is the last record at or
+ * before t, and the volume over [a, b] is valueAt(b) - valueAt(a). AnomalyDetectionService reads
+ * it for the week-over-week baseline. Dictionary entries no retained segment refers to are
+ * dropped after each retention pass (see KeywordIds). Off by default.
+ */
+@Component
+public class SegmentLog {
+
+  private static final Logger log = LoggerFactory.getLogger(SegmentLog.class);
+
+  private static final String DICTIONARY_FILE = "keywords.dict";
+  private static final String SEGMENT_PREFIX = "seg-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final boolean enabled;
+  private final Path dir;
+  private final long rollSeconds;
+  private final int segmentBytes;
+  private final long keyframeHorizonSeconds;
+  private final long compactAfterSeconds;
+  private final int compactResolutionSeconds;
+  private final long retentionSeconds;
+  private final int tickResolutionSeconds;
+  private final Timer appendTimer;
+
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+  private final KeywordIds ids;
+  // id -> {count, epoch} of the last value written, for change detection and keyframes
+  private final Map<Integer, long[]> lastWritten = new HashMap<>();
+  private Segment active;
+  private volatile boolean open;
+
+  public SegmentLog(MeterRegistry metrics,
+                    @Value("${pulse.anomalies.segment-log.enabled:false}") boolean enabled,
+                    @Value("${pulse.anomalies.segment-log.dir:data/history}") String dir,
+                    @Value("${pulse.anomalies.segment-log.roll-seconds:3600}") long rollSeconds,
+                    @Value("${pulse.anomalies.segment-log.segment-bytes:33554432}") int segmentBytes,
+                    @Value("${pulse.anomalies.segment-log.keyframe-horizon-seconds:86400}") long keyframeHorizonSeconds,
+                    @Value("${pulse.anomalies.segment-log.compact-after-seconds:86400}") long compactAfterSeconds,
+                    @Value("${pulse.anomalies.segment-log.compact-resolution-seconds:60}") int compactResolutionSeconds,
+                    @Value("${pulse.anomalies.segment-log.retention-days:35}") int retentionDays,
+                    @Value("${pulse.scheduler.interval-ms}") long intervalMs) {
+    this.enabled = enabled;
+    this.dir = Path.of(dir);
+    this.rollSeconds = Math.max(60, rollSeconds);
+    this.segmentBytes = Math.max(Segment.HEADER_BYTES + 4096, segmentBytes);
+    this.keyframeHorizonSeconds = keyframeHorizonSeconds;
+    this.compactAfterSeconds = compactAfterSeconds;
+    this.compactResolutionSeconds = Math.max(1, compactResolutionSeconds);
+    this.retentionSeconds = Math.max(1, retentionDays) * 86400L;
+    this.tickResolutionSeconds = (int) Math.max(1, intervalMs / 1000);
+    this.ids = new KeywordIds(this.dir.resolve(DICTIONARY_FILE));
+    this.appendTimer = metrics.timer("pulse_history_log_append_seconds");
+    Gauge.builder("pulse_history_log_segments", this, l -> l.segmentCount()).register(metrics);
+    Gauge.builder("pulse_history_log_bytes", this, l -> l.totalBytes()).register(metrics);
+    Gauge.builder("pulse_history_log_keywords", this, l -> l.keywordCount()).register(metrics);
+  }
+
+  @PostConstruct
+  synchronized void open() {
+    if (!enabled) return;
+    try {
+      Files.createDirectories(dir);
+      ids.open(Instant.now().getEpochSecond());
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+        for (Path file : files) {
+          try {
+            Segment s = Segment.open(file);
+            segments.put(s.startEpoch, s);
+          } catch (IOException e) {
+            log.warn("History log: skipping unreadable segment {}: {}", file, e.getMessage());
+          }
+        }
+      }
+      Files.deleteIfExists(dir.resolve(SEGMENT_PREFIX + "compact.tmp"));
+      open = true;
+      log.info("History log: {} segments, {} keywords in {}", segments.size(), ids.size(), dir.toAbsolutePath());
+    } catch (IOException e) {
+      log.warn("History log disabled: cannot open {}: {}", dir.toAbsolutePath(), e.getMessage());
+    }
+  }
+
+  public boolean enabled() {
+    return open;
+  }
+
+  /** Collects one tick's counts from concurrently processed chunks. */
+  public Batch batch(long epochSecond) {
+    return new Batch(epochSecond);
+  }
+
+  public final class Batch {
+    private final long epoch;
+    private final List<String> keywords = new ArrayList<>();
+    private final List<Long> counts = new ArrayList<>();
+
+    private Batch(long epoch) {
+      this.epoch = epoch;
+    }
+
+    public synchronized void add(String keyword, long count) {
+      keywords.add(keyword);
+      counts.add(count);
+    }
+  }
+
+  /** Appends a tick, writing only keywords whose count changed. */
+  public void append(Batch batch) {
+    if (!open) return;
+    Timer.Sample sample = Timer.start();
+    synchronized (this) {
+      try {
+        TreeMap<Integer, Long> changed = new TreeMap<>();
+        synchronized (batch) {
+          for (int i = 0; i < batch.keywords.size(); i++) {
+            int id = ids.idOf(batch.keywords.get(i));
+            long count = batch.counts.get(i);
+            long[] last = lastWritten.get(id);
+            if (last == null || last[0] != count) changed.put(id, count);
+          }
+        }
+        ids.flush();
+        if (active != null && batch.epoch >= active.startEpoch + rollSeconds) roll();
+        if (active == null) {
+          active = newSegment(batch.epoch, tickResolutionSeconds, segmentBytes);
+          changed = withKeyframe(changed, batch.epoch);
+        }
+        if (changed.isEmpty()) return;
+        if (!write(active, batch.epoch, changed)) {
+          // Mapping full before the roll interval: seal early and start a fresh segment
+          roll();
+          active = newSegment(batch.epoch, tickResolutionSeconds, segmentBytes);
+          changed = withKeyframe(changed, batch.epoch);
+          if (!write(active, batch.epoch, changed)) {
+            log.warn("History log: tick {} with {} keywords exceeds segment-bytes; dropped", batch.epoch, changed.size());
+            return;
+          }
+        }
+        for (Map.Entry<Integer, Long> e : changed.entrySet()) {
+          lastWritten.put(e.getKey(), new long[] {e.getValue(), batch.epoch});
+          ids.used(e.getKey(), batch.epoch);
+        }
+      } catch (IOException e) {
+        log.warn("History log append failed: {}", e.getMessage());
+      } finally {
+        sample.stop(appendTimer);
+      }
+    }
+  }
+
+  // Keyframe: recently written keywords at their last value, overlaid with this tick's changes
+  private TreeMap<Integer, Long> withKeyframe(TreeMap<Integer, Long> changed, long epoch) {
+    TreeMap<Integer, Long> out = new TreeMap<>();
+    long cutoff = epoch - keyframeHorizonSeconds;
+    for (Iterator<Map.Entry<Integer, long[]>> it = lastWritten.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<Integer, long[]> e = it.next();
+      if (e.getValue()[1] < cutoff) it.remove();
+      else out.put(e.getKey(), e.getValue()[0]);
+    }
+    out.putAll(changed);
+    return out;
+  }
+
+  private static boolean write(Segment segment, long epoch, TreeMap<Integer, Long> values) {
+    int[] idArr = new int[values.size()];
+    long[] countArr = new long[values.size()];
+    int i = 0;
+    for (Map.Entry<Integer, Long> e : values.entrySet()) {
+      idArr[i] = e.getKey();
+      countArr[i++] = e.getValue();
+    }
+    return segment.append(epoch, idArr, countArr, i);
+  }
+
+  private void roll() throws IOException {
+    if (active == null) return;
+    active.seal();
+    active = null;
+  }
+
+  private Segment newSegment(long startEpoch, int resolutionSeconds, int capacity) throws IOException {
+    long start = startEpoch;
+    while (segments.containsKey(start) || Files.exists(segmentPath(start))) start++;
+    Segment s = Segment.create(segmentPath(start), start, resolutionSeconds, capacity);
+    segments.put(start, s);
+    return s;
+  }
+
+  private Path segmentPath(long startEpoch) {
+    return dir.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, startEpoch, SEGMENT_SUFFIX));
+  }
+
+  /** Last logged count at or before {@code epochSecond}, or null if the keyword has none. */
+  public synchronized Long valueAt(String keyword, long epochSecond) {
+    int id = open ? ids.find(keyword) : -1;
+    if (id < 0) return null;
+    return valueAt(id, epochSecond);
+  }
+
+  private Long valueAt(int id, long epochSecond) {
+    long[] found = new long[1];
+    boolean[] hit = new boolean[1];
+    // Newest segment first; keyframes usually resolve the lookup in the first one searched
+    for (Segment s : segments.headMap(epochSecond, true).descendingMap().values()) {
+      s.scan(id, Long.MIN_VALUE, epochSecond, (epoch, count) -> {
+        found[0] = count;
+        hit[0] = true;
+      });
+      if (hit[0]) return found[0];
+    }
+    return null;
+  }
+
+  /**
+   * Volume logged over (fromEpoch, toEpoch]: the difference of the counts at both ends, or null
+   * when either end predates the keyword's first record.
+   */
+  public synchronized Long volume(String keyword, long fromEpoch, long toEpoch) {
+    int id = open ? ids.find(keyword) : -1;
+    if (id < 0) return null;
+    Long from = valueAt(id, fromEpoch);
+    Long to = valueAt(id, toEpoch);
+    return from == null || to == null ? null : to - from;
+  }
+
+  // Age-based housekeeping: drop expired segments, downsample old ones. Sealed segments are
+  // immutable, so the rewrite runs outside the lock and only the swap is synchronized.
+  @Scheduled(fixedDelayString = "${pulse.anomalies.segment-log.compact-interval-ms:3600000}")
+  public void compact() {
+    if (!open) return;
+    long now = Instant.now().getEpochSecond();
+    List<Segment> candidates;
+    synchronized (this) {
+      candidates = new ArrayList<>(segments.values());
+    }
+    int deleted = 0;
+    int compacted = 0;
+    for (Segment s : candidates) {
+      if (s.writable()) continue;
+      try {
+        if (s.lastEpoch() < now - retentionSeconds) {
+          synchronized (this) {
+            segments.remove(s.startEpoch);
+          }
+          Files.deleteIfExists(s.path);
+          deleted++;
+        } else if (s.resolutionSeconds < compactResolutionSeconds && s.lastEpoch() < now - compactAfterSeconds) {
+          Segment downsampled = downsample(s);
+          synchronized (this) {
+            segments.put(s.startEpoch, downsampled);
+          }
+          compacted++;
+        }
+      } catch (IOException e) {
+        log.warn("History log: compaction of {} failed: {}", s.path.getFileName(), e.getMessage());
+      }
+    }
+    if (deleted + compacted > 0) {
+      log.info("History log: deleted {} expired and compacted {} segments to {}s", deleted, compacted, compactResolutionSeconds);
+    }
+    if (deleted > 0) compactDictionary(now);
+  }
+
+  // Ids last used before the oldest retained segment starts cannot appear in any segment
+  private synchronized void compactDictionary(long now) {
+    if (!open) return;
+    try {
+      int dropped = ids.compact(segments.isEmpty() ? now : segments.firstKey());
+      if (dropped == 0) return;
+      lastWritten.keySet().removeIf(id -> !ids.contains(id));
+      log.info("History log: dropped {} keywords no retained segment refers to ({} left)", dropped, ids.size());
+    } catch (IOException e) {
+      log.warn("History log: dictionary compaction failed: {}", e.getMessage());
+    }
+  }
+
+  // Last value per keyword per bucket, written at the bucket's last tick
+  private Segment downsample(Segment s) throws IOException {
+    Path tmp = dir.resolve(SEGMENT_PREFIX + "compact.tmp");
+    Files.deleteIfExists(tmp);
+    Segment out = Segment.create(tmp, s.startEpoch, compactResolutionSeconds, s.bytes());
+    TreeMap<Integer, Long> pending = new TreeMap<>();
+    long[] bucket = {Long.MIN_VALUE, Long.MIN_VALUE};   // {bucket, last epoch in bucket}
+    s.scan(Long.MIN_VALUE, Long.MAX_VALUE, (epoch, idArr, countArr, n) -> {
+      long b = Math.floorDiv(epoch, compactResolutionSeconds);
+      if (b != bucket[0] && !pending.isEmpty()) {
+        write(out, bucket[1], pending);
+        pending.clear();
+      }
+      bucket[0] = b;
+      bucket[1] = epoch;
+      for (int i = 0; i < n; i++) pending.put(idArr[i], countArr[i]);
+    });
+    if (!pending.isEmpty()) write(out, bucket[1], pending);
+    out.seal();
+    Files.move(tmp, s.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return Segment.open(s.path);
+  }
+
+  @PreDestroy
+  synchronized void close() {
+    if (!open) return;
+    open = false;
+    try {
+      roll();
+      ids.close();
+    } catch (IOException e) {
+      log.warn("History log close failed: {}", e.getMessage());
+    }
+  }
+
+  private synchronized int segmentCount() {
+    return segments.size();
+  }
+
+  private synchronized long totalBytes() {
+    long total = 0;
+    for (Segment s : segments.values()) total += s.bytes();
+    return total;
+  }
+
+  private synchronized int keywordCount() {
+    return ids.size();
+  }
+}
@@ -4,16 +4,8 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(
-  name = "anomalies",
-  indexes = {
-    @Index(name = "idx_anomalies_detected_at", columnList = "detectedAt DESC"),
-    @Index(name = "idx_anomalies_keyword_detected_at", columnList = "keyword,detectedAt DESC")
-  },
-  uniqueConstraints = {
-    @UniqueConstraint(name = "uq_anomaly_kw_window", columnNames = {"keyword","windowStart","windowEnd"})
-  }
-)
+// Table, daily partitions, keys and indexes are created by Flyway (db/migration)
+@Table(name = "anomalies")
 public class AnomalyEvent {
   @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -0,0 +1,109 @@
+package com.pulse.anomaly.repo;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the daily range partitions of the anomalies table (see db/migration/V2).
+ *
+ * Each run creates the partitions for today through {@code days-ahead}, so inserts never land in
+ * the default partition, and drops whole partitions older than {@code retention-days}: retention
+ * is a catalog operation instead of a DELETE that bloats the table and needs a VACUUM afterwards.
+ * Statements are idempotent, so concurrent instances only race into harmless "already exists"
+ * or "does not exist" errors.
+ */
+@Component
+public class AnomalyPartitions {
+
+  private static final Logger log = LoggerFactory.getLogger(AnomalyPartitions.class);
+
+  private static final String PREFIX = "anomalies_p";
+  private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+  private final JdbcTemplate jdbc;
+  private final int daysAhead;
+  private final int retentionDays;
+  private final AtomicInteger partitions = new AtomicInteger();
+
+  public AnomalyPartitions(JdbcTemplate jdbc, MeterRegistry metrics,
+                           @Value("${pulse.anomalies.partitions.days-ahead:7}") int daysAhead,
+                           @Value("${pulse.anomalies.partitions.retention-days:90}") int retentionDays) {
+    this.jdbc = jdbc;
+    this.daysAhead = Math.max(1, daysAhead);
+    this.retentionDays = Math.max(1, retentionDays);
+    Gauge.builder("pulse_anomaly_partitions", partitions, AtomicInteger::get).register(metrics);
+  }
+
+  @Scheduled(initialDelay = 0, fixedDelayString = "${pulse.anomalies.partitions.interval-ms:3600000}")
+  public void maintain() {
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    try {
+      for (int i = 0; i <= daysAhead; i++) create(today.plusDays(i));
+      LocalDate oldestKept = today.minusDays(retentionDays);
+      int dropped = 0;
+      List<String> names = existing();
+      for (String name : names) {
+        LocalDate day = dayOf(name);
+        if (day != null && day.isBefore(oldestKept) && drop(name)) dropped++;
+      }
+      partitions.set(names.size() - dropped);
+      if (dropped > 0) log.info("Dropped {} anomaly partitions older than {}", dropped, oldestKept);
+      Long stray = jdbc.queryForObject("SELECT count(*) FROM anomalies_default", Long.class);
+      if (stray != null && stray > 0) {
+        log.warn("{} anomalies in anomalies_default; they are not covered by daily retention", stray);
+      }
+    } catch (Exception e) {
+      log.warn("Anomaly partition maintenance failed: {}", e.getMessage());
+    }
+  }
+
+  private void create(LocalDate day) {
+    String name = PREFIX + DAY.format(day);
+    try {
+      jdbc.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF anomalies FOR VALUES FROM ('"
+          + day + " 00:00:00+00') TO ('" + day.plusDays(1) + " 00:00:00+00')");
+    } catch (Exception e) {
+      // Fails if anomalies_default already holds rows for that day
+      log.warn("Could not create partition {}: {}", name, e.getMessage());
+    }
+  }
+
+  private boolean drop(String name) {
+    try {
+      jdbc.execute("DROP TABLE IF EXISTS " + name);
+      return true;
+    } catch (Exception e) {
+      log.warn("Could not drop partition {}: {}", name, e.getMessage());
+      return false;
+    }
+  }
+
+  private List<String> existing() {
+    return jdbc.queryForList(
+        "SELECT c.relname FROM pg_inherits i"
+            + " JOIN pg_class c ON c.oid = i.inhrelid"
+            + " JOIN pg_class p ON p.oid = i.inhparent"
+            + " WHERE p.relname = 'anomalies' AND c.relname LIKE 'anomalies\\_p%'",
+        String.class);
+  }
+
+  private static LocalDate dayOf(String name) {
+    try {
+      return LocalDate.parse(name.substring(PREFIX.length()), DAY);
+    } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+}
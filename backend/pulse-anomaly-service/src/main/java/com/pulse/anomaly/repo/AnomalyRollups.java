@@ -0,0 +1,124 @@
+package com.pulse.anomaly.repo;
+
+import com.pulse.anomaly.model.AnomalyEvent;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Incremental per-keyword hourly and daily anomaly rollups (db/migration/V3), read by the API's
+ * /api/anomalies/stats.
+ *
+ * A tick collects its persisted anomalies in a {@link Batch} (chunks add concurrently) and
+ * {@link #flush} writes one upsert per touched (bucket, keyword) and resolution as a single JDBC
+ * batch, adding to the count and z sum and keeping the max z. Old hourly and daily buckets are
+ * deleted on their own, longer, retentions; the tables are tiny next to the raw rows.
+ */
+@Component
+public class AnomalyRollups {
+
+  private static final Logger log = LoggerFactory.getLogger(AnomalyRollups.class);
+
+  private static final String UPSERT =
+      "INSERT INTO %s AS r (bucket, keyword, anomalies, max_z, sum_z) VALUES (?, ?, ?, ?, ?)"
+          + " ON CONFLICT (bucket, keyword) DO UPDATE SET anomalies = r.anomalies + EXCLUDED.anomalies,"
+          + " max_z = greatest(r.max_z, EXCLUDED.max_z), sum_z = r.sum_z + EXCLUDED.sum_z";
+
+  private final JdbcTemplate jdbc;
+  private final int hourlyRetentionDays;
+  private final int dailyRetentionDays;
+
+  public AnomalyRollups(JdbcTemplate jdbc,
+                        @Value("${pulse.anomalies.rollups.hourly-retention-days:90}") int hourlyRetentionDays,
+                        @Value("${pulse.anomalies.rollups.daily-retention-days:730}") int dailyRetentionDays) {
+    this.jdbc = jdbc;
+    this.hourlyRetentionDays = hourlyRetentionDays;
+    this.dailyRetentionDays = dailyRetentionDays;
+  }
+
+  private record Key(Instant bucket, String keyword) {}
+
+  private static final class Agg {
+    long anomalies;
+    double maxZ = Double.NEGATIVE_INFINITY;
+    double sumZ;
+
+    synchronized void add(double z) {
+      anomalies++;
+      maxZ = Math.max(maxZ, z);
+      sumZ += z;
+    }
+  }
+
+  public static final class Batch {
+    private final Map<Key, Agg> hourly = new ConcurrentHashMap<>();
+    private final Map<Key, Agg> daily = new ConcurrentHashMap<>();
+
+    public void add(AnomalyEvent ev) {
+      Instant at = ev.getDetectedAt();
+      hourly.computeIfAbsent(new Key(at.truncatedTo(ChronoUnit.HOURS), ev.getKeyword()), k -> new Agg()).add(ev.getZScore());
+      daily.computeIfAbsent(new Key(at.truncatedTo(ChronoUnit.DAYS), ev.getKeyword()), k -> new Agg()).add(ev.getZScore());
+    }
+
+    public boolean isEmpty() {
+      return hourly.isEmpty();
+    }
+  }
+
+  public Batch batch() {
+    return new Batch();
+  }
+
+  public void flush(Batch batch) {
+    if (batch.isEmpty()) return;
+    try {
+      upsert("anomaly_rollups_hourly", batch.hourly);
+      upsert("anomaly_rollups_daily", batch.daily);
+    } catch (Exception e) {
+      log.warn("Anomaly rollup flush failed for {} keywords: {}", batch.hourly.size(), e.getMessage());
+    }
+  }
+
+  private void upsert(String table, Map<Key, Agg> rows) {
+    // Fixed order so concurrent flushes from several instances lock rows in the same sequence
+    List<Map.Entry<Key, Agg>> sorted = new ArrayList<>(rows.entrySet());
+    sorted.sort(Comparator.comparing((Map.Entry<Key, Agg> e) -> e.getKey().bucket())
+        .thenComparing(e -> e.getKey().keyword()));
+    List<Object[]> args = new ArrayList<>(sorted.size());
+    for (Map.Entry<Key, Agg> e : sorted) {
+      Agg a = e.getValue();
+      args.add(new Object[] { utc(e.getKey().bucket()), e.getKey().keyword(), a.anomalies, a.maxZ, a.sumZ });
+    }
+    jdbc.batchUpdate(String.format(UPSERT, table), args);
+  }
+
+  private static OffsetDateTime utc(Instant at) {
+    return OffsetDateTime.ofInstant(at, ZoneOffset.UTC);
+  }
+
+  @Scheduled(initialDelay = 60000, fixedDelayString = "${pulse.anomalies.rollups.prune-interval-ms:3600000}")
+  public void prune() {
+    Instant now = Instant.now();
+    try {
+      int hourly = jdbc.update("DELETE FROM anomaly_rollups_hourly WHERE bucket < ?",
+          utc(now.minus(hourlyRetentionDays, ChronoUnit.DAYS)));
+      int daily = jdbc.update("DELETE FROM anomaly_rollups_daily WHERE bucket < ?",
+          utc(now.minus(dailyRetentionDays, ChronoUnit.DAYS)));
+      if (hourly + daily > 0) log.info("Pruned {} hourly and {} daily anomaly rollups", hourly, daily);
+    } catch (Exception e) {
+      log.warn("Anomaly rollup prune failed: {}", e.getMessage());
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package com.pulse.anomaly.service;
 
+import com.pulse.anomaly.history.SegmentLog;
 import com.pulse.anomaly.model.AnomalyEvent;
 import com.pulse.anomaly.repo.AnomalyEventRepository;
+import com.pulse.anomaly.repo.AnomalyRollups;
+import com.pulse.anomaly.store.TrendSource;
+import com.pulse.history.HistoryCodec;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
@@ -10,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -20,87 +25,118 @@ import org.springframework.stereotype.Service;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 public class AnomalyDetectionService {
 
   private static final Logger log = LoggerFactory.getLogger(AnomalyDetectionService.class);
 
+  private static final long WEEK_SECONDS = 7 * 86400L;
+
   private final StringRedisTemplate redis;
   private final AnomalyEventRepository anomalyRepo;
   private final KafkaTemplate<String, GenericRecord> kafka;
-  private final String zsetKey;                 
+  private final LiveAnomalyPublisher livePublisher;
+  private final TrendSource source;
+  private final SegmentLog segmentLog;
+  private final AnomalyRollups rollups;
   private final String anomalyTopic;
   private final double zThreshold;
   private final long cooldownSeconds;
   private final double minZStep;
   private final long lastZTtlSeconds; 
   private final double baselineVolumeMin;
+  private final long seasonalWindowSeconds;
+  private final double seasonalMinRatio;
 
   private final int historyWindow;
   private final Schema anomalySchema;
-  private final String lastCountsHash;
   private final String lockKey;
   private final long lockTtlMs;
   private final MeterRegistry metrics;
   private final Counter anomaliesEmitted;
   private final Counter anomaliesSuppressedLowBaseline;
+  private final Counter anomaliesSuppressedSeasonal;
   private final Counter schedulerRuns;
   private final Timer schedulerDuration;
-  private final long historyTtlSeconds;
+  private final Counter schedulerOverruns;
   private final int minSamples;
 
   // Time-based candidate scanning params
-  private final String activityZsetKey;       
   private final long activityHorizonSeconds;  
-  private final long activityRetentionSeconds;
+
+  // Pipeline scheduling
+  private final long intervalMs;
+  private final long detectionIntervalMs;
+  private final int chunkSize;
+  private final String anomaliesDayPrefix;
+  private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+  private volatile long lastDetectionMs = 0L;
 
   public AnomalyDetectionService(StringRedisTemplate redis,
                                  AnomalyEventRepository anomalyRepo,
                                  KafkaTemplate<String, GenericRecord> kafka,
-                                 @Value("${pulse.trends.zset-key}") String zsetKey,
+                                 LiveAnomalyPublisher livePublisher,
+                                 TrendSource source,
+                                 SegmentLog segmentLog,
+                                 AnomalyRollups rollups,
                                  @Value("${pulse.anomalies.topic}") String anomalyTopic,
                                  @Value("${pulse.anomalies.z-threshold}") double zThreshold,
                                  @Value("${pulse.anomalies.history-window}") int historyWindow,
-                                 @Value("${pulse.trends.last-counts-hash}") String lastCountsHash,
                                  @Value("${pulse.scheduler.lock-key}") String lockKey,
                                  @Value("${pulse.scheduler.lock-ttl-ms}") long lockTtlMs,
                                  @Value("${pulse.anomalies.cooldown-seconds:60}") long cooldownSeconds,
                                  @Value("${pulse.anomalies.min-z-step:0.5}") double minZStep,
                                  @Value("${pulse.anomalies.last-z-ttl-seconds:86400}") long lastZTtlSeconds,
                                  @Value("${pulse.anomalies.baseline-volume-min:20}") double baselineVolumeMin,
-                                 @Value("${pulse.anomalies.history-ttl-seconds:172800}") long historyTtlSeconds,
+                                 @Value("${pulse.anomalies.seasonal.window-seconds:3600}") long seasonalWindowSeconds,
+                                 @Value("${pulse.anomalies.seasonal.min-ratio:1.5}") double seasonalMinRatio,
                                  @Value("${pulse.anomalies.min-samples:10}") int minSamples,
-                                 @Value("${pulse.trends.activity-zset-key:trends:lastSeen}") String activityZsetKey,
                                  @Value("${pulse.anomalies.activity-horizon-seconds:3600}") long activityHorizonSeconds,
-                                 @Value("${pulse.anomalies.activity-retention-seconds:86400}") long activityRetentionSeconds,
+                                 @Value("${pulse.scheduler.interval-ms}") long intervalMs,
+                                 @Value("${pulse.scheduler.detection-interval-ms:15000}") long detectionIntervalMs,
+                                 @Value("${pulse.scheduler.chunk-size:2000}") int chunkSize,
+                                 @Value("${pulse.summary.anomalies-day-prefix:pulse:summary:anomalies:}") String anomaliesDayPrefix,
                                  MeterRegistry metrics) {
     this.redis = redis;
     this.anomalyRepo = anomalyRepo;
     this.kafka = kafka;
-    this.zsetKey = zsetKey;
+    this.livePublisher = livePublisher;
+    this.source = source;
+    this.segmentLog = segmentLog;
+    this.rollups = rollups;
     this.anomalyTopic = anomalyTopic;
     this.zThreshold = zThreshold;
     this.historyWindow = historyWindow;
     this.anomalySchema = loadSchema("/avro/detected_anomaly.avsc");
-    this.lastCountsHash = lastCountsHash;
     this.lockKey = lockKey;
     this.lockTtlMs = lockTtlMs;
     this.cooldownSeconds = cooldownSeconds;
     this.minZStep = minZStep;
     this.lastZTtlSeconds = lastZTtlSeconds;
     this.baselineVolumeMin = baselineVolumeMin;
+    this.seasonalWindowSeconds = Math.max(1, seasonalWindowSeconds);
+    this.seasonalMinRatio = seasonalMinRatio;
     this.metrics = metrics;
     this.anomaliesEmitted = metrics.counter("pulse_anomalies_emitted_total");
     this.anomaliesSuppressedLowBaseline = metrics.counter("pulse_anomalies_suppressed_total", "reason", "low_baseline");
+    this.anomaliesSuppressedSeasonal = metrics.counter("pulse_anomalies_suppressed_total", "reason", "seasonal");
     this.schedulerRuns = metrics.counter("pulse_scheduler_runs_total");
     this.schedulerDuration = metrics.timer("pulse_scheduler_run_duration_seconds");
-    this.historyTtlSeconds = historyTtlSeconds;
+    this.schedulerOverruns = metrics.counter("pulse_scheduler_overruns_total");
     this.minSamples = minSamples;
-    this.activityZsetKey = activityZsetKey;
     this.activityHorizonSeconds = activityHorizonSeconds;
-    this.activityRetentionSeconds = activityRetentionSeconds;
+    this.intervalMs = intervalMs;
+    this.detectionIntervalMs = detectionIntervalMs;
+    this.chunkSize = Math.max(1, chunkSize);
+    this.anomaliesDayPrefix = anomaliesDayPrefix;
   }
 
   private Schema loadSchema(String path) {
@@ -111,180 +147,158 @@ public class AnomalyDetectionService {
     }
   }
 
-  // --- TASK 1: THE RECORDER (Fast, Frequent) ---
-  // Records history every 5 seconds regardless of anomaly detection speed.
+  // --- SINGLE-PASS PIPELINE ---
+  // One tick snapshots active keywords and their counts once, then fans out per-chunk work to
+  // virtual threads. Each chunk records history and (when due) evaluates detection in the same pass.
+  // Trend state comes from the TrendSource: the Redis shards, or the embedded store's snapshot.
+  // The tick's counts are also appended to the local segment log for long-range history, and its
+  // persisted anomalies are folded into the hourly/daily rollups in one batch at the end.
   @Scheduled(fixedDelayString = "${pulse.scheduler.interval-ms}")
-  public void recordHistory() {
+  public void tick() {
     Instant start = Instant.now();
+    String token = UUID.randomUUID().toString();
+    Boolean acquired = redis.opsForValue().setIfAbsent(lockKey, token, Duration.ofMillis(lockTtlMs));
+    if (Boolean.FALSE.equals(acquired)) {
+      log.info("[tick] Skipped: another instance is running.");
+      return;
+    }
+
+    boolean detect = start.toEpochMilli() - lastDetectionMs >= detectionIntervalMs;
+    int active = 0;
+    TickResult total = TickResult.EMPTY;
+    this.schedulerRuns.increment();
+    Timer.Sample sample = Timer.start(metrics);
     try {
-      log.info("[recordHistory] Scheduler started at {}", start);
       long nowSec = start.getEpochSecond();
-
-      Set<String> recent = Optional.ofNullable(
-          redis.opsForZSet().rangeByScore(activityZsetKey,
-              nowSec - activityHorizonSeconds,
-              Double.POSITIVE_INFINITY)
-      ).orElseGet(Set::of);
-
-      if (recent.isEmpty()) {
-        log.info("[recordHistory] No active keywords found in the last {}s.", activityHorizonSeconds);
-        return;
+      SegmentLog.Batch batch = segmentLog.enabled() ? segmentLog.batch(nowSec) : null;
+      AnomalyRollups.Batch emitted = rollups.batch();
+      List<Future<TickResult>> futures = new ArrayList<>();
+      for (TrendSource.Chunk chunk : source.activeChunks(nowSec - activityHorizonSeconds, chunkSize)) {
+        active += chunk.keywords().size();
+        futures.add(workers.submit(() -> processChunk(chunk, detect, batch, emitted, start)));
       }
 
-      Map<String, Long> currentCounts = new HashMap<>();
-      for (String kw : recent) {
-        Double s = redis.opsForZSet().score(zsetKey, kw);
-        if (s != null && s > 0) currentCounts.put(kw, Math.round(s));
-      }
-      if (currentCounts.isEmpty()) {
-        log.info("[recordHistory] No current counts found for {} active keywords.", recent.size());
+      if (active == 0) {
+        log.debug("[tick] No active keywords found in the last {}s.", activityHorizonSeconds);
         return;
       }
-
-      var hashOps = redis.opsForHash();
-      List<Object> keys = new ArrayList<>(currentCounts.keySet());
-      List<Object> prevVals = hashOps.multiGet(lastCountsHash, keys);
-      Map<String, String> updates = new HashMap<>();
-
-      for (int i = 0; i < keys.size(); i++) {
-        String kw = (String) keys.get(i);
-        Long nowCount = currentCounts.get(kw);
-        Long prev = parseLong(prevVals.get(i));
-
-        if (!Objects.equals(prev, nowCount)) {
-          updates.put(kw, nowCount.toString());
-          String histKey = "trends:history:" + kw;
-          redis.opsForList().leftPush(histKey, nowCount.toString());
-          redis.opsForList().trim(histKey, 0, historyWindow - 1);
-          try { redis.expire(histKey, Duration.ofSeconds(historyTtlSeconds)); } catch (Exception ignored) {}
+      for (Future<TickResult> f : futures) {
+        try {
+          total = total.plus(f.get());
+        } catch (ExecutionException e) {
+          log.error("Error in tick chunk: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
         }
       }
-      if (!updates.isEmpty()) {
-        hashOps.putAll(lastCountsHash, updates);
-        log.info("[recordHistory] Updated {} keywords' history.", updates.size());
-      } else {
-        log.info("[recordHistory] No keyword history updates needed.");
-      }
+      if (batch != null) segmentLog.append(batch);
+      rollups.flush(emitted);
+      if (detect) lastDetectionMs = start.toEpochMilli();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } catch (Exception e) {
-      log.error("Error in recordHistory task: {}", e.getMessage());
+      log.error("Error in tick: {}", e.getMessage());
     } finally {
+      sample.stop(this.schedulerDuration);
+      String cur = redis.opsForValue().get(lockKey);
+      if (token.equals(cur)) redis.delete(lockKey);
       long ms = Duration.between(start, Instant.now()).toMillis();
-      log.info("[recordHistory] Scheduler finished in {} ms", ms);
+      if (ms > intervalMs) {
+        schedulerOverruns.increment();
+        log.warn("[tick] Overrun: took {} ms for {} keywords (interval {} ms)", ms, active, intervalMs);
+      }
+      log.info("[tick] active={} recorded={} checked={} emitted={} detect={} in {} ms",
+          active, total.recorded(), total.checked(), total.emitted(), detect, ms);
     }
   }
 
-  // --- TASK 2: THE ANALYST (Slower, Heavy Math) ---
-  // Checks for anomalies every 15 seconds (configurable). Uses Lock.
-  @Scheduled(fixedDelayString = "${pulse.scheduler.detection-interval-ms}")
-  public void detectAnomalies() {
-    Instant start = Instant.now();
-    String token = UUID.randomUUID().toString();
-    Boolean acquired = redis.opsForValue().setIfAbsent(lockKey, token, Duration.ofMillis(lockTtlMs));
-    if (Boolean.FALSE.equals(acquired)) {
-      log.info("[detectAnomalies] Skipped: another instance is running.");
-      return;
+  private TickResult processChunk(TrendSource.Chunk chunk, boolean detect, SegmentLog.Batch batch,
+                                  AnomalyRollups.Batch emittedBatch, Instant now) {
+    TrendSource.ChunkSeries series = source.load(chunk, now.getEpochSecond());
+    if (batch != null) {
+      for (int i = 0; i < series.keywords().size(); i++) {
+        Long count = HistoryCodec.newest(series.histories().get(i));
+        if (count != null) batch.add(series.keywords().get(i), count);
+      }
     }
 
     int checked = 0;
-    try {
-      log.info("[detectAnomalies] Scheduler started at {}", start);
-      this.schedulerRuns.increment();
-      Timer.Sample sample = Timer.start(metrics);
-      try {
-        long nowSec = Instant.now().getEpochSecond();
-        Set<String> recent = redis.opsForZSet().rangeByScore(activityZsetKey,
-                nowSec - activityHorizonSeconds, Double.POSITIVE_INFINITY);
-        if (recent != null && !recent.isEmpty()) {
-           for (String kw : recent) {
-             checkSingleKeyword(kw);
-             checked++;
-           }
-        }
-        log.info("[detectAnomalies] Checked {} keywords for anomalies.", checked);
-      } finally {
-        sample.stop(this.schedulerDuration);
+    int emitted = 0;
+    if (detect) {
+      for (int i = 0; i < series.keywords().size(); i++) {
+        long[] history = HistoryCodec.decode(series.histories().get(i));
+        if (checkSingleKeyword(series.keywords().get(i), history, emittedBatch, now)) emitted++;
+        checked++;
       }
-    } catch (Exception e) {
-      log.error("Error in detectAnomalies task: {}", e.getMessage());
-    } finally {
-      String cur = redis.opsForValue().get(lockKey);
-      if (token.equals(cur)) redis.delete(lockKey);
-      long ms = Duration.between(start, Instant.now()).toMillis();
-      log.info("[detectAnomalies] Scheduler finished in {} ms", ms);
     }
+    return new TickResult(series.recorded(), checked, emitted);
   }
 
-  private void checkSingleKeyword(String kw) {
-    // Fetch History (Populated by Task 1)
-    List<String> historyStrs = redis.opsForList().range("trends:history:" + kw, 0, -1);
-    if (historyStrs == null || historyStrs.size() < minSamples) return;
+  private boolean checkSingleKeyword(String kw, long[] history, AnomalyRollups.Batch emitted, Instant now) {
+    if (history.length < minSamples) return false;
 
-    List<Long> history = historyStrs.stream()
-        .map(this::parseLong).filter(Objects::nonNull).toList();
-    
-    if (history.size() < minSamples) return;
-
-    Long currentCount = history.get(0); // Newest value is at index 0
+    long currentCount = history[0]; // Newest value is at index 0
 
     // Exclude current sample from baseline statistics
-    if (history.size() < 2) return;
-    List<Long> baseline = history.subList(1, history.size());
-    if (baseline.size() < 2) return; // Need variance
-    
-    Stats stats = computeStats(baseline);
+    if (history.length < 3) return false; // Need variance
+    Stats stats = computeStats(history, 1);
 
     if (stats.mean() < baselineVolumeMin) {
       anomaliesSuppressedLowBaseline.increment();
-      return;
+      return false;
     }
-    if (stats.stddev() <= 0.0) return;
+    if (stats.stddev() <= 0.0) return false;
 
     double z = (currentCount - stats.mean()) / stats.stddev();
-    
-    String meanStr = String.format("%.2f", stats.mean());
-    String stdStr = String.format("%.2f", stats.stddev());
-    String zStr = String.format("%.2f", z);
-    log.info("Anomaly check: kw='{}' curr={} mean={} std={} z={}", kw, currentCount, meanStr, stdStr, zStr);
+    if (log.isDebugEnabled()) {
+      log.debug("Anomaly check: kw='{}' curr={} mean={} std={} z={}", kw, currentCount,
+          String.format("%.2f", stats.mean()), String.format("%.2f", stats.stddev()), String.format("%.2f", z));
+    }
+
+    // Below threshold can never be eligible; skip the last-z lookup
+    if (z < zThreshold) return false;
+    if (seasonal(kw, currentCount, now.getEpochSecond())) {
+      anomaliesSuppressedSeasonal.increment();
+      return false;
+    }
 
     if (shouldEmit(kw, z)) {
-      log.info("Anomaly emitted: kw='{}' z={}", kw, zStr);
-      emitAnomaly(kw, currentCount, stats, z, Instant.now());
+      log.info("Anomaly emitted: kw='{}' z={}", kw, String.format("%.2f", z));
+      return emitAnomaly(kw, currentCount, stats, z, emitted, now);
     }
+    return false;
   }
 
-  // Periodic pruning of lastSeen so it doesn’t grow unbounded
-  @Scheduled(fixedDelayString = "${pulse.maintenance.activity-trim-interval-ms:60000}")
-  public void trimActivityZset() {
-    long cutoffSec = Instant.now().getEpochSecond() - activityRetentionSeconds;
-    Long removed = redis.opsForZSet()
-        .removeRangeByScore(activityZsetKey, Double.NEGATIVE_INFINITY, cutoffSec);
-    if (removed != null && removed > 0) {
-        log.debug("activity trim removed={}", removed);
-    }
+  // Week-over-week baseline from the segment log: a spike whose volume over the last window is no
+  // more than min-ratio times the same window a week earlier is the keyword's weekly pattern.
+  // Without a week of logged history (or with the log disabled) nothing is suppressed.
+  private boolean seasonal(String kw, long currentCount, long nowSec) {
+    if (!segmentLog.enabled() || seasonalMinRatio <= 0) return false;
+    long weekAgo = nowSec - WEEK_SECONDS;
+    Long lastWeek = segmentLog.volume(kw, weekAgo - seasonalWindowSeconds, weekAgo);
+    if (lastWeek == null || lastWeek <= 0) return false;
+    // This tick's counts are appended after detection, so the window ends at the live count
+    Long windowStart = segmentLog.valueAt(kw, nowSec - seasonalWindowSeconds);
+    if (windowStart == null) return false;
+    return currentCount - windowStart <= seasonalMinRatio * lastWeek;
   }
 
-  private Long parseLong(Object obj) {
-    if (obj instanceof String s) {
-      try { return Long.valueOf(s); } catch (NumberFormatException ignored) {}
-    } else if (obj instanceof Number n) {
-      return n.longValue();
-    }
-    return null;
+  @PreDestroy
+  void shutdownWorkers() {
+    workers.shutdown();
   }
 
-  private Stats computeStats(List<Long> history) {
-    int n = history.size();
-    if (n == 0) return new Stats(0.0, 0.0);
+  // Mean and sample standard deviation (n-1) of history[from..]
+  static Stats computeStats(long[] history, int from) {
+    int n = history.length - from;
+    if (n <= 0) return new Stats(0.0, 0.0);
     double sum = 0.0;
-    for (Long c : history) sum += c;
+    for (int i = from; i < history.length; i++) sum += history[i];
     double mean = sum / n;
-    if (n == 1) return new Stats(mean, 0.0); 
+    if (n == 1) return new Stats(mean, 0.0);
     double var = 0.0;
-    for (Long c : history) {
-      double d = c - mean;
+    for (int i = from; i < history.length; i++) {
+      double d = history[i] - mean;
       var += d * d;
     }
-    // sample standard deviation (n-1)
     double stddev = Math.sqrt(var / (n - 1));
     return new Stats(mean, stddev);
   }
@@ -305,7 +319,8 @@ public class AnomalyDetectionService {
     return false;
   }
 
-  private void emitAnomaly(String keyword, long currentCount, Stats stats, double z, Instant now) {
+  private boolean emitAnomaly(String keyword, long currentCount, Stats stats, double z,
+                              AnomalyRollups.Batch emitted, Instant now) {
     AnomalyEvent ev = new AnomalyEvent();
     ev.setKeyword(keyword);
     ev.setCurrentCount(currentCount);
@@ -319,8 +334,11 @@ public class AnomalyDetectionService {
     try {
       anomalyRepo.save(ev);
     } catch (DataIntegrityViolationException ignore) {
-      return;
+      return false;
     }
+    emitted.add(ev);
+    livePublisher.publish(ev);
+    countForSummary(now);
 
     GenericData.Record record = new GenericData.Record(anomalySchema);
     record.put("keyword", keyword);
@@ -331,7 +349,8 @@ public class AnomalyDetectionService {
     record.put("timestamp", now.toEpochMilli());
     record.put("window_start", now.minusSeconds(historyWindow * 10L).toEpochMilli());
     record.put("window_end", now.toEpochMilli());
-    record.put("metadata", null);
+    // Carry the row id so SSE consumers can de-duplicate against REST results
+    record.put("metadata", Map.of("id", String.valueOf(ev.getId())));
 
     try {
       kafka.send(anomalyTopic, keyword, record);
@@ -339,7 +358,27 @@ public class AnomalyDetectionService {
     } catch (Exception ex) {
       log.debug("Kafka anomaly publish failed (non-fatal): {}", ex.getMessage());
     }
+    return true;
+  }
+
+  // Per-UTC-day anomaly counter so /api/summary never has to count the table
+  private void countForSummary(Instant now) {
+    String key = anomaliesDayPrefix + LocalDate.ofInstant(now, ZoneOffset.UTC);
+    try {
+      Long n = redis.opsForValue().increment(key);
+      if (n != null && n == 1L) redis.expire(key, Duration.ofDays(2));
+    } catch (Exception e) {
+      log.debug("Summary counter update failed (non-fatal): {}", e.getMessage());
+    }
   }
 
-  private record Stats(double mean, double stddev) {}
+  record Stats(double mean, double stddev) {}
+
+  private record TickResult(int recorded, int checked, int emitted) {
+    static final TickResult EMPTY = new TickResult(0, 0, 0);
+
+    TickResult plus(TickResult o) {
+      return new TickResult(recorded + o.recorded, checked + o.checked, emitted + o.emitted);
+    }
+  }
 }
\ No newline at end of file
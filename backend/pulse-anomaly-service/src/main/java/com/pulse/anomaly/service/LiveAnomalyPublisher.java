@@ -0,0 +1,53 @@
+package com.pulse.anomaly.service;
+
+import com.pulse.anomaly.model.AnomalyEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+// Publishes persisted anomalies to a capped Redis stream that API instances tail for SSE
+@Component
+public class LiveAnomalyPublisher {
+
+  private static final Logger log = LoggerFactory.getLogger(LiveAnomalyPublisher.class);
+
+  private final StringRedisTemplate redis;
+  private final String streamKey;
+  private final long maxLen;
+
+  public LiveAnomalyPublisher(StringRedisTemplate redis,
+                              @Value("${pulse.anomalies.live-stream-key:anomalies:live}") String streamKey,
+                              @Value("${pulse.anomalies.live-stream-maxlen:10000}") long maxLen) {
+    this.redis = redis;
+    this.streamKey = streamKey;
+    this.maxLen = maxLen;
+  }
+
+  // Field names match the API's AnomalyEvent DTO so the API can map entries without a schema
+  public void publish(AnomalyEvent ev) {
+    if (streamKey == null || streamKey.isBlank()) return;
+    Map<String, String> fields = new LinkedHashMap<>();
+    fields.put("id", String.valueOf(ev.getId()));
+    fields.put("keyword", ev.getKeyword());
+    fields.put("zScore", Double.toString(ev.getZScore()));
+    fields.put("baselineVolume", Long.toString(Math.round(ev.getAverageCount())));
+    fields.put("currentVolume", Long.toString(ev.getCurrentCount()));
+    fields.put("createdAt", ev.getDetectedAt().toString());
+    try {
+      StringRecord record = StreamRecords.string(fields).withStreamKey(streamKey);
+      redis.execute((RedisCallback<Object>) connection -> ((StringRedisConnection) connection)
+          .xAdd(record, XAddOptions.maxlen(maxLen).approximateTrimming(true)));
+    } catch (Exception e) {
+      log.debug("Live anomaly publish failed (non-fatal): {}", e.getMessage());
+    }
+  }
+}
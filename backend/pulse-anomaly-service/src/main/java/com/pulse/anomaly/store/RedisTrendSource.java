@@ -0,0 +1,116 @@
+package com.pulse.anomaly.store;
+
+import com.pulse.history.HistoryCodec;
+import com.pulse.shard.TrendShards;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+// Trend state from the shared Redis keys; read shard by shard so a chunk's ZMSCORE hits one key
+@Component
+@Profile("!embedded-store")
+public class RedisTrendSource implements TrendSource {
+
+  private final StringRedisTemplate redis;
+  private final TrendShards shards;
+  private final String zsetKey;
+  private final String activityZsetKey;
+  private final String historyKeyPrefix;
+  private final int historyWindow;
+  private final long historyTtlSeconds;
+
+  public RedisTrendSource(StringRedisTemplate redis,
+                          TrendShards shards,
+                          @Value("${pulse.trends.zset-key}") String zsetKey,
+                          @Value("${pulse.trends.activity-zset-key:trends:lastSeen}") String activityZsetKey,
+                          @Value("${pulse.anomalies.history-key-prefix:trends:hist:}") String historyKeyPrefix,
+                          @Value("${pulse.anomalies.history-window}") int historyWindow,
+                          @Value("${pulse.anomalies.history-ttl-seconds:172800}") long historyTtlSeconds) {
+    this.redis = redis;
+    this.shards = shards;
+    this.zsetKey = zsetKey;
+    this.activityZsetKey = activityZsetKey;
+    this.historyKeyPrefix = historyKeyPrefix;
+    this.historyWindow = historyWindow;
+    this.historyTtlSeconds = historyTtlSeconds;
+  }
+
+  @Override
+  public List<Chunk> activeChunks(long sinceEpochSecond, int chunkSize) {
+    List<Chunk> chunks = new ArrayList<>();
+    for (int shard = 0; shard < shards.count(); shard++) {
+      Set<String> recent = Optional.ofNullable(
+          redis.opsForZSet().rangeByScore(shards.key(activityZsetKey, shard),
+              sinceEpochSecond,
+              Double.POSITIVE_INFINITY)
+      ).orElseGet(Set::of);
+      List<String> keywords = new ArrayList<>(recent);
+      for (int i = 0; i < keywords.size(); i += chunkSize) {
+        chunks.add(new Chunk(shard, keywords.subList(i, Math.min(keywords.size(), i + chunkSize))));
+      }
+    }
+    return chunks;
+  }
+
+  @Override
+  public ChunkSeries load(Chunk chunk, long nowEpochSecond) {
+    // Snapshot current counts for the chunk in one ZMSCORE
+    List<Double> scores = redis.opsForZSet().score(shards.key(zsetKey, chunk.shard()), chunk.keywords().toArray());
+    if (scores == null) return ChunkSeries.EMPTY;
+
+    List<String> kws = new ArrayList<>(chunk.keywords().size());
+    List<Long> counts = new ArrayList<>(chunk.keywords().size());
+    for (int i = 0; i < chunk.keywords().size(); i++) {
+      Double s = scores.get(i);
+      if (s != null && s > 0) {
+        kws.add(chunk.keywords().get(i));
+        counts.add(Math.round(s));
+      }
+    }
+    if (kws.isEmpty()) return ChunkSeries.EMPTY;
+
+    // One MGET for the encoded histories; the newest sample doubles as the previous count
+    byte[][] keys = new byte[kws.size()][];
+    for (int i = 0; i < kws.size(); i++) keys[i] = historyKey(kws.get(i));
+    List<byte[]> blobs = redis.execute((RedisCallback<List<byte[]>>) connection ->
+        connection.stringCommands().mGet(keys));
+
+    byte[][] updated = new byte[kws.size()][];
+    int recorded = 0;
+    for (int i = 0; i < kws.size(); i++) {
+      byte[] blob = blobs != null ? blobs.get(i) : null;
+      long nowCount = counts.get(i);
+      Long prev = HistoryCodec.newest(blob);
+      if (prev == null || prev != nowCount) {
+        updated[i] = HistoryCodec.push(blob, nowCount, nowEpochSecond, historyWindow);
+        recorded++;
+      }
+    }
+
+    if (recorded > 0) {
+      redis.executePipelined((RedisCallback<Object>) connection -> {
+        for (int i = 0; i < kws.size(); i++) {
+          if (updated[i] != null) connection.stringCommands().setEx(keys[i], historyTtlSeconds, updated[i]);
+        }
+        return null;
+      });
+    }
+
+    List<byte[]> histories = new ArrayList<>(kws.size());
+    for (int i = 0; i < kws.size(); i++) {
+      histories.add(updated[i] != null ? updated[i] : (blobs != null ? blobs.get(i) : null));
+    }
+    return new ChunkSeries(kws, histories, recorded);
+  }
+
+  private byte[] historyKey(String keyword) {
+    return (historyKeyPrefix + keyword).getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,72 @@
+package com.pulse.anomaly.store;
+
+import com.pulse.snapshot.TrendSnapshot;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Trend state from the embedded store's snapshot file, read in place through its mapping; history
+// is sampled by the processing service, so a load never writes
+@Component
+@Profile("embedded-store")
+public class SnapshotTrendSource implements TrendSource {
+
+  private static final Logger log = LoggerFactory.getLogger(SnapshotTrendSource.class);
+
+  private final Path snapshotPath;
+  private volatile Loaded loaded;
+
+  private record Loaded(long modifiedMs, TrendSnapshot snapshot) {}
+
+  public SnapshotTrendSource(@Value("${pulse.embedded.snapshot-path:data/trend-snapshot.bin}") String snapshotPath) {
+    this.snapshotPath = Path.of(snapshotPath);
+  }
+
+  @Override
+  public List<Chunk> activeChunks(long sinceEpochSecond, int chunkSize) {
+    Loaded snap = refresh();
+    if (snap == null) return List.of();
+    List<String> keywords = snap.snapshot().keywordsSince(sinceEpochSecond);
+    List<Chunk> chunks = new ArrayList<>();
+    for (int i = 0; i < keywords.size(); i += chunkSize) {
+      chunks.add(new Chunk(0, keywords.subList(i, Math.min(keywords.size(), i + chunkSize))));
+    }
+    return chunks;
+  }
+
+  @Override
+  public ChunkSeries load(Chunk chunk, long nowEpochSecond) {
+    Loaded snap = loaded;
+    if (snap == null) return ChunkSeries.EMPTY;
+    List<String> kws = new ArrayList<>(chunk.keywords().size());
+    List<byte[]> histories = new ArrayList<>(chunk.keywords().size());
+    for (String kw : chunk.keywords()) {
+      TrendSnapshot.Entry e = snap.snapshot().get(kw);
+      if (e == null || e.count() <= 0) continue;
+      kws.add(kw);
+      histories.add(e.history());
+    }
+    return new ChunkSeries(kws, histories, 0);
+  }
+
+  // Re-map only when the writer has replaced the file since the last tick
+  private Loaded refresh() {
+    try {
+      if (!Files.exists(snapshotPath)) return null;
+      long modified = Files.getLastModifiedTime(snapshotPath).toMillis();
+      Loaded cur = loaded;
+      if (cur != null && cur.modifiedMs() == modified) return cur;
+      loaded = new Loaded(modified, TrendSnapshot.open(snapshotPath));
+      return loaded;
+    } catch (Exception e) {
+      log.warn("Trend snapshot read failed ({}): {}", snapshotPath, e.getMessage());
+      return loaded;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.pulse.anomaly.store;
+
+import java.util.List;
+
+/**
+ * Where the detection tick reads trend state from.
+ *
+ * RedisTrendSource (default) scans the lastSeen ZSET shards, snapshots counts with ZMSCORE and
+ * records this tick's sample into the trends:hist:* blobs. SnapshotTrendSource (profile
+ * {@code embedded-store}) reads counts and histories from the processing service's snapshot file,
+ * where the history is already sampled in process.
+ */
+public interface TrendSource {
+
+  /** Keywords seen at or after the given time, in chunks that can each be loaded in one read. */
+  List<Chunk> activeChunks(long sinceEpochSecond, int chunkSize);
+
+  /**
+   * HistoryCodec blobs (newest first) for a chunk's keywords with a positive count; a sample
+   * recorded by this load is stamped with {@code nowEpochSecond}.
+   */
+  ChunkSeries load(Chunk chunk, long nowEpochSecond);
+
+  record Chunk(int shard, List<String> keywords) {}
+
+  /** keywords.get(i) has histories.get(i); recorded counts the samples written by this load. */
+  record ChunkSeries(List<String> keywords, List<byte[]> histories, int recorded) {
+    public static final ChunkSeries EMPTY = new ChunkSeries(List.of(), List.of(), 0);
+  }
+}
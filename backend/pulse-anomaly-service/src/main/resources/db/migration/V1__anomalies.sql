@@ -0,0 +1,13 @@
+-- Unpartitioned anomalies table as created before migrations existed (docs/DEPLOY_OCI.md).
+-- Databases that already have it are baselined at this version and skip straight to V2.
+CREATE TABLE IF NOT EXISTS anomalies (
+  id BIGSERIAL PRIMARY KEY,
+  keyword TEXT NOT NULL,
+  current_count BIGINT NOT NULL,
+  average_count DOUBLE PRECISION NOT NULL,
+  stddev DOUBLE PRECISION NOT NULL,
+  z_score DOUBLE PRECISION NOT NULL,
+  detected_at TIMESTAMPTZ NOT NULL,
+  window_start TIMESTAMPTZ NULL,
+  window_end TIMESTAMPTZ NULL
+);
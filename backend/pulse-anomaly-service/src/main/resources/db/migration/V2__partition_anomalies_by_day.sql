@@ -0,0 +1,67 @@
+-- Range-partition anomalies by detected_at, one partition per UTC day, so retention is a
+-- DROP TABLE of whole days (AnomalyPartitions) and time-bounded queries only open the days they
+-- cover. Primary and unique keys of a partitioned table must contain detected_at; window_end is
+-- always equal to detected_at, so the unique key still rejects the same keyword/window twice.
+
+ALTER TABLE anomalies RENAME TO anomalies_unpartitioned;
+ALTER INDEX IF EXISTS anomalies_pkey RENAME TO anomalies_unpartitioned_pkey;
+ALTER SEQUENCE IF EXISTS anomalies_id_seq RENAME TO anomalies_unpartitioned_id_seq;
+ALTER TABLE anomalies_unpartitioned DROP CONSTRAINT IF EXISTS uq_anomaly_kw_window;
+DROP INDEX IF EXISTS idx_anomalies_detected_at;
+DROP INDEX IF EXISTS idx_anomalies_detected_at_id;
+DROP INDEX IF EXISTS idx_anomalies_keyword_detected_at;
+DROP INDEX IF EXISTS idx_anomalies_keyword_prefix;
+
+-- Identity columns are not allowed on partitioned tables before Postgres 17; a sequence default
+-- behaves the same for Hibernate's IDENTITY strategy (INSERT ... RETURNING id)
+CREATE SEQUENCE anomalies_id_seq;
+
+CREATE TABLE anomalies (
+  id BIGINT NOT NULL DEFAULT nextval('anomalies_id_seq'),
+  keyword TEXT NOT NULL,
+  current_count BIGINT NOT NULL,
+  average_count DOUBLE PRECISION NOT NULL,
+  stddev DOUBLE PRECISION NOT NULL,
+  z_score DOUBLE PRECISION NOT NULL,
+  detected_at TIMESTAMPTZ NOT NULL,
+  window_start TIMESTAMPTZ NULL,
+  window_end TIMESTAMPTZ NULL,
+  CONSTRAINT anomalies_pkey PRIMARY KEY (id, detected_at),
+  CONSTRAINT uq_anomalies_kw_window UNIQUE (keyword, window_start, window_end, detected_at)
+) PARTITION BY RANGE (detected_at);
+
+ALTER SEQUENCE anomalies_id_seq OWNED BY anomalies.id;
+
+-- Keyset pagination on (detected_at, id); INCLUDE makes listing pages index-only
+CREATE INDEX idx_anomalies_detected_at_id
+  ON anomalies (detected_at DESC, id DESC) INCLUDE (keyword, z_score, average_count, current_count);
+-- Prefix keyword search (LIKE 'abc%') regardless of database collation
+CREATE INDEX idx_anomalies_keyword_prefix
+  ON anomalies (keyword text_pattern_ops, detected_at DESC, id DESC);
+
+-- Catches rows for days without a partition; AnomalyPartitions keeps it empty by creating days ahead
+CREATE TABLE anomalies_default PARTITION OF anomalies DEFAULT;
+
+-- One partition per day from the oldest existing row through a week ahead; days past the
+-- retention are dropped by the first AnomalyPartitions run
+DO $$
+DECLARE
+  today DATE := (now() AT TIME ZONE 'UTC')::date;
+  d DATE;
+BEGIN
+  SELECT coalesce(min((detected_at AT TIME ZONE 'UTC')::date), today) INTO d FROM anomalies_unpartitioned;
+  WHILE d <= today + 7 LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF anomalies FOR VALUES FROM (%L) TO (%L)',
+      'anomalies_p' || to_char(d, 'YYYYMMDD'), d || ' 00:00:00+00', (d + 1) || ' 00:00:00+00');
+    d := d + 1;
+  END LOOP;
+END $$;
+
+INSERT INTO anomalies (id, keyword, current_count, average_count, stddev, z_score, detected_at, window_start, window_end)
+SELECT id, keyword, current_count, average_count, stddev, z_score, detected_at, window_start, window_end
+FROM anomalies_unpartitioned
+ON CONFLICT DO NOTHING;
+
+SELECT setval('anomalies_id_seq', coalesce((SELECT max(id) FROM anomalies), 0) + 1, false);
+
+DROP TABLE anomalies_unpartitioned;
@@ -0,0 +1,36 @@
+-- Per-keyword hourly and daily anomaly rollups, maintained incrementally by the anomaly service
+-- (AnomalyRollups) from each tick's persisted anomalies and served by /api/anomalies/stats.
+-- sum_z rather than a mean so concurrent upserts stay additive; mean z = sum_z / anomalies.
+
+CREATE TABLE anomaly_rollups_hourly (
+  bucket TIMESTAMPTZ NOT NULL,
+  keyword TEXT NOT NULL,
+  anomalies BIGINT NOT NULL,
+  max_z DOUBLE PRECISION NOT NULL,
+  sum_z DOUBLE PRECISION NOT NULL,
+  CONSTRAINT anomaly_rollups_hourly_pkey PRIMARY KEY (bucket, keyword)
+);
+
+CREATE TABLE anomaly_rollups_daily (
+  bucket TIMESTAMPTZ NOT NULL,
+  keyword TEXT NOT NULL,
+  anomalies BIGINT NOT NULL,
+  max_z DOUBLE PRECISION NOT NULL,
+  sum_z DOUBLE PRECISION NOT NULL,
+  CONSTRAINT anomaly_rollups_daily_pkey PRIMARY KEY (bucket, keyword)
+);
+
+-- Keyword (prefix) filtered ranges
+CREATE INDEX idx_anomaly_rollups_hourly_keyword ON anomaly_rollups_hourly (keyword text_pattern_ops, bucket DESC);
+CREATE INDEX idx_anomaly_rollups_daily_keyword ON anomaly_rollups_daily (keyword text_pattern_ops, bucket DESC);
+
+-- Backfill from the rows already stored
+INSERT INTO anomaly_rollups_hourly (bucket, keyword, anomalies, max_z, sum_z)
+SELECT date_trunc('hour', detected_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC', keyword, count(*), max(z_score), sum(z_score)
+FROM anomalies
+GROUP BY 1, 2;
+
+INSERT INTO anomaly_rollups_daily (bucket, keyword, anomalies, max_z, sum_z)
+SELECT date_trunc('day', bucket AT TIME ZONE 'UTC') AT TIME ZONE 'UTC', keyword, sum(anomalies), max(max_z), sum(sum_z)
+FROM anomaly_rollups_hourly
+GROUP BY 1, 2;
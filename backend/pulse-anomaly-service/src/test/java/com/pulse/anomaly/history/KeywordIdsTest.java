@@ -0,0 +1,95 @@
+package com.pulse.anomaly.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KeywordIdsTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void keepsIdsAcrossReopen() throws IOException {
+    Path file = dir.resolve("keywords");
+    KeywordIds ids = new KeywordIds(file);
+    ids.open(100);
+    int rust = ids.idOf("rust");
+    int cafe = ids.idOf("café");
+    assertThat(ids.idOf("rust")).isEqualTo(rust);
+    ids.close();
+
+    KeywordIds reopened = new KeywordIds(file);
+    reopened.open(200);
+
+    assertThat(reopened.find("rust")).isEqualTo(rust);
+    assertThat(reopened.find("café")).isEqualTo(cafe);
+    assertThat(reopened.find("zig")).isEqualTo(-1);
+    assertThat(reopened.idOf("zig")).isNotIn(rust, cafe);
+    assertThat(reopened.size()).isEqualTo(3);
+    reopened.close();
+  }
+
+  @Test
+  void dropsATornTrailingEntryAndAppendsOverIt() throws IOException {
+    Path file = dir.resolve("keywords");
+    KeywordIds ids = new KeywordIds(file);
+    ids.open(100);
+    int rust = ids.idOf("rust");
+    ids.close();
+    long intact = Files.size(file);
+
+    // A crash mid-append: id and length written, only part of the name
+    Files.write(file, new byte[] {0, 0, 0, 9, 0, 6, 'k', 'o'}, StandardOpenOption.APPEND);
+
+    KeywordIds reopened = new KeywordIds(file);
+    reopened.open(200);
+    assertThat(Files.size(file)).isEqualTo(intact);
+    assertThat(reopened.find("rust")).isEqualTo(rust);
+    assertThat(reopened.size()).isEqualTo(1);
+    int kotlin = reopened.idOf("kotlin");
+    reopened.close();
+
+    KeywordIds again = new KeywordIds(file);
+    again.open(300);
+    assertThat(again.find("rust")).isEqualTo(rust);
+    assertThat(again.find("kotlin")).isEqualTo(kotlin);
+    again.close();
+  }
+
+  @Test
+  void compactionDropsIdsNoRetainedSegmentUses() throws IOException {
+    Path file = dir.resolve("keywords");
+    KeywordIds ids = new KeywordIds(file);
+    ids.open(100);
+    int old = ids.idOf("old");
+    int kept = ids.idOf("kept");
+    int fresh = ids.idOf("fresh");
+    ids.used(old, 500);
+    ids.used(kept, 500);
+    ids.used(kept, 1500);
+    ids.used(fresh, 2000);
+
+    assertThat(ids.compact(1000)).isEqualTo(1);
+    assertThat(ids.contains(old)).isFalse();
+    assertThat(ids.find("old")).isEqualTo(-1);
+    // Ids keep growing past the dropped one
+    assertThat(ids.idOf("newer")).isNotIn(old, kept, fresh);
+    ids.close();
+
+    KeywordIds reopened = new KeywordIds(file);
+    reopened.open(3000);
+    assertThat(reopened.find("old")).isEqualTo(-1);
+    assertThat(reopened.find("kept")).isEqualTo(kept);
+    assertThat(reopened.find("fresh")).isEqualTo(fresh);
+    assertThat(reopened.find("newer")).isNotEqualTo(-1);
+    assertThat(reopened.size()).isEqualTo(3);
+    assertThat(Files.exists(dir.resolve("keywords.tmp"))).isFalse();
+    reopened.close();
+  }
+}
@@ -0,0 +1,103 @@
+package com.pulse.anomaly.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentTest {
+
+  private static final long START = 1_760_000_000L;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void scansWhatWasAppendedBeforeAndAfterSealing() throws IOException {
+    Path file = dir.resolve("segment");
+    Segment segment = Segment.create(file, START, 5, 1 << 16);
+    // Enough records that range scans start from the sparse index rather than the header
+    for (int i = 0; i < 100; i++) {
+      assertThat(segment.append(START + 5L * i, new int[] {i % 3, 10, 1000 + i}, new long[] {i, 2L * i, 300_000L}, 3)).isTrue();
+    }
+
+    assertRecords(segment);
+    segment.seal();
+    assertThat(Files.size(file)).isEqualTo(segment.bytes());
+    assertRecords(segment);
+    assertRecords(Segment.open(file));
+  }
+
+  private static void assertRecords(Segment segment) {
+    assertThat(segment.records()).isEqualTo(100);
+    assertThat(segment.lastEpoch()).isEqualTo(START + 495);
+
+    List<String> ticks = new ArrayList<>();
+    segment.scan(START + 250, START + 260, (epoch, ids, counts, n) -> {
+      StringBuilder tick = new StringBuilder().append(epoch - START).append(':');
+      for (int i = 0; i < n; i++) tick.append(' ').append(ids[i]).append('=').append(counts[i]);
+      ticks.add(tick.toString());
+    });
+    assertThat(ticks).containsExactly(
+        "250: 2=50 10=100 1050=300000",
+        "255: 0=51 10=102 1051=300000",
+        "260: 1=52 10=104 1052=300000");
+
+    List<Long> counts = new ArrayList<>();
+    segment.scan(1099, START, START + 495, (epoch, count) -> counts.add(count));
+    assertThat(counts).containsExactly(300_000L);
+
+    List<Long> tens = new ArrayList<>();
+    segment.scan(10, START + 480, START + 10_000, (epoch, count) -> tens.add(count));
+    assertThat(tens).containsExactly(192L, 194L, 196L, 198L);
+  }
+
+  @Test
+  void refusesARecordThatDoesNotFit() throws IOException {
+    Segment segment = Segment.create(dir.resolve("segment"), START, 5, Segment.HEADER_BYTES + 40);
+
+    assertThat(segment.append(START, new int[] {1, 2}, new long[] {1, 2}, 2)).isTrue();
+    assertThat(segment.append(START + 5, new int[] {1, 2}, new long[] {1, 2}, 2)).isTrue();
+    assertThat(segment.append(START + 10, new int[] {1, 2}, new long[] {1, 2}, 2)).isFalse();
+    assertThat(segment.records()).isEqualTo(2);
+  }
+
+  @Test
+  void dropsAnUncommittedTailOnOpen() throws IOException {
+    Path file = dir.resolve("segment");
+    Segment segment = Segment.create(file, START, 5, 4096);
+    for (int i = 0; i < 3; i++) segment.append(START + 5L * i, new int[] {7}, new long[] {i + 1}, 1);
+    int committed = segment.bytes();
+
+    // A crash after writing part of a fourth record but before advancing the header's end
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      ByteBuffer torn = ByteBuffer.allocate(20).putLong(START + 15).putInt(1).putInt(50);
+      ch.write(torn.flip(), committed);
+    }
+
+    Segment reopened = Segment.open(file);
+
+    assertThat(Files.size(file)).isEqualTo(committed);
+    assertThat(reopened.records()).isEqualTo(3);
+    List<Long> counts = new ArrayList<>();
+    reopened.scan(7, START, START + 100, (epoch, count) -> counts.add(count));
+    assertThat(counts).containsExactly(1L, 2L, 3L);
+  }
+
+  @Test
+  void rejectsAFileThatIsNotASegment() throws IOException {
+    Path file = dir.resolve("segment");
+    Files.write(file, new byte[Segment.HEADER_BYTES]);
+
+    assertThatThrownBy(() -> Segment.open(file)).isInstanceOf(IOException.class);
+  }
+}
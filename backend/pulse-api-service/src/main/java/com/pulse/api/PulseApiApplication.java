@@ -1,9 +1,14 @@
 package com.pulse.api;
 
+import com.pulse.shard.TrendShards;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@Import(TrendShards.class)
+@EnableScheduling
 public class PulseApiApplication {
   public static void main(String[] args) {
     SpringApplication.run(PulseApiApplication.class, args);
@@ -0,0 +1,67 @@
+package com.pulse.api.avro;
+
+import com.pulse.api.model.AnomalyEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Decodes DetectedAnomaly records (as written by KafkaAvroSerializer) straight into AnomalyEvent.
+ *
+ * The schema is parsed once from the bundled .avsc; the Confluent wire header (magic byte +
+ * 4-byte schema id) is skipped rather than resolved against the registry, so the writer schema is
+ * assumed to match the bundled copy. The binary decoder and the record are reused between calls,
+ * which makes an instance single-threaded: one per listener thread.
+ */
+public final class DetectedAnomalyDecoder {
+
+  private static final Schema SCHEMA = loadSchema("/avro/detected_anomaly.avsc");
+  private static final byte MAGIC_BYTE = 0;
+  private static final int HEADER_SIZE = 5;
+  private static final Utf8 ID_KEY = new Utf8("id");
+
+  private final GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+  private BinaryDecoder decoder;
+  private GenericRecord reuse;
+
+  public AnomalyEvent decode(byte[] payload) throws IOException {
+    int offset = payload.length > HEADER_SIZE && payload[0] == MAGIC_BYTE ? HEADER_SIZE : 0;
+    decoder = DecoderFactory.get().binaryDecoder(payload, offset, payload.length - offset, decoder);
+    reuse = reader.read(reuse, decoder);
+
+    String keyword = reuse.get("keyword").toString();
+    long ts = (Long) reuse.get("timestamp");
+    double avg = (Double) reuse.get("average_count");
+    String id = idOf(reuse.get("metadata"));
+    return new AnomalyEvent(
+        id != null ? id : keyword + "@" + ts,
+        keyword,
+        (Double) reuse.get("z_score"),
+        Math.round(avg),
+        (Integer) reuse.get("current_count"),
+        Instant.ofEpochMilli(ts));
+  }
+
+  // Older producers sent no metadata; callers fall back to a keyword@timestamp id
+  private static String idOf(Object metadata) {
+    if (!(metadata instanceof Map<?, ?> m)) return null;
+    Object id = m.get(ID_KEY);
+    return id != null ? id.toString() : null;
+  }
+
+  private static Schema loadSchema(String path) {
+    try (InputStream in = Objects.requireNonNull(DetectedAnomalyDecoder.class.getResourceAsStream(path))) {
+      return new Schema.Parser().parse(in);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to load Avro schema: " + path, e);
+    }
+  }
+}
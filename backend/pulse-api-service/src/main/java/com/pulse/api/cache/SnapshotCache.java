@@ -0,0 +1,122 @@
+package com.pulse.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Small in-process snapshot cache with stale-while-revalidate semantics.
+ *
+ * Fresh entries (younger than ttl) are served directly. Entries within the stale window are
+ * served as-is while a single background refresh runs. Missing or expired entries are loaded
+ * synchronously, and concurrent callers for the same key share one in-flight load.
+ */
+public class SnapshotCache<K, V> {
+
+  private final Function<K, V> loader;
+  private final long ttlNanos;
+  private final long staleNanos;
+  private final int maxEntries;
+  private final Executor refresher;
+  private final Map<K, Slot<V>> slots = new ConcurrentHashMap<>();
+  private final Counter hits;
+  private final Counter staleHits;
+  private final Counter misses;
+
+  public SnapshotCache(String name, Function<K, V> loader, long ttlMs, long staleMs, int maxEntries,
+                       Executor refresher, MeterRegistry metrics) {
+    this.loader = loader;
+    this.ttlNanos = Math.max(0, ttlMs) * 1_000_000L;
+    this.staleNanos = Math.max(0, staleMs) * 1_000_000L;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.refresher = refresher;
+    this.hits = metrics.counter("pulse_cache_requests_total", "cache", name, "result", "hit");
+    this.staleHits = metrics.counter("pulse_cache_requests_total", "cache", name, "result", "stale");
+    this.misses = metrics.counter("pulse_cache_requests_total", "cache", name, "result", "miss");
+    metrics.gaugeMapSize("pulse_cache_entries", Tags.of("cache", name), slots);
+  }
+
+  public V get(K key) {
+    Slot<V> slot = slots.get(key);
+    if (slot == null) {
+      evictIfFull();
+      slot = slots.computeIfAbsent(key, k -> new Slot<>());
+    }
+    Loaded<V> cur = slot.loaded;
+    if (cur != null) {
+      long age = System.nanoTime() - cur.loadedAtNanos();
+      if (age < ttlNanos) {
+        hits.increment();
+        return cur.value();
+      }
+      if (age < ttlNanos + staleNanos) {
+        staleHits.increment();
+        if (slot.inflight.get() == null) {
+          Slot<V> s = slot;
+          refresher.execute(() -> load(key, s));
+        }
+        return cur.value();
+      }
+    }
+    misses.increment();
+    try {
+      return load(key, slot).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw e;
+    }
+  }
+
+  public void invalidateAll() {
+    slots.clear();
+  }
+
+  private CompletableFuture<V> load(K key, Slot<V> slot) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> running = slot.inflight.compareAndExchange(null, mine);
+    if (running != null) return running;
+    try {
+      V value = loader.apply(key);
+      slot.loaded = new Loaded<>(value, System.nanoTime());
+      mine.complete(value);
+    } catch (RuntimeException e) {
+      // A slot that never loaded is not evictable (see evictIfFull); drop it rather than keep it
+      if (slot.loaded == null) slots.remove(key, slot);
+      mine.completeExceptionally(e);
+    } finally {
+      slot.inflight.set(null);
+    }
+    return mine;
+  }
+
+  // Keys come from request parameters, so cap the map and drop the oldest snapshot when full.
+  // Only loaded slots are candidates: removing one whose first load is still running would let
+  // the next caller for that key start a second load. Failed first loads remove their own slot.
+  private void evictIfFull() {
+    if (slots.size() < maxEntries) return;
+    K oldest = null;
+    long oldestAt = Long.MAX_VALUE;
+    for (Map.Entry<K, Slot<V>> e : slots.entrySet()) {
+      Loaded<V> l = e.getValue().loaded;
+      if (l != null && l.loadedAtNanos() < oldestAt) {
+        oldestAt = l.loadedAtNanos();
+        oldest = e.getKey();
+      }
+    }
+    if (oldest != null) slots.remove(oldest);
+  }
+
+  private static final class Slot<V> {
+    volatile Loaded<V> loaded;
+    final AtomicReference<CompletableFuture<V>> inflight = new AtomicReference<>();
+  }
+
+  private record Loaded<V>(V value, long loadedAtNanos) {}
+}
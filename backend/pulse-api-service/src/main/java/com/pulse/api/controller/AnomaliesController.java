@@ -1,11 +1,14 @@
 package com.pulse.api.controller;
 
 import com.pulse.api.model.AnomaliesResponse;
+import com.pulse.api.model.AnomalyStatsResponse;
+import com.pulse.api.repo.AnomalyRollupRepository.Resolution;
 import com.pulse.api.service.AnomalyQueryService;
-import com.pulse.api.service.AnomalyStreamService;
-import java.util.Optional;
+import com.pulse.api.service.AnomalyStatsService;
+import com.pulse.api.service.SseBroadcaster;
 import java.time.Instant;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -13,17 +16,19 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 @RestController
 public class AnomaliesController {
   private final AnomalyQueryService anomalies;
-  private final AnomalyStreamService stream;
+  private final AnomalyStatsService stats;
+  private final SseBroadcaster stream;
 
-  public AnomaliesController(AnomalyQueryService anomalies, Optional<AnomalyStreamService> stream) {
+  public AnomaliesController(AnomalyQueryService anomalies, AnomalyStatsService stats, SseBroadcaster stream) {
     this.anomalies = anomalies;
-    this.stream = stream.orElse(null);
+    this.stats = stats;
+    this.stream = stream;
   }
 
   @GetMapping("/api/anomalies")
   public AnomaliesResponse getAnomalies(
-      @RequestParam(name = "page", defaultValue = "0") int page,
       @RequestParam(name = "limit", defaultValue = "20") int limit,
+      @RequestParam(name = "cursor", required = false) String cursor,
       @RequestParam(name = "keyword", required = false) String keyword,
       @RequestParam(name = "minZ", required = false) Double minZ,
       @RequestParam(name = "since", required = false) String sinceStr
@@ -32,23 +37,34 @@ public class AnomaliesController {
     if (sinceStr != null && !sinceStr.isBlank()) {
       try { since = Instant.parse(sinceStr); } catch (Exception ignored) {}
     }
-    return anomalies.latest(page, limit, keyword, minZ, since);
+    return anomalies.latest(limit, keyword, minZ, since, cursor);
   }
 
+  // Per-keyword anomaly count, max z and mean z per hour or day, newest bucket first
+  @GetMapping("/api/anomalies/stats")
+  public AnomalyStatsResponse getAnomalyStats(
+      @RequestParam(name = "resolution", defaultValue = "hour") String resolution,
+      @RequestParam(name = "limit", defaultValue = "100") int limit,
+      @RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "keyword", required = false) String keyword,
+      @RequestParam(name = "from", required = false) String fromStr,
+      @RequestParam(name = "to", required = false) String toStr
+  ) {
+    Resolution res = "day".equalsIgnoreCase(resolution) ? Resolution.DAY : Resolution.HOUR;
+    return stats.stats(res, keyword, parseInstant(fromStr), parseInstant(toStr), limit, cursor);
+  }
+
+  private static Instant parseInstant(String s) {
+    if (s == null || s.isBlank()) return null;
+    try { return Instant.parse(s); } catch (Exception ignored) { return null; }
+  }
+
+  // Fed by Kafka (default profile) or the Redis live stream (redis-pipeline profile)
   @GetMapping(path = "/api/anomalies/stream", produces = "text/event-stream")
-  public SseEmitter streamAnomalies(@RequestParam(name = "timeoutMs", defaultValue = "300000") long timeoutMs) {
-    if (stream == null) {
-      // In redis-pipeline mode, Kafka-based SSE is disabled. Return a short-lived emitter
-      // that sends a note so clients don't error on connect.
-      SseEmitter emitter = new SseEmitter(timeoutMs);
-      try {
-        emitter.send(SseEmitter.event().name("hello").data("connected (redis mode, no SSE)"));
-        emitter.complete();
-      } catch (Exception e) {
-        try { emitter.complete(); } catch (Exception ignored) {}
-      }
-      return emitter;
-    }
-    return stream.registerClient(timeoutMs);
+  public SseEmitter streamAnomalies(
+      @RequestParam(name = "timeoutMs", defaultValue = "300000") long timeoutMs,
+      @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId
+  ) {
+    return stream.register(timeoutMs, lastEventId);
   }
 }
@@ -0,0 +1,34 @@
+package com.pulse.api.controller;
+
+import com.pulse.api.service.SummaryService;
+import com.pulse.api.service.SummarySnapshot;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class SummaryController {
+
+  private final SummaryService summary;
+
+  public SummaryController(SummaryService summary) {
+    this.summary = summary;
+  }
+
+  // Counters only move every few seconds; let browsers and proxies reuse the body briefly
+  @GetMapping("/api/summary")
+  public ResponseEntity<byte[]> getSummary(
+      @RequestParam(name = "windowMinutes", defaultValue = "60") int windowMinutes
+  ) {
+    SummarySnapshot snapshot = summary.snapshot(windowMinutes);
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .cacheControl(CacheControl.maxAge(2, TimeUnit.SECONDS).cachePublic())
+        .eTag(snapshot.etag())
+        .body(snapshot.json());
+  }
+}
@@ -2,12 +2,17 @@ package com.pulse.api.controller;
 
 import com.pulse.api.model.AnomaliesResponse;
 import com.pulse.api.model.KeywordDetailResponse;
-import com.pulse.api.model.TrendsResponse;
 import com.pulse.api.service.AnomalyQueryService;
 import com.pulse.api.service.TrendsService;
+import com.pulse.api.service.TrendsSnapshot;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,14 +27,53 @@ public class TrendsController {
     this.anomalies = anomalies;
   }
 
+  // Served from the pre-serialized snapshot; If-None-Match polls get 304 via the ETag.
+  // Accept: application/cbor selects the binary body; gzip is served precompressed when accepted
+  // (a response that already carries Content-Encoding is not compressed again by the server).
   @GetMapping("/api/trends")
-  public TrendsResponse getTrends(
+  public ResponseEntity<byte[]> getTrends(
       @RequestParam(name = "offset", defaultValue = "0") int offset,
-      @RequestParam(name = "limit", defaultValue = "20") int limit
+      @RequestParam(name = "limit", defaultValue = "20") int limit,
+      @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
   ) {
     int n = Math.max(1, Math.min(limit, 100));
     int off = Math.max(0, offset);
-    return trends.topRange(off, n);
+    TrendsSnapshot snapshot = trends.topRangeSnapshot(off, n);
+    boolean cbor = acceptsCbor(accept);
+    boolean gzip = acceptsGzip(acceptEncoding) && snapshot.body(cbor, true) != null;
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+        .cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+        .eTag(snapshot.etag(cbor, gzip));
+    if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    return response.body(snapshot.body(cbor, gzip));
+  }
+
+  private static boolean acceptsCbor(String accept) {
+    if (accept == null || accept.isBlank()) return false;
+    try {
+      for (MediaType type : MediaType.parseMediaTypes(accept)) {
+        if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR) && type.getQualityValue() > 0) return true;
+      }
+    } catch (InvalidMediaTypeException ignored) {}
+    return false;
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) return false;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].trim();
+        if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) return false;
+      }
+      return true;
+    }
+    return false;
   }
 
   @GetMapping("/api/trends/{keyword}")
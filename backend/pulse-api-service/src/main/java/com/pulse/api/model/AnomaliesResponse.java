@@ -3,5 +3,6 @@ package com.pulse.api.model;
 import java.util.List;
 
 public record AnomaliesResponse(List<AnomalyEvent> anomalies, Meta meta) {
-  public record Meta(int anomaliesToday, Integer windowMinutes) {}
+  // nextCursor is null when there are no further rows
+  public record Meta(int anomaliesToday, Integer windowMinutes, String nextCursor) {}
 }
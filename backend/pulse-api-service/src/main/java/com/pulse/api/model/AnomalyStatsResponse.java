@@ -0,0 +1,11 @@
+package com.pulse.api.model;
+
+import java.time.Instant;
+import java.util.List;
+
+public record AnomalyStatsResponse(List<Bucket> buckets, Meta meta) {
+  public record Bucket(String keyword, Instant bucketStart, long anomalies, double maxZ, double meanZ) {}
+
+  // nextCursor is null when there are no further rows
+  public record Meta(String resolution, Instant from, Instant to, String nextCursor) {}
+}
@@ -8,11 +8,15 @@ public record KeywordDetailResponse(
     String description,
     List<TrendPoint> trendSeries,
     List<RelatedPost> relatedPosts,
+    List<RelatedKeyword> relatedKeywords,
     KeywordAnalytics analytics
 ) {
   public record TrendPoint(Instant timestamp, long value) {}
 
   public record RelatedPost(String id, String text, String source, Instant timestamp, String link) {}
 
+  // Keyword that trends together with this one; score is co-occurrence cosine similarity (0..1)
+  public record RelatedKeyword(String keyword, double score) {}
+
   public record KeywordAnalytics(double currentScore, double percentile, long docFrequency, double velocity) {}
 }
@@ -0,0 +1,14 @@
+package com.pulse.api.model;
+
+import java.time.Instant;
+
+public record SummaryResponse(
+    long totalPosts,
+    long totalMentions,
+    long totalKeywords,
+    long activeKeywords,
+    Long activeKeywordsExact,   // only in validation mode
+    Integer windowMinutes,
+    long anomaliesToday,
+    Instant generatedAt
+) {}
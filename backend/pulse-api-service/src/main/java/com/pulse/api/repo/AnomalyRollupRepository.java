@@ -0,0 +1,71 @@
+package com.pulse.api.repo;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the hourly/daily anomaly rollups maintained by the anomaly service. Pages are keyset
+ * ordered by (bucket DESC, keyword DESC), which is a backward scan of the (bucket, keyword)
+ * primary key. Keyword filtering matches the lowercased prefix against the stored keyword, which
+ * is always lowercase, like /api/anomalies.
+ */
+@Repository
+public class AnomalyRollupRepository {
+
+  public enum Resolution {
+    HOUR("anomaly_rollups_hourly"),
+    DAY("anomaly_rollups_daily");
+
+    private final String table;
+
+    Resolution(String table) {
+      this.table = table;
+    }
+  }
+
+  private final JdbcTemplate jdbc;
+
+  public AnomalyRollupRepository(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  public List<RollupRow> findPage(Resolution resolution, String keywordPrefix, Instant from, Instant to,
+                                  Instant afterBucket, String afterKeyword, int limit) {
+    StringBuilder sql = new StringBuilder("SELECT bucket, keyword, anomalies, max_z, sum_z FROM ")
+        .append(resolution.table)
+        .append(" WHERE bucket >= ? AND bucket < ?");
+    List<Object> args = new ArrayList<>();
+    args.add(utc(from));
+    args.add(utc(to));
+    if (keywordPrefix != null && !keywordPrefix.isBlank()) {
+      String escaped = keywordPrefix.toLowerCase(Locale.ROOT)
+          .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+      sql.append(" AND keyword LIKE ? ESCAPE '\\'");
+      args.add(escaped + "%");
+    }
+    if (afterBucket != null && afterKeyword != null) {
+      sql.append(" AND (bucket, keyword) < (?, ?)");
+      args.add(utc(afterBucket));
+      args.add(afterKeyword);
+    }
+    sql.append(" ORDER BY bucket DESC, keyword DESC LIMIT ?");
+    args.add(limit);
+
+    return jdbc.query(sql.toString(), (rs, i) -> new RollupRow(
+        rs.getObject("bucket", OffsetDateTime.class).toInstant(),
+        rs.getString("keyword"),
+        rs.getLong("anomalies"),
+        rs.getDouble("max_z"),
+        rs.getDouble("sum_z")), args.toArray());
+  }
+
+  private static OffsetDateTime utc(Instant at) {
+    return OffsetDateTime.ofInstant(at, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,13 @@
+package com.pulse.api.repo;
+
+import java.time.Instant;
+
+// Column projection for anomaly listings; avoids loading managed entities
+public record AnomalyRow(
+    Long id,
+    String keyword,
+    double zScore,
+    double averageCount,
+    long currentCount,
+    Instant detectedAt
+) {}
@@ -0,0 +1,17 @@
+package com.pulse.api.repo;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DbAnomalyEventRepositoryCustom {
+
+  /**
+   * Keyset page ordered by (detectedAt DESC, id DESC). Rows strictly after the
+   * (afterDetectedAt, afterId) position are returned; pass nulls for the first page.
+   * Keyword filtering is a prefix match of the lowercased parameter against the stored keyword,
+   * so it can use the keyword index. Keywords are stored lowercase (the processing tokenizer
+   * lowercases them), so this matches every stored keyword regardless of the parameter's case.
+   */
+  List<AnomalyRow> findPage(String keywordPrefix, Double minZ, Instant since,
+                            Instant afterDetectedAt, Long afterId, int limit);
+}
@@ -0,0 +1,59 @@
+package com.pulse.api.repo;
+
+import com.pulse.api.entity.DbAnomalyEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class DbAnomalyEventRepositoryImpl implements DbAnomalyEventRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Override
+  public List<AnomalyRow> findPage(String keywordPrefix, Double minZ, Instant since,
+                                   Instant afterDetectedAt, Long afterId, int limit) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<AnomalyRow> q = cb.createQuery(AnomalyRow.class);
+    Root<DbAnomalyEvent> e = q.from(DbAnomalyEvent.class);
+
+    q.select(cb.construct(AnomalyRow.class,
+        e.get("id"), e.get("keyword"), e.get("zScore"),
+        e.get("averageCount"), e.get("currentCount"), e.get("detectedAt")));
+
+    // Only add predicates that are present, so the planner sees a plain indexable query
+    List<Predicate> where = new ArrayList<>();
+    if (keywordPrefix != null && !keywordPrefix.isBlank()) {
+      String escaped = keywordPrefix.toLowerCase(Locale.ROOT)
+          .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+      where.add(cb.like(e.get("keyword"), escaped + "%", '\\'));
+    }
+    if (minZ != null) {
+      where.add(cb.greaterThanOrEqualTo(e.get("zScore"), minZ));
+    }
+    if (since != null) {
+      where.add(cb.greaterThanOrEqualTo(e.<Instant>get("detectedAt"), since));
+    }
+    if (afterDetectedAt != null && afterId != null) {
+      // Redundant with the OR below, but a plain range the planner can prune newer partitions with
+      where.add(cb.lessThanOrEqualTo(e.<Instant>get("detectedAt"), afterDetectedAt));
+      where.add(cb.or(
+          cb.lessThan(e.<Instant>get("detectedAt"), afterDetectedAt),
+          cb.and(cb.equal(e.get("detectedAt"), afterDetectedAt), cb.lessThan(e.<Long>get("id"), afterId))));
+    }
+    q.where(where.toArray(new Predicate[0]));
+    q.orderBy(cb.desc(e.get("detectedAt")), cb.desc(e.get("id")));
+
+    return em.createQuery(q)
+        .setMaxResults(limit)
+        .setHint("org.hibernate.readOnly", true)
+        .getResultList();
+  }
+}
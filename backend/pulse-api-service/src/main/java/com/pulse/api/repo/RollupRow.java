@@ -0,0 +1,12 @@
+package com.pulse.api.repo;
+
+import java.time.Instant;
+
+// One (bucket, keyword) row of the anomaly rollups; mean z = sumZ / anomalies
+public record RollupRow(
+    Instant bucket,
+    String keyword,
+    long anomalies,
+    double maxZ,
+    double sumZ
+) {}
@@ -0,0 +1,104 @@
+package com.pulse.api.service;
+
+import com.pulse.api.store.EmbeddedTrends;
+import com.pulse.shard.TrendShards;
+import com.pulse.snapshot.TrendSnapshot;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Unique active keywords over a rolling window of minutes.
+ *
+ * The processing service PFADDs every counted keyword into a per-minute HyperLogLog; a window is
+ * PFCOUNT over the union of its buckets (merged server-side, ~0.81% standard error). With
+ * validation enabled the exact ZCOUNT over the lastSeen ZSET is computed alongside and the
+ * relative error is logged and recorded. Under the embedded-store profile the count is exact,
+ * taken from the lastSeen times in the processing service's snapshot.
+ */
+@Component
+public class ActiveKeywordCounter {
+
+  private static final Logger log = LoggerFactory.getLogger(ActiveKeywordCounter.class);
+
+  private final StringRedisTemplate redis;
+  private final String hllPrefix;
+  private final int maxWindowMinutes;
+  private final boolean validate;
+  private final String activityZsetKey;
+  private final TrendShards shards;
+  private final EmbeddedTrends embedded;
+  private final DistributionSummary relativeError;
+
+  public ActiveKeywordCounter(StringRedisTemplate redis,
+                              MeterRegistry metrics,
+                              TrendShards shards,
+                              ObjectProvider<EmbeddedTrends> embeddedProvider,
+                              @Value("${pulse.summary.active-hll-prefix:pulse:summary:{active}:m:}") String hllPrefix,
+                              @Value("${pulse.summary.active-retention-minutes:1440}") int maxWindowMinutes,
+                              @Value("${pulse.summary.active-validation:false}") boolean validate,
+                              @Value("${pulse.trends.activity-zset-key:}") String activityZsetKey) {
+    this.redis = redis;
+    this.hllPrefix = hllPrefix;
+    this.maxWindowMinutes = Math.max(1, maxWindowMinutes);
+    this.validate = validate;
+    this.activityZsetKey = activityZsetKey;
+    this.shards = shards;
+    this.embedded = embeddedProvider.getIfAvailable();
+    this.relativeError = DistributionSummary.builder("pulse_active_keywords_hll_relative_error")
+        .description("|HLL estimate - exact ZCOUNT| / exact, sampled in validation mode")
+        .publishPercentiles(0.5, 0.99)
+        .register(metrics);
+  }
+
+  public int clampWindow(int windowMinutes) {
+    return Math.max(1, Math.min(windowMinutes, maxWindowMinutes));
+  }
+
+  // Bucket keys covering [now - window, now], newest first
+  public String[] keys(int windowMinutes, Instant now) {
+    int window = clampWindow(windowMinutes);
+    long minute = now.getEpochSecond() / 60;
+    String[] keys = new String[window];
+    for (int i = 0; i < window; i++) keys[i] = hllPrefix + (minute - i);
+    return keys;
+  }
+
+  public long count(int windowMinutes) {
+    if (embedded != null) {
+      TrendSnapshot view = embedded.view();
+      return view == null ? 0L : view.activeSince(Instant.now().getEpochSecond() - clampWindow(windowMinutes) * 60L);
+    }
+    Long n = redis.opsForHyperLogLog().size(keys(windowMinutes, Instant.now()));
+    return n == null ? 0L : n;
+  }
+
+  public boolean validationEnabled() {
+    return validate && embedded == null && activityZsetKey != null && !activityZsetKey.isBlank();
+  }
+
+  // Exact count from the lastSeen ZSET shards; records the estimate's error. Null when validation is off.
+  public Long exact(int windowMinutes, long estimate, Instant now) {
+    if (!validationEnabled()) return null;
+    long from = now.getEpochSecond() - clampWindow(windowMinutes) * 60L;
+    long exact = 0;
+    for (String key : shards.keys(activityZsetKey)) {
+      Long n = redis.opsForZSet().count(key, (double) from, Double.POSITIVE_INFINITY);
+      if (n == null) return null;
+      exact += n;
+    }
+    if (exact > 0) {
+      double err = Math.abs(estimate - exact) / (double) exact;
+      relativeError.record(err);
+      log.info("Active keywords ({}m): hll={} exact={} error={}%",
+          windowMinutes, estimate, exact, String.format("%.2f", err * 100));
+    }
+    return exact;
+  }
+}
@@ -1,77 +1,117 @@
 package com.pulse.api.service;
 
+import com.pulse.api.cache.SnapshotCache;
 import com.pulse.api.model.AnomaliesResponse;
 import com.pulse.api.model.AnomalyEvent;
+import com.pulse.api.repo.AnomalyRow;
 import com.pulse.api.repo.DbAnomalyEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 @Service
 public class AnomalyQueryService {
 
   private final DbAnomalyEventRepository repo;
+  private final Duration retention;
   private final TrendsService trends;
+  private final SnapshotCache<LocalDate, Long> todayCount;
 
   public AnomalyQueryService(ObjectProvider<DbAnomalyEventRepository> repoProvider,
-                             TrendsService trends) {
+                             TrendsService trends,
+                             MeterRegistry metrics,
+                             @Value("${pulse.anomalies.today-count-ttl-ms:10000}") long todayCountTtlMs,
+                             @Value("${pulse.anomalies.retention-days:90}") int retentionDays) {
     this.repo = repoProvider.getIfAvailable();
+    this.retention = Duration.ofDays(Math.max(1, retentionDays));
     this.trends = trends;
+    // Shared across requests; refreshed at most once per TTL instead of a COUNT per request
+    Executor inline = Runnable::run;
+    this.todayCount = new SnapshotCache<>("anomalies_today", this::countToday,
+        todayCountTtlMs, 0, 2, inline, metrics);
   }
 
-  public AnomaliesResponse latest(int page, int limit, String keyword, Double minZ, Instant since) {
+  public AnomaliesResponse latest(int limit, String keyword, Double minZ, Instant since, String cursor) {
     if (repo == null) {
       // If DB/JPA isn't configured, return 0 for anomaliesToday and empty list (never a stub)
-      return new AnomaliesResponse(List.of(), new AnomaliesResponse.Meta(0, 60));
+      return new AnomaliesResponse(List.of(), new AnomaliesResponse.Meta(0, 60, null));
     }
 
     int size = Math.max(1, Math.min(limit, 200));
-    var pageable = PageRequest.of(Math.max(0, page), size);
-    List<com.pulse.api.entity.DbAnomalyEvent> rows;
-    if (keyword == null && minZ == null && since == null) {
-      rows = repo.findAllByOrderByDetectedAtDesc(pageable);
-    } else {
-      Specification<com.pulse.api.entity.DbAnomalyEvent> spec = buildSpec(keyword, minZ, since);
-      rows = repo.findAll(spec, pageable).getContent();
+    Cursor after = Cursor.decode(cursor);
+    // Fetch one extra row to know whether another page exists
+    if (since == null) {
+      // Single ORDER BY/LIMIT query: the planner merges the daily partitions' (detected_at, id)
+      // indexes newest first and stops once the page is full. Bounding it at the retention window
+      // prunes older partitions, so a sparse keyword or minZ filter cannot scan the whole table.
+      Instant from = after != null ? after.detectedAt() : Instant.now();
+      since = from.minus(retention);
+    }
+    List<AnomalyRow> rows = findPage(keyword, minZ, since, after, size + 1);
+
+    boolean hasMore = rows.size() > size;
+    if (hasMore) rows = rows.subList(0, size);
+    String nextCursor = null;
+    if (hasMore && !rows.isEmpty()) {
+      AnomalyRow last = rows.get(rows.size() - 1);
+      nextCursor = new Cursor(last.detectedAt(), last.id()).encode();
     }
 
     List<AnomalyEvent> events = rows.stream().map(row -> new AnomalyEvent(
-        String.valueOf(row.getId()),
-        row.getKeyword(),
-        row.getZScore(),
-        Math.round(row.getAverageCount()),
-        row.getCurrentCount(),
-        row.getDetectedAt()
+        String.valueOf(row.id()),
+        row.keyword(),
+        row.zScore(),
+        Math.round(row.averageCount()),
+        row.currentCount(),
+        row.detectedAt()
     )).toList();
 
-    // Robust UTC-based anomaliesToday count
-    Instant nowUtc = Instant.now();
-    Instant startOfDayUtc = LocalDate.now(ZoneOffset.UTC).atStartOfDay().toInstant(ZoneOffset.UTC);
-    long todayCount = repo.countByDetectedAtBetween(startOfDayUtc, nowUtc);
-    // Optionally: log.debug("Counting anomalies from {} to {}: {}", startOfDayUtc, nowUtc, todayCount);
-    return new AnomaliesResponse(events, new AnomaliesResponse.Meta((int) todayCount, 60));
+    long today = todayCount.get(LocalDate.now(ZoneOffset.UTC));
+    return new AnomaliesResponse(events, new AnomaliesResponse.Meta((int) today, 60, nextCursor));
   }
 
-  private Specification<com.pulse.api.entity.DbAnomalyEvent> buildSpec(String keyword, Double minZ, Instant since) {
-    return (root, query, cb) -> {
-      var predicates = new java.util.ArrayList<jakarta.persistence.criteria.Predicate>();
-      if (keyword != null && !keyword.isBlank()) {
-        predicates.add(cb.like(cb.lower(root.get("keyword")), "%" + keyword.toLowerCase() + "%"));
-      }
-      if (minZ != null) {
-        predicates.add(cb.greaterThanOrEqualTo(root.get("zScore"), minZ));
-      }
-      if (since != null) {
-        predicates.add(cb.greaterThanOrEqualTo(root.get("detectedAt"), since));
+  private List<AnomalyRow> findPage(String keyword, Double minZ, Instant since, Cursor after, int limit) {
+    return repo.findPage(keyword, minZ, since,
+        after != null ? after.detectedAt() : null,
+        after != null ? after.id() : null,
+        limit);
+  }
+
+  // Robust UTC-based anomaliesToday count
+  private long countToday(LocalDate dayUtc) {
+    Instant startOfDayUtc = dayUtc.atStartOfDay().toInstant(ZoneOffset.UTC);
+    return repo.countByDetectedAtBetween(startOfDayUtc, Instant.now());
+  }
+
+  // Opaque keyset position: base64url("<detectedAt ISO-8601>|<id>")
+  record Cursor(Instant detectedAt, long id) {
+    String encode() {
+      String raw = detectedAt.toString() + "|" + id;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A cursor that does not decode is a client error, not a request for the first page
+    static Cursor decode(String cursor) {
+      if (cursor == null || cursor.isBlank()) return null;
+      try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int sep = raw.lastIndexOf('|');
+        return new Cursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+      } catch (Exception e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
       }
-      query.orderBy(cb.desc(root.get("detectedAt")));
-      return cb.and(predicates.toArray(new jakarta.persistence.criteria.Predicate[0]));
-    };
+    }
   }
 }
@@ -0,0 +1,86 @@
+package com.pulse.api.service;
+
+import com.pulse.api.model.AnomalyStatsResponse;
+import com.pulse.api.repo.AnomalyRollupRepository;
+import com.pulse.api.repo.AnomalyRollupRepository.Resolution;
+import com.pulse.api.repo.RollupRow;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+// Anomaly analytics over long ranges, served from the rollups instead of the raw rows
+@Service
+public class AnomalyStatsService {
+
+  private final AnomalyRollupRepository repo;
+
+  public AnomalyStatsService(ObjectProvider<AnomalyRollupRepository> repoProvider) {
+    this.repo = repoProvider.getIfAvailable();
+  }
+
+  public AnomalyStatsResponse stats(Resolution resolution, String keyword, Instant from, Instant to,
+                                    int limit, String cursor) {
+    ChronoUnit unit = resolution == Resolution.DAY ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+    Instant end = to != null ? to : Instant.now();
+    // Default window: the last day of hours or the last 30 days
+    Instant start = (from != null ? from : end.minus(resolution == Resolution.DAY ? Duration.ofDays(30) : Duration.ofDays(1)))
+        .truncatedTo(unit);
+    String name = resolution.name().toLowerCase(Locale.ROOT);
+    if (repo == null || !start.isBefore(end)) {
+      return new AnomalyStatsResponse(List.of(), new AnomalyStatsResponse.Meta(name, start, end, null));
+    }
+
+    int size = Math.max(1, Math.min(limit, 1000));
+    Cursor after = Cursor.decode(cursor);
+    // Fetch one extra row to know whether another page exists
+    List<RollupRow> rows = repo.findPage(resolution, keyword, start, end,
+        after != null ? after.bucket() : null,
+        after != null ? after.keyword() : null,
+        size + 1);
+
+    boolean hasMore = rows.size() > size;
+    if (hasMore) rows = rows.subList(0, size);
+    String nextCursor = null;
+    if (hasMore && !rows.isEmpty()) {
+      RollupRow last = rows.get(rows.size() - 1);
+      nextCursor = new Cursor(last.bucket(), last.keyword()).encode();
+    }
+
+    List<AnomalyStatsResponse.Bucket> buckets = rows.stream().map(row -> new AnomalyStatsResponse.Bucket(
+        row.keyword(),
+        row.bucket(),
+        row.anomalies(),
+        row.maxZ(),
+        row.anomalies() > 0 ? row.sumZ() / row.anomalies() : 0.0
+    )).toList();
+    return new AnomalyStatsResponse(buckets, new AnomalyStatsResponse.Meta(name, start, end, nextCursor));
+  }
+
+  // Opaque keyset position: base64url("<bucket ISO-8601>|<keyword>")
+  record Cursor(Instant bucket, String keyword) {
+    String encode() {
+      String raw = bucket.toString() + "|" + keyword;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String cursor) {
+      if (cursor == null || cursor.isBlank()) return null;
+      try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int sep = raw.indexOf('|');
+        return new Cursor(Instant.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+      } catch (Exception e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.pulse.api.service;
+
+import com.pulse.api.cache.SnapshotCache;
+import com.pulse.api.store.EmbeddedTrends;
+import com.pulse.history.HistoryCodec;
+import com.pulse.shard.TrendShards;
+import com.pulse.snapshot.TrendSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads the per-keyword count history recorded by the anomaly service.
+ *
+ * A whole trends page is fetched in one pipelined round trip (MGET of the history blobs plus
+ * ZMSCORE of last-seen timestamps per lastSeen shard). Single-keyword lookups for the detail view go through a
+ * short-TTL cache so hot keywords don't hit Redis on every request. Under the embedded-store
+ * profile the histories come from the processing service's snapshot file instead.
+ */
+@Service
+public class KeywordHistoryService {
+
+  static final KeywordHistory EMPTY = new KeywordHistory(new long[0], new long[0], null);
+
+  private final StringRedisTemplate redis;
+  private final String historyKeyPrefix;
+  private final String activityZsetKey;
+  private final TrendShards shards;
+  private final EmbeddedTrends embedded;
+  private final Timer fetchTimer;
+  private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+  private final SnapshotCache<String, KeywordHistory> hot;
+
+  public KeywordHistoryService(StringRedisTemplate redis,
+                               MeterRegistry metrics,
+                               TrendShards shards,
+                               ObjectProvider<EmbeddedTrends> embeddedProvider,
+                               @Value("${pulse.trends.history-key-prefix:trends:hist:}") String historyKeyPrefix,
+                               @Value("${pulse.trends.activity-zset-key:}") String activityZsetKey,
+                               @Value("${pulse.trends.history-cache.ttl-ms:5000}") long cacheTtlMs,
+                               @Value("${pulse.trends.history-cache.max-entries:1024}") int cacheMaxEntries) {
+    this.redis = redis;
+    this.historyKeyPrefix = historyKeyPrefix;
+    this.activityZsetKey = activityZsetKey;
+    this.shards = shards;
+    this.embedded = embeddedProvider.getIfAvailable();
+    this.fetchTimer = metrics.timer("pulse_trends_history_fetch_seconds");
+    this.hot = new SnapshotCache<>("keyword_history", kw -> fetch(List.of(kw)).getOrDefault(kw, EMPTY),
+        cacheTtlMs, cacheTtlMs, cacheMaxEntries, refresher, metrics);
+  }
+
+  @PreDestroy
+  void shutdownRefresher() {
+    refresher.shutdown();
+  }
+
+  public KeywordHistory get(String keyword) {
+    return hot.get(keyword);
+  }
+
+  // One pipelined round trip for the whole page; missing keywords map to an empty history
+  public Map<String, KeywordHistory> fetch(List<String> keywords) {
+    Map<String, KeywordHistory> out = new HashMap<>();
+    if (keywords.isEmpty()) return out;
+    if (embedded != null) return fetchEmbedded(keywords);
+    boolean withLastSeen = activityZsetKey != null && !activityZsetKey.isBlank();
+    byte[][] keys = new byte[keywords.size()][];
+    for (int i = 0; i < keywords.size(); i++) {
+      keys[i] = (historyKeyPrefix + keywords.get(i)).getBytes(StandardCharsets.UTF_8);
+    }
+    // Page positions grouped by lastSeen shard: one ZMSCORE per shard that has members
+    List<List<Integer>> byShard = new ArrayList<>(shards.count());
+    for (int i = 0; i < shards.count(); i++) byShard.add(new ArrayList<>());
+    if (withLastSeen) {
+      for (int i = 0; i < keywords.size(); i++) byShard.get(shards.shardOf(keywords.get(i))).add(i);
+    }
+
+    List<Object> results;
+    Timer.Sample sample = Timer.start();
+    try {
+      results = redis.executePipelined((RedisCallback<Object>) connection -> {
+        connection.stringCommands().mGet(keys);
+        for (int shard = 0; shard < byShard.size(); shard++) {
+          List<Integer> positions = byShard.get(shard);
+          if (positions.isEmpty()) continue;
+          byte[][] members = new byte[positions.size()][];
+          for (int j = 0; j < members.length; j++) {
+            members[j] = keywords.get(positions.get(j)).getBytes(StandardCharsets.UTF_8);
+          }
+          connection.zSetCommands().zMScore(shards.key(activityZsetKey, shard).getBytes(StandardCharsets.UTF_8), members);
+        }
+        return null;
+      }, RedisSerializer.byteArray());
+    } catch (Exception e) {
+      return out;
+    } finally {
+      sample.stop(fetchTimer);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<byte[]> blobs = (List<byte[]>) results.get(0);
+    Double[] lastSeen = new Double[keywords.size()];
+    int next = 1;
+    for (List<Integer> positions : byShard) {
+      if (positions.isEmpty()) continue;
+      if (results.get(next++) instanceof List<?> scores) {
+        for (int j = 0; j < positions.size() && j < scores.size(); j++) {
+          if (scores.get(j) instanceof Double d) lastSeen[positions.get(j)] = d;
+        }
+      }
+    }
+    for (int i = 0; i < keywords.size(); i++) {
+      byte[] blob = blobs != null ? blobs.get(i) : null;
+      Double ts = lastSeen[i];
+      out.put(keywords.get(i), new KeywordHistory(HistoryCodec.decode(blob), HistoryCodec.decodeTimes(blob),
+          ts == null ? null : Instant.ofEpochSecond(ts.longValue())));
+    }
+    return out;
+  }
+
+  private Map<String, KeywordHistory> fetchEmbedded(List<String> keywords) {
+    Map<String, KeywordHistory> out = new HashMap<>();
+    TrendSnapshot view = embedded.view();
+    for (String kw : keywords) {
+      TrendSnapshot.Entry e = view != null ? view.get(kw) : null;
+      out.put(kw, e == null ? EMPTY : new KeywordHistory(HistoryCodec.decode(e.history()),
+          HistoryCodec.decodeTimes(e.history()), Instant.ofEpochSecond(e.lastSeen())));
+    }
+    return out;
+  }
+
+  /**
+   * Newest-first cumulative count samples, the epoch second each was taken at (0 if unknown), and
+   * the keyword's last-seen time (if known). Samples are only recorded when the count changed, so
+   * they are not evenly spaced.
+   */
+  public record KeywordHistory(long[] samples, long[] sampledAt, Instant lastSeenAt) {
+
+    /** Epoch second of sample i, or 0 if the blob predates per-sample times. */
+    public long sampledAt(int i) {
+      return i < sampledAt.length ? sampledAt[i] : 0L;
+    }
+  }
+}
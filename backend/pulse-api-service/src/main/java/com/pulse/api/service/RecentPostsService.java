@@ -0,0 +1,70 @@
+package com.pulse.api.service;
+
+import com.pulse.api.model.KeywordDetailResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Latest posts mentioning a keyword, from the processing service's recent-posts index: the
+ * keyword's list of post sequence numbers (newest first) and a fixed ring of post slots. Two round
+ * trips whatever the traffic; slots since reused by newer posts or expired are skipped.
+ */
+@Service
+public class RecentPostsService {
+
+  private final StringRedisTemplate redis;
+  private final String keyPrefix;
+  private final int capacity;
+
+  public RecentPostsService(StringRedisTemplate redis,
+                            @Value("${pulse.posts.key-prefix:posts:}") String keyPrefix,
+                            @Value("${pulse.posts.capacity:100000}") int capacity) {
+    this.redis = redis;
+    this.keyPrefix = keyPrefix;
+    this.capacity = Math.max(1, capacity);
+  }
+
+  public List<KeywordDetailResponse.RelatedPost> latest(String keyword, int limit) {
+    if (limit <= 0) return List.of();
+    try {
+      List<String> seqs = redis.opsForList().range(keyPrefix + "kw:" + keyword, 0, limit - 1);
+      if (seqs == null || seqs.isEmpty()) return List.of();
+      List<Object> slots = redis.executePipelined((RedisCallback<Object>) connection -> {
+        StringRedisConnection conn = (StringRedisConnection) connection;
+        for (String seq : seqs) conn.get(keyPrefix + "slot:" + (Long.parseLong(seq) % capacity));
+        return null;
+      });
+      List<KeywordDetailResponse.RelatedPost> out = new ArrayList<>(seqs.size());
+      for (int i = 0; i < seqs.size(); i++) {
+        if (slots.get(i) instanceof String raw) {
+          KeywordDetailResponse.RelatedPost post = decode(seqs.get(i), raw);
+          if (post != null) out.add(post);
+        }
+      }
+      return out;
+    } catch (Exception e) {
+      // Redis unavailable or index disabled: the detail view just has no posts
+      return List.of();
+    }
+  }
+
+  // "seq \t timestampMs \t source \t id \t text"; null when the slot now holds a different post
+  private static KeywordDetailResponse.RelatedPost decode(String seq, String raw) {
+    String[] f = raw.split("\t", 5);
+    if (f.length < 5 || !f[0].equals(seq)) return null;
+    String source = f[2].isEmpty() ? null : f[2];
+    String id = f[3].isEmpty() ? seq : f[3];
+    return new KeywordDetailResponse.RelatedPost(id, f[4], source,
+        Instant.ofEpochMilli(Long.parseLong(f[1])), linkOf(source, f[3]));
+  }
+
+  private static String linkOf(String source, String id) {
+    return "reddit".equals(source) && !id.isEmpty() ? "https://redd.it/" + id : null;
+  }
+}
@@ -0,0 +1,122 @@
+package com.pulse.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pulse.api.model.AnomalyEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+/**
+ * Live anomalies for the redis-pipeline profile.
+ *
+ * Tails the capped stream written by the anomaly service (XREAD, no consumer group, so every
+ * API instance sees every event) and hands each entry to the SSE broadcaster. The Redis entry id
+ * is used as the SSE event id so clients can resume with Last-Event-ID.
+ */
+@Service
+@Profile("redis-pipeline")
+public class RedisAnomalyStreamService {
+
+  private static final Logger log = LoggerFactory.getLogger(RedisAnomalyStreamService.class);
+
+  private final RedisConnectionFactory connectionFactory;
+  private final StringRedisTemplate redis;
+  private final SseBroadcaster broadcaster;
+  private final ObjectMapper mapper;
+  private final String streamKey;
+  private final int replaySize;
+  private StreamMessageListenerContainer<String, MapRecord<String, String, String>> container;
+
+  public RedisAnomalyStreamService(RedisConnectionFactory connectionFactory,
+                                   StringRedisTemplate redis,
+                                   SseBroadcaster broadcaster,
+                                   ObjectMapper mapper,
+                                   @Value("${pulse.anomalies.live-stream-key:anomalies:live}") String streamKey,
+                                   @Value("${pulse.sse.replay-size:500}") int replaySize) {
+    this.connectionFactory = connectionFactory;
+    this.redis = redis;
+    this.broadcaster = broadcaster;
+    this.mapper = mapper;
+    this.streamKey = streamKey;
+    this.replaySize = replaySize;
+  }
+
+  @PostConstruct
+  public void start() {
+    ReadOffset offset = ReadOffset.latest();
+    try {
+      // Seed the replay buffer with the newest entries, then continue right after them
+      List<MapRecord<String, Object, Object>> recent = redis.opsForStream()
+          .reverseRange(streamKey, Range.unbounded(), Limit.limit().count(Math.max(1, replaySize)));
+      if (recent != null && !recent.isEmpty()) {
+        List<MapRecord<String, Object, Object>> oldestFirst = new ArrayList<>(recent);
+        Collections.reverse(oldestFirst);
+        for (MapRecord<String, Object, Object> r : oldestFirst) {
+          String json = toJson(r.getValue());
+          if (json != null) broadcaster.preload("anomaly", r.getId().getValue(), json);
+        }
+        offset = ReadOffset.from(recent.get(0).getId());
+      }
+    } catch (Exception e) {
+      log.warn("Could not preload live anomalies from '{}': {}", streamKey, e.getMessage());
+    }
+
+    try {
+      var options = StreamMessageListenerContainer.StreamMessageListenerContainerOptions
+          .builder()
+          .pollTimeout(Duration.ofSeconds(1))
+          .build();
+      container = StreamMessageListenerContainer.create(connectionFactory, options);
+      container.receive(StreamOffset.create(streamKey, offset), message -> {
+        String json = toJson(message.getValue());
+        if (json != null) broadcaster.broadcast("anomaly", message.getId().getValue(), json);
+      });
+      container.start();
+      log.info("Live anomaly stream tail started: stream='{}'", streamKey);
+    } catch (Exception e) {
+      log.error("Failed to start live anomaly stream tail: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (container != null) container.stop();
+  }
+
+  private String toJson(Map<?, ?> fields) {
+    try {
+      AnomalyEvent event = new AnomalyEvent(
+          str(fields.get("id")),
+          str(fields.get("keyword")),
+          Double.parseDouble(str(fields.get("zScore"))),
+          Long.parseLong(str(fields.get("baselineVolume"))),
+          Long.parseLong(str(fields.get("currentVolume"))),
+          Instant.parse(str(fields.get("createdAt"))));
+      return mapper.writeValueAsString(event);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static String str(Object o) {
+    return o == null ? "" : o.toString();
+  }
+}
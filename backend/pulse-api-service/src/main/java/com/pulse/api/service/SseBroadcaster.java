@@ -0,0 +1,209 @@
+package com.pulse.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fan-out of server-sent events to many dashboard clients.
+ *
+ * Each event is serialized once into an immutable frame that all clients share. Every client has
+ * a bounded queue drained by its own virtual thread, so a slow browser only backs up its own
+ * queue. When a queue is full the slow-consumer policy either drops the oldest frame or
+ * disconnects the client.
+ *
+ * The most recent events are kept in a bounded replay buffer so reconnecting clients can resume
+ * from their Last-Event-ID. If that id is no longer in the buffer the client gets a {@code reset}
+ * event instead of a partial replay, and should reload the list over REST.
+ */
+@Component
+public class SseBroadcaster {
+
+  private static final Logger log = LoggerFactory.getLogger(SseBroadcaster.class);
+
+  public enum SlowConsumerPolicy { DROP_OLDEST, DISCONNECT }
+
+  private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+  private final Deque<Replayable> replay = new ArrayDeque<>();
+  private final int replaySize;
+  private final int queueCapacity;
+  private final SlowConsumerPolicy policy;
+  private final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat =
+      SseEmitter.event().comment("heartbeat").build();
+  private final Set<ResponseBodyEmitter.DataWithMediaType> reset =
+      SseEmitter.event().name("reset").data("last-event-id-unknown").build();
+  private final Counter published;
+  private final Counter delivered;
+  private final Counter dropped;
+  private final Counter disconnected;
+  private final Counter resets;
+
+  public SseBroadcaster(MeterRegistry metrics,
+                        @Value("${pulse.sse.queue-capacity:256}") int queueCapacity,
+                        @Value("${pulse.sse.slow-consumer-policy:DROP_OLDEST}") SlowConsumerPolicy policy,
+                        @Value("${pulse.sse.replay-size:500}") int replaySize) {
+    this.queueCapacity = Math.max(1, queueCapacity);
+    this.replaySize = Math.max(0, replaySize);
+    this.policy = policy;
+    this.published = metrics.counter("pulse_sse_events_published_total");
+    this.delivered = metrics.counter("pulse_sse_events_delivered_total");
+    this.dropped = metrics.counter("pulse_sse_events_dropped_total");
+    this.disconnected = metrics.counter("pulse_sse_clients_disconnected_total", "reason", "slow");
+    this.resets = metrics.counter("pulse_sse_replay_resets_total");
+    metrics.gaugeCollectionSize("pulse_sse_clients_connected", Tags.empty(), clients);
+    metrics.gauge("pulse_sse_queue_depth", clients, cs -> cs.stream().mapToInt(c -> c.queue.size()).sum());
+  }
+
+  public SseEmitter register(long timeoutMs, String lastEventId) {
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    // Replay capacity on top of the live queue so a full resume isn't dropped by the policy
+    Client client = new Client(emitter, new ArrayBlockingQueue<>(queueCapacity + replaySize));
+    emitter.onCompletion(client::close);
+    emitter.onTimeout(client::close);
+    emitter.onError(e -> client.close());
+    client.offer(SseEmitter.event().name("hello").data("connected").build());
+    // Replay and subscribe atomically w.r.t. broadcast so no event is missed or duplicated
+    synchronized (replay) {
+      if (lastEventId != null && !lastEventId.isBlank()) {
+        List<Replayable> missed = replayAfter(lastEventId);
+        if (missed == null) {
+          resets.increment();
+          client.offer(reset);
+        } else {
+          for (Replayable r : missed) client.offer(r.frame());
+        }
+      }
+      clients.add(client);
+    }
+    client.worker = Thread.ofVirtual().name("sse-client").start(client::drain);
+    return emitter;
+  }
+
+  // Serialize once, enqueue the shared frame for every client
+  public void broadcast(String eventName, String id, String json) {
+    SseEmitter.SseEventBuilder builder = SseEmitter.event().name(eventName).data(json);
+    if (id != null && !id.isEmpty()) builder.id(id);
+    Set<ResponseBodyEmitter.DataWithMediaType> frame = builder.build();
+    published.increment();
+    synchronized (replay) {
+      remember(id, frame);
+      for (Client c : clients) c.offer(frame);
+    }
+  }
+
+  // Seeds the replay buffer (e.g. from a durable stream on startup) without delivering to clients
+  public void preload(String eventName, String id, String json) {
+    SseEmitter.SseEventBuilder builder = SseEmitter.event().name(eventName).data(json);
+    if (id != null && !id.isEmpty()) builder.id(id);
+    synchronized (replay) {
+      remember(id, builder.build());
+    }
+  }
+
+  private void remember(String id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    if (replaySize == 0 || id == null || id.isEmpty()) return;
+    replay.addLast(new Replayable(id, frame));
+    while (replay.size() > replaySize) replay.removeFirst();
+  }
+
+  // Frames after lastEventId, or null if the id has aged out of (or never was in) the buffer
+  private List<Replayable> replayAfter(String lastEventId) {
+    List<Replayable> out = new ArrayList<>();
+    boolean found = false;
+    for (Replayable r : replay) {
+      if (found) out.add(r);
+      else if (r.id().equals(lastEventId)) found = true;
+    }
+    return found ? out : null;
+  }
+
+  public int connectedClients() {
+    return clients.size();
+  }
+
+  @Scheduled(fixedDelayString = "${pulse.sse.heartbeat-ms:15000}")
+  void sendHeartbeats() {
+    for (Client c : clients) c.offer(heartbeat);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    for (Client c : clients) {
+      c.close();
+      try { c.emitter.complete(); } catch (Exception ignored) {}
+    }
+  }
+
+  private record Replayable(String id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {}
+
+  private final class Client {
+    final SseEmitter emitter;
+    final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    volatile Thread worker;
+
+    Client(SseEmitter emitter, BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue) {
+      this.emitter = emitter;
+      this.queue = queue;
+    }
+
+    void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+      if (closed.get()) return;
+      if (queue.offer(frame)) return;
+      if (policy == SlowConsumerPolicy.DISCONNECT) {
+        disconnected.increment();
+        log.debug("Disconnecting slow SSE client (queue full at {})", queueCapacity);
+        close();
+        try { emitter.complete(); } catch (Exception ignored) {}
+        return;
+      }
+      // DROP_OLDEST: make room for the newest frame
+      if (queue.poll() != null) dropped.increment();
+      if (!queue.offer(frame)) dropped.increment();
+    }
+
+    void drain() {
+      try {
+        while (!closed.get()) {
+          Set<ResponseBodyEmitter.DataWithMediaType> frame = queue.poll(1, TimeUnit.SECONDS);
+          if (frame == null) continue;
+          emitter.send(frame);
+          if (frame != heartbeat) delivered.increment();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException | IllegalStateException e) {
+        // Client went away; the emitter callbacks may not fire for broken pipes
+      } finally {
+        close();
+      }
+    }
+
+    void close() {
+      if (!closed.compareAndSet(false, true)) return;
+      clients.remove(this);
+      queue.clear();
+      Thread w = worker;
+      if (w != null && w != Thread.currentThread()) w.interrupt();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.pulse.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pulse.api.cache.SnapshotCache;
+import com.pulse.api.model.SummaryResponse;
+import com.pulse.api.store.EmbeddedTrends;
+import com.pulse.snapshot.TrendSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dashboard KPIs from counters the processing and anomaly services maintain incrementally:
+ * one pipelined HGETALL + GET + PFCOUNT over the window's minute buckets, no ZSET or table scans.
+ * Under the embedded-store profile the processing counters come from its snapshot file and only
+ * the anomaly day counter is read from Redis.
+ */
+@Service
+public class SummaryService {
+
+  private final StringRedisTemplate redis;
+  private final ObjectMapper mapper;
+  private final String summaryKey;
+  private final ActiveKeywordCounter active;
+  private final EmbeddedTrends embedded;
+  private final String anomaliesDayPrefix;
+  private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+  private final SnapshotCache<Integer, SummarySnapshot> cache;
+
+  public SummaryService(StringRedisTemplate redis,
+                        ObjectMapper mapper,
+                        MeterRegistry metrics,
+                        ActiveKeywordCounter active,
+                        ObjectProvider<EmbeddedTrends> embeddedProvider,
+                        @Value("${pulse.summary.key:pulse:summary}") String summaryKey,
+                        @Value("${pulse.summary.anomalies-day-prefix:pulse:summary:anomalies:}") String anomaliesDayPrefix,
+                        @Value("${pulse.summary.cache.ttl-ms:1000}") long cacheTtlMs,
+                        @Value("${pulse.summary.cache.stale-ms:10000}") long cacheStaleMs) {
+    this.redis = redis;
+    this.mapper = mapper;
+    this.summaryKey = summaryKey;
+    this.active = active;
+    this.embedded = embeddedProvider.getIfAvailable();
+    this.anomaliesDayPrefix = anomaliesDayPrefix;
+    this.cache = new SnapshotCache<>("summary", this::load, cacheTtlMs, cacheStaleMs, 32, refresher, metrics);
+  }
+
+  @PreDestroy
+  void shutdownRefresher() {
+    refresher.shutdown();
+  }
+
+  public SummarySnapshot snapshot(int windowMinutes) {
+    return cache.get(active.clampWindow(windowMinutes));
+  }
+
+  private SummarySnapshot load(int windowMinutes) {
+    if (embedded != null) return loadEmbedded(windowMinutes);
+    Instant now = Instant.now();
+    String[] buckets = active.keys(windowMinutes, now);
+    String dayKey = anomaliesDayPrefix + LocalDate.ofInstant(now, ZoneOffset.UTC);
+
+    Map<?, ?> counters = Map.of();
+    long anomaliesToday = 0;
+    long activeKeywords = 0;
+    try {
+      List<Object> results = redis.executePipelined((RedisCallback<Object>) connection -> {
+        StringRedisConnection conn = (StringRedisConnection) connection;
+        conn.hGetAll(summaryKey);
+        conn.get(dayKey);
+        conn.pfCount(buckets);
+        return null;
+      });
+      if (results.get(0) instanceof Map<?, ?> m) counters = m;
+      anomaliesToday = parseLong(results.get(1));
+      activeKeywords = parseLong(results.get(2));
+    } catch (Exception e) {
+      // Redis not available; report zeros rather than failing the dashboard
+    }
+
+    long totalKeywords = parseLong(counters.get("keywords_total"));
+    Long exact = null;
+    try {
+      exact = active.exact(windowMinutes, activeKeywords, now);
+    } catch (Exception ignored) {}
+    return snapshotOf(new SummaryResponse(
+        parseLong(counters.get("posts_total")),
+        parseLong(counters.get("mentions_total")),
+        totalKeywords,
+        // HLL error can nudge the estimate past the exact tracked total
+        totalKeywords > 0 ? Math.min(activeKeywords, totalKeywords) : activeKeywords,
+        exact,
+        windowMinutes,
+        anomaliesToday,
+        now));
+  }
+
+  private SummarySnapshot loadEmbedded(int windowMinutes) {
+    Instant now = Instant.now();
+    TrendSnapshot snap = embedded.view();
+    long anomaliesToday = 0;
+    try {
+      anomaliesToday = parseLong(redis.opsForValue().get(anomaliesDayPrefix + LocalDate.ofInstant(now, ZoneOffset.UTC)));
+    } catch (Exception e) {
+      // Redis not available; the trend counters are still served from the snapshot
+    }
+    long activeKeywords = active.count(windowMinutes);
+    return snapshotOf(new SummaryResponse(
+        snap != null ? snap.postsTotal() : 0L,
+        snap != null ? snap.mentionsTotal() : 0L,
+        snap != null ? snap.size() : 0L,
+        activeKeywords,
+        null,
+        windowMinutes,
+        anomaliesToday,
+        now));
+  }
+
+  private SummarySnapshot snapshotOf(SummaryResponse response) {
+    try {
+      return new SummarySnapshot(response, mapper.writeValueAsBytes(response), etagOf(response));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize summary", e);
+    }
+  }
+
+  // Weak ETag over the counters only, so an idle pipeline revalidates with 304
+  private static String etagOf(SummaryResponse r) {
+    long h = 17;
+    h = 31 * h + r.totalPosts();
+    h = 31 * h + r.totalMentions();
+    h = 31 * h + r.totalKeywords();
+    h = 31 * h + r.activeKeywords();
+    h = 31 * h + r.anomaliesToday();
+    return "W/\"" + Long.toHexString(h) + "\"";
+  }
+
+  private static long parseLong(Object o) {
+    if (o == null) return 0L;
+    if (o instanceof Number n) return n.longValue();
+    try { return Long.parseLong(o.toString()); } catch (NumberFormatException e) { return 0L; }
+  }
+}
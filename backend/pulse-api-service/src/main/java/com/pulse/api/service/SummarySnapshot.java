@@ -0,0 +1,6 @@
+package com.pulse.api.service;
+
+import com.pulse.api.model.SummaryResponse;
+
+/** A cached /api/summary body with its pre-serialized JSON and a weak ETag over the counters. */
+public record SummarySnapshot(SummaryResponse response, byte[] json, String etag) {}
@@ -1,78 +1,198 @@
 package com.pulse.api.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pulse.api.cache.SnapshotCache;
 import com.pulse.api.model.AnomaliesResponse;
 import com.pulse.api.model.AnomalyEvent;
 import com.pulse.api.model.KeywordDetailResponse;
 import com.pulse.api.model.TrendMetric;
 import com.pulse.api.model.TrendsResponse;
+import com.pulse.api.store.EmbeddedTrends;
+import com.pulse.shard.TrendShards;
+import com.pulse.snapshot.TrendSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.Instant;
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class TrendsService {
 
+  private static final int SPARKLINE_POINTS = 5;
+
+  private static final int GZIP_MIN_BYTES = 1024;
+
   private final StringRedisTemplate redis;
   private final String zsetKey;
-  private final String activityZsetKey;
+  private final TrendShards shards;
+  private final EmbeddedTrends embedded;
+  private final ObjectMapper mapper;
+  private final ObjectMapper cborMapper;
+  private final KeywordHistoryService history;
+  private final ActiveKeywordCounter activeCounter;
+  private final RecentPostsService recentPosts;
+  private final int relatedPostsLimit;
+  private final String relatedKeywordsPrefix;
+  private final int relatedKeywordsLimit;
+  private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+  // Independent Redis reads of one request are issued from their own virtual threads
+  private final ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+  private final SnapshotCache<PageKey, TrendsSnapshot> pages;
 
   public TrendsService(StringRedisTemplate redis,
+                       ObjectMapper mapper,
+                       MappingJackson2CborHttpMessageConverter cborConverter,
+                       KeywordHistoryService history,
+                       ActiveKeywordCounter activeCounter,
+                       RecentPostsService recentPosts,
+                       TrendShards shards,
+                       ObjectProvider<EmbeddedTrends> embeddedProvider,
+                       MeterRegistry metrics,
                        @Value("${pulse.trends.zset-key}") String zsetKey,
-                       @Value("${pulse.trends.activity-zset-key:}") String activityZsetKey) {
+                       @Value("${pulse.trends.cache.ttl-ms:2000}") long cacheTtlMs,
+                       @Value("${pulse.trends.cache.stale-ms:30000}") long cacheStaleMs,
+                       @Value("${pulse.trends.cache.max-entries:256}") int cacheMaxEntries,
+                       @Value("${pulse.posts.related-limit:10}") int relatedPostsLimit,
+                       @Value("${pulse.trends.related-key-prefix:trends:related:}") String relatedKeywordsPrefix,
+                       @Value("${pulse.trends.related-limit:10}") int relatedKeywordsLimit) {
     this.redis = redis;
+    this.mapper = mapper;
+    this.cborMapper = cborConverter.getObjectMapper();
+    this.history = history;
+    this.activeCounter = activeCounter;
+    this.recentPosts = recentPosts;
+    this.relatedPostsLimit = relatedPostsLimit;
+    this.relatedKeywordsPrefix = relatedKeywordsPrefix;
+    this.relatedKeywordsLimit = relatedKeywordsLimit;
     this.zsetKey = zsetKey;
-    this.activityZsetKey = activityZsetKey;
+    this.shards = shards;
+    this.embedded = embeddedProvider.getIfAvailable();
+    this.pages = new SnapshotCache<>("trends", this::loadSnapshot,
+        cacheTtlMs, cacheStaleMs, cacheMaxEntries, refresher, metrics);
+  }
+
+  @PreDestroy
+  void shutdownRefresher() {
+    refresher.shutdown();
+    io.shutdown();
   }
 
   public TrendsResponse topRange(int offset, int limit) {
-    Set<ZSetOperations.TypedTuple<String>> tuples = null;
+    return topRangeSnapshot(offset, limit).response();
+  }
+
+  // Cached page with pre-serialized body; identical concurrent requests share one Redis refresh
+  public TrendsSnapshot topRangeSnapshot(int offset, int limit) {
+    return pages.get(new PageKey(60, offset, limit));
+  }
+
+  private TrendsSnapshot loadSnapshot(PageKey key) {
+    TrendsResponse response = loadTopRange(key.offset(), key.limit());
+    try {
+      byte[] json = mapper.writeValueAsBytes(response);
+      byte[] cbor = cborMapper.writeValueAsBytes(response);
+      return new TrendsSnapshot(response, json, gzip(json), cbor, gzip(cbor), etagOf(response));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize trends page", e);
+    }
+  }
+
+  // Compressed once per refresh, so the slower best-compression level costs nothing per request
+  private static byte[] gzip(byte[] body) {
+    if (body.length < GZIP_MIN_BYTES) return null;
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+    try (GZIPOutputStream gz = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+      gz.write(body);
+    } catch (IOException e) {
+      return null;
+    }
+    return out.toByteArray();
+  }
+
+  // Weak ETag over the data-bearing fields; generatedAt/lastSeenAt change on every load
+  private static String etagOf(TrendsResponse response) {
+    long h = 1125899906842597L;
+    for (TrendMetric m : response.trends()) {
+      h = 31 * h + m.keyword().hashCode();
+      h = 31 * h + m.volume();
+      h = 31 * h + Double.hashCode(m.delta());
+      for (Long v : m.sparkline()) h = 31 * h + (v == null ? 0 : v);
+    }
+    TrendsResponse.Meta meta = response.meta();
+    h = 31 * h + meta.totalPosts();
+    h = 31 * h + Objects.hashCode(meta.activeKeywords());
+    h = 31 * h + Objects.hashCode(meta.totalKeywords());
+    h = 31 * h + Objects.hashCode(meta.nextOffset());
+    return "W/\"" + Long.toHexString(h) + "\"";
+  }
+
+  // Package-private for TrendsPageBenchmark (uncached page cost)
+  TrendsResponse loadTopRange(int offset, int limit) {
+    // Keywords active in the last 60m (PFCOUNT over the per-minute HLL buckets) does not depend on
+    // the page, so it runs alongside the ZREVRANGE/ZCARD round trip and the history fetch
+    Future<Long> active = io.submit(() -> activeCounter.count(60));
+    List<ZSetOperations.TypedTuple<String>> tuples = null;
     Long zcard = null;
     try {
-      tuples = redis.opsForZSet().reverseRangeWithScores(zsetKey, offset, Math.max(offset, offset + limit - 1));
-      zcard = redis.opsForZSet().zCard(zsetKey);
+      TopPage page = fetchTop(offset, limit);
+      tuples = page.tuples();
+      zcard = page.zcard();
     } catch (Exception e) {
       // Redis not available; fall back to empty list
     }
 
-    List<TrendMetric> metrics = new ArrayList<>();
-    long totalPosts = 0;
+    List<String> keywords = new ArrayList<>();
+    List<Long> volumes = new ArrayList<>();
     if (tuples != null) {
       for (ZSetOperations.TypedTuple<String> tuple : tuples) {
         if (tuple == null || tuple.getValue() == null) {
           continue;
         }
-        long volume = Math.round(tuple.getScore() == null ? 0.0 : tuple.getScore());
-        totalPosts += volume;
-        metrics.add(buildTrendMetric(tuple.getValue(), volume));
+        keywords.add(tuple.getValue());
+        volumes.add(Math.round(tuple.getScore() == null ? 0.0 : tuple.getScore()));
       }
     }
 
-    Long activeKeywords = null;
-    try {
-      // Target semantics: keywords active in the last windowMinutes (default 60m)
-      long windowMinutes = 60;
-      
-      // FIX: Use getEpochSecond() instead of toEpochMilli() to match StreamProcessor storage format
-      long windowStartSeconds = Instant.now().minus(Duration.ofMinutes(windowMinutes)).getEpochSecond();
-
-      if (activityZsetKey != null && !activityZsetKey.isBlank()) {
-        // activityZsetKey stores lastSeenAt (epoch seconds) as the score
-        // Use ZCOUNT [windowStart, +inf]. Keep zero if there are none.
-        Long count = redis.opsForZSet().count(activityZsetKey, (double) windowStartSeconds, Double.POSITIVE_INFINITY);
-        if (count != null) activeKeywords = count; // accept 0 as a valid value
-      }
+    // Real sparklines: one pipelined history fetch for the whole page
+    Map<String, KeywordHistoryService.KeywordHistory> histories = history.fetch(keywords);
+    List<TrendMetric> metrics = new ArrayList<>(keywords.size());
+    long totalPosts = 0;
+    for (int i = 0; i < keywords.size(); i++) {
+      long volume = volumes.get(i);
+      totalPosts += volume;
+      metrics.add(buildTrendMetric(keywords.get(i), volume, histories.get(keywords.get(i))));
+    }
 
-      // Fallbacks only if Redis not available or activity key missing
-      if (activeKeywords == null) activeKeywords = (long) metrics.size();
-      if (activeKeywords == null) activeKeywords = zcard;
-    } catch (Exception ignored) {}
+    Long activeKeywords = await(active);
+    if (activeKeywords == null) {
+      // Fallback only if Redis is not available
+      activeKeywords = (long) metrics.size();
+    }
 
     int nextOffset = offset + metrics.size();
     boolean hasMore = zcard != null && nextOffset < zcard;
@@ -97,46 +217,163 @@ public class TrendsService {
     );
   }
 
-  // ... (rest of the file remains identical: keywordDetail, stubAnomalies, private helpers) ...
+  // One pipelined round trip: each shard's top (offset + limit) and its ZCARD, k-way merged.
+  // Unsharded, the requested range is read directly.
+  private TopPage fetchTop(int offset, int limit) {
+    if (embedded != null) return fetchTopEmbedded(offset, limit);
+    String[] keys = shards.keys(zsetKey);
+    long start = keys.length == 1 ? offset : 0;
+    long end = Math.max(offset, offset + limit - 1);
+    List<Object> r = redis.executePipelined((RedisCallback<Object>) connection -> {
+      StringRedisConnection conn = (StringRedisConnection) connection;
+      for (String key : keys) {
+        conn.zRevRangeWithScores(key, start, end);
+        conn.zCard(key);
+      }
+      return null;
+    });
+    List<List<ZSetOperations.TypedTuple<String>>> perShard = new ArrayList<>(keys.length);
+    long zcard = 0;
+    for (int i = 0; i < keys.length; i++) {
+      perShard.add(tuplesOf(r.get(2 * i)));
+      if (r.get(2 * i + 1) instanceof Long n) zcard += n;
+    }
+    List<ZSetOperations.TypedTuple<String>> page = keys.length == 1 ? perShard.get(0) : merge(perShard, offset, limit);
+    return new TopPage(page, zcard);
+  }
+
+  // Snapshot entries are already in ZREVRANGE order
+  private TopPage fetchTopEmbedded(int offset, int limit) {
+    TrendSnapshot view = embedded.view();
+    if (view == null) return new TopPage(List.of(), 0);
+    List<ZSetOperations.TypedTuple<String>> page = new ArrayList<>(limit);
+    for (TrendSnapshot.Entry e : view.range(offset, limit)) {
+      page.add(new DefaultTypedTuple<>(e.keyword(), (double) e.count()));
+    }
+    return new TopPage(page, view.size());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<ZSetOperations.TypedTuple<String>> tuplesOf(Object result) {
+    List<ZSetOperations.TypedTuple<String>> out = new ArrayList<>();
+    if (result instanceof Collection<?> c) {
+      for (Object o : c) {
+        if (o instanceof ZSetOperations.TypedTuple<?> t) out.add((ZSetOperations.TypedTuple<String>) t);
+      }
+    }
+    return out;
+  }
+
+  // Merge of per-shard descending lists; ties break like ZREVRANGE (member descending)
+  static List<ZSetOperations.TypedTuple<String>> merge(List<List<ZSetOperations.TypedTuple<String>>> lists,
+                                                               int offset, int limit) {
+    Comparator<int[]> order = (a, b) -> {
+      ZSetOperations.TypedTuple<String> x = lists.get(a[0]).get(a[1]);
+      ZSetOperations.TypedTuple<String> y = lists.get(b[0]).get(b[1]);
+      int c = Double.compare(scoreOf(y), scoreOf(x));
+      return c != 0 ? c : Objects.compare(y.getValue(), x.getValue(), Comparator.nullsFirst(Comparator.naturalOrder()));
+    };
+    PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, lists.size()), order);
+    for (int i = 0; i < lists.size(); i++) {
+      if (!lists.get(i).isEmpty()) heap.add(new int[] {i, 0});
+    }
+    List<ZSetOperations.TypedTuple<String>> out = new ArrayList<>(limit);
+    int skipped = 0;
+    while (!heap.isEmpty() && out.size() < limit) {
+      int[] cursor = heap.poll();
+      List<ZSetOperations.TypedTuple<String>> list = lists.get(cursor[0]);
+      if (skipped < offset) skipped++;
+      else out.add(list.get(cursor[1]));
+      if (++cursor[1] < list.size()) heap.add(cursor);
+    }
+    return out;
+  }
+
+  private static double scoreOf(ZSetOperations.TypedTuple<String> t) {
+    return t.getScore() == null ? 0.0 : t.getScore();
+  }
+
   public KeywordDetailResponse keywordDetail(String keyword) {
+    // The history blob, recent posts and related keywords are read while the score/rank/DF round
+    // trip(s) are in flight
+    Future<KeywordHistoryService.KeywordHistory> pending = io.submit(() -> history.get(keyword));
+    Future<List<KeywordDetailResponse.RelatedPost>> related = io.submit(() -> recentPosts.latest(keyword, relatedPostsLimit));
+    Future<List<KeywordDetailResponse.RelatedKeyword>> neighbours = io.submit(() -> relatedKeywords(keyword));
     long volume = 0;
-    try {
-      Double score = redis.opsForZSet().score(zsetKey, keyword);
-      volume = score == null ? 0 : Math.round(score);
-    } catch (Exception e) {
+    long docFrequency = 0;
+    double percentile = 0.0;
+    if (embedded != null) {
+      TrendSnapshot view = embedded.view();
+      TrendSnapshot.Entry e = view != null ? view.get(keyword) : null;
+      if (e != null) {
+        volume = e.count();
+        docFrequency = e.df();
+        percentile = 100.0 * (view.size() - view.rank(keyword)) / view.size();
+      }
+    } else {
+      try {
+        String key = shards.key(zsetKey, shards.shardOf(keyword));
+        String[] allKeys = shards.keys(zsetKey);
+        List<Object> r = redis.executePipelined((RedisCallback<Object>) connection -> {
+          StringRedisConnection conn = (StringRedisConnection) connection;
+          conn.zScore(key, keyword);
+          conn.get("trends:df:" + keyword);
+          if (!shards.sharded()) conn.zRevRank(key, keyword);
+          for (String k : allKeys) conn.zCard(k);
+          return null;
+        });
+        Double score = (Double) r.get(0);
+        long card = 0;
+        for (int i = 0; i < allKeys.length; i++) {
+          if (r.get(r.size() - 1 - i) instanceof Long n) card += n;
+        }
+        Long rank = shards.sharded() ? globalRank(allKeys, score) : (Long) r.get(2);
+        volume = score == null ? 0 : Math.round(score);
+        if (rank != null && card > 0) {
+          percentile = 100.0 * (card - rank) / card;
+        }
+        if (r.get(1) instanceof String df) {
+          try { docFrequency = Long.parseLong(df); } catch (NumberFormatException ignored) {}
+        }
+      } catch (Exception e) {
+      }
     }
 
-    List<KeywordDetailResponse.TrendPoint> series = buildTrendSeries(volume);
+    // Degrades like the other sub-lookups: a failed history read yields an empty series
+    KeywordHistoryService.KeywordHistory h = await(pending);
+    if (h == null) h = KeywordHistoryService.EMPTY;
+    List<KeywordDetailResponse.TrendPoint> series = buildTrendSeries(h, volume);
+    double velocity = velocity(h);
+    List<KeywordDetailResponse.RelatedPost> posts = await(related);
+    List<KeywordDetailResponse.RelatedKeyword> relatedKeywords = await(neighbours);
 
     return new KeywordDetailResponse(
         keyword,
         "No description available",
         series,
-        List.of(
-            new KeywordDetailResponse.RelatedPost(
-                keyword + "-sample-1",
-                "Sample post for keyword '" + keyword + "'",
-                "twitter",
-                Instant.now().minusSeconds(1_800),
-                null
-            ),
-            new KeywordDetailResponse.RelatedPost(
-                keyword + "-sample-2",
-                "Another mention for '" + keyword + "'",
-                "reddit",
-                Instant.now().minusSeconds(3_600),
-                null
-            )
-        ),
+        posts != null ? posts : List.of(),
+        relatedKeywords != null ? relatedKeywords : List.of(),
         new KeywordDetailResponse.KeywordAnalytics(
             volume,
-            series.isEmpty() ? 0.0 : Math.min(99.0, volume / 10.0),
-            volume,
-            series.isEmpty() ? 0.0 : Math.max(0, series.get(series.size() - 1).value() - series.get(0).value())
+            percentile,
+            docFrequency,
+            velocity
         )
     );
   }
 
+  // Top neighbours published by the processing service's co-occurrence tracker, best first
+  private List<KeywordDetailResponse.RelatedKeyword> relatedKeywords(String keyword) {
+    if (embedded != null) return List.of();
+    var tuples = redis.opsForZSet().reverseRangeWithScores(relatedKeywordsPrefix + keyword, 0, relatedKeywordsLimit - 1);
+    if (tuples == null) return List.of();
+    List<KeywordDetailResponse.RelatedKeyword> out = new ArrayList<>(tuples.size());
+    for (ZSetOperations.TypedTuple<String> t : tuples) {
+      if (t.getValue() != null) out.add(new KeywordDetailResponse.RelatedKeyword(t.getValue(), scoreOf(t)));
+    }
+    return out;
+  }
+
   public AnomaliesResponse stubAnomalies(int limit) {
     List<AnomalyEvent> events = new ArrayList<>();
     Instant now = Instant.now();
@@ -151,47 +388,105 @@ public class TrendsService {
       ));
     }
 
-    return new AnomaliesResponse(events, new AnomaliesResponse.Meta(events.size(), 60));
+    return new AnomaliesResponse(events, new AnomaliesResponse.Meta(events.size(), 60, null));
   }
 
-  private TrendMetric buildTrendMetric(String keyword, long volume) {
-    List<Long> sparkline = buildSparkline(volume);
+  private TrendMetric buildTrendMetric(String keyword, long volume, KeywordHistoryService.KeywordHistory h) {
+    List<Long> sparkline = buildSparkline(h, volume);
     return new TrendMetric(
         keyword,
         volume,
-        sparkline.isEmpty() ? 0 : Math.max(0, sparkline.get(sparkline.size() - 1) - sparkline.get(0)),
+        Math.max(0, sparkline.get(sparkline.size() - 1) - sparkline.get(0)),
         volume,
         sparkline,
         60,
-        Instant.now(),
+        h != null && h.lastSeenAt() != null ? h.lastSeenAt() : Instant.now(),
         null
     );
   }
 
-  private List<Long> buildSparkline(long volume) {
-    if (volume <= 0) {
-      return List.of(0L, 0L, 0L, 0L, 0L);
+  // Count in effect at evenly spaced instants from the oldest timed sample to now, oldest first,
+  // ending at the current volume. Samples are only stored when the count moved, so each instant
+  // takes the newest sample at or before it rather than a sample index.
+  private List<Long> buildSparkline(KeywordHistoryService.KeywordHistory h, long volume) {
+    int oldest = h == null ? -1 : oldestTimed(h);
+    if (oldest < 0) {
+      return List.of(volume);
     }
-    long base = Math.max(1, volume / 5);
-    return List.of(
-        base,
-        Math.max(base, base + (long) (base * 0.2)),
-        Math.max(base, base + (long) (base * 0.35)),
-        Math.max(base, base + (long) (base * 0.5)),
-        volume
-    );
+    long[] samples = h.samples();
+    long from = h.sampledAt(oldest);
+    long span = Math.max(0, Instant.now().getEpochSecond() - from);
+    List<Long> out = new ArrayList<>(SPARKLINE_POINTS);
+    int idx = oldest;
+    for (int j = 0; j < SPARKLINE_POINTS - 1; j++) {
+      long at = from + span * j / (SPARKLINE_POINTS - 1);
+      while (idx > 0 && h.sampledAt(idx - 1) <= at) idx--;
+      out.add(samples[idx]);
+    }
+    out.add(volume);
+    return out;
   }
 
-  private List<KeywordDetailResponse.TrendPoint> buildTrendSeries(long volume) {
-    List<Long> sparkline = buildSparkline(volume);
-    List<KeywordDetailResponse.TrendPoint> series = new ArrayList<>();
-    Instant now = Instant.now();
-    for (int i = 0; i < sparkline.size(); i++) {
-      series.add(new KeywordDetailResponse.TrendPoint(
-          now.minusSeconds((long) (sparkline.size() - 1 - i) * 900L),
-          sparkline.get(i)
-      ));
+  // Index of the oldest sample with a known time (all newer ones have one too), or -1
+  private static int oldestTimed(KeywordHistoryService.KeywordHistory h) {
+    int i = h.samples().length - 1;
+    while (i >= 0 && h.sampledAt(i) <= 0) i--;
+    return i;
+  }
+
+  // Mentions per second between the two newest samples, over the time that actually separates them
+  private static double velocity(KeywordHistoryService.KeywordHistory h) {
+    long[] samples = h.samples();
+    if (samples.length < 2) return 0.0;
+    long elapsed = h.sampledAt(0) - h.sampledAt(1);
+    if (h.sampledAt(1) <= 0 || elapsed <= 0) return 0.0;
+    return (double) (samples[0] - samples[1]) / elapsed;
+  }
+
+  // Result of a concurrent read, or null if it failed
+  private static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      return null;
+    }
+  }
+
+  // Members scoring strictly higher than score across all shards (scores are whole counts)
+  private Long globalRank(String[] keys, Double score) {
+    if (score == null) return null;
+    double above = Math.nextUp(score);
+    List<Object> r = redis.executePipelined((RedisCallback<Object>) connection -> {
+      StringRedisConnection conn = (StringRedisConnection) connection;
+      for (String k : keys) conn.zCount(k, above, Double.POSITIVE_INFINITY);
+      return null;
+    });
+    long rank = 0;
+    for (Object o : r) {
+      if (o instanceof Long n) rank += n;
+    }
+    return rank;
+  }
+
+  private record PageKey(int windowMinutes, int offset, int limit) {}
+
+  private record TopPage(List<ZSetOperations.TypedTuple<String>> tuples, long zcard) {}
+
+  // Full stored history, oldest first, each point at the time its sample was recorded. Samples
+  // written before per-sample times were stored have no time and are left out.
+  private List<KeywordDetailResponse.TrendPoint> buildTrendSeries(KeywordHistoryService.KeywordHistory h, long volume) {
+    long[] samples = h.samples();
+    int oldest = oldestTimed(h);
+    List<KeywordDetailResponse.TrendPoint> series = new ArrayList<>(oldest + 2);
+    for (int i = oldest; i >= 0; i--) {
+      series.add(new KeywordDetailResponse.TrendPoint(Instant.ofEpochSecond(h.sampledAt(i)), samples[i]));
+    }
+    if (series.isEmpty()) {
+      series.add(new KeywordDetailResponse.TrendPoint(h.lastSeenAt() != null ? h.lastSeenAt() : Instant.now(), volume));
     }
     return series;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.pulse.api.service;
+
+import com.pulse.api.model.TrendsResponse;
+
+/**
+ * A cached /api/trends page: the response, its pre-serialized JSON and CBOR bodies, gzip copies of
+ * both (null when the body is too small to be worth it) and a weak ETag derived from the
+ * data-bearing fields (timestamps excluded), so unchanged pages revalidate with 304.
+ * Encoding and compression happen once per refresh instead of once per request.
+ */
+public record TrendsSnapshot(TrendsResponse response, byte[] json, byte[] jsonGzip,
+                             byte[] cbor, byte[] cborGzip, String etag) {
+
+  public byte[] body(boolean cbor, boolean gzip) {
+    if (gzip) return cbor ? cborGzip : jsonGzip;
+    return cbor ? this.cbor : json;
+  }
+
+  // Each representation gets its own validator, as content codings must not share a strong one
+  public String etag(boolean cbor, boolean gzip) {
+    if (!cbor && !gzip) return etag;
+    String base = etag.substring(0, etag.length() - 1);
+    return base + (cbor ? "-cbor" : "") + (gzip ? "-gz" : "") + "\"";
+  }
+}
@@ -0,0 +1,56 @@
+package com.pulse.api.store;
+
+import com.pulse.snapshot.TrendSnapshot;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trend state read from the processing service's embedded-store snapshot instead of Redis.
+ *
+ * The file is re-mapped only when its modification time changes, checked at most once per
+ * {@code check-interval-ms}; requests read the mapped file in place (see TrendSnapshot).
+ */
+@Component
+@Profile("embedded-store")
+public class EmbeddedTrends {
+
+  private static final Logger log = LoggerFactory.getLogger(EmbeddedTrends.class);
+
+  private final Path snapshotPath;
+  private final long checkIntervalMs;
+  private volatile TrendSnapshot view;
+  private volatile long checkedAtMs;
+  private volatile long modifiedMs = -1;
+
+  public EmbeddedTrends(@Value("${pulse.embedded.snapshot-path:data/trend-snapshot.bin}") String snapshotPath,
+                        @Value("${pulse.embedded.check-interval-ms:500}") long checkIntervalMs) {
+    this.snapshotPath = Path.of(snapshotPath);
+    this.checkIntervalMs = checkIntervalMs;
+  }
+
+  /** Latest snapshot, or null before the processing service has written one. */
+  public TrendSnapshot view() {
+    long now = System.currentTimeMillis();
+    if (now - checkedAtMs >= checkIntervalMs) refresh(now);
+    return view;
+  }
+
+  private synchronized void refresh(long now) {
+    if (now - checkedAtMs < checkIntervalMs) return;
+    checkedAtMs = now;
+    try {
+      if (!Files.exists(snapshotPath)) return;
+      long modified = Files.getLastModifiedTime(snapshotPath).toMillis();
+      if (modified == modifiedMs && view != null) return;
+      view = TrendSnapshot.open(snapshotPath);
+      modifiedMs = modified;
+    } catch (Exception e) {
+      log.warn("Trend snapshot read failed ({}): {}", snapshotPath, e.getMessage());
+    }
+  }
+}
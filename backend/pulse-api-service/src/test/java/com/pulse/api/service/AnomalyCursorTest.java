@@ -0,0 +1,73 @@
+package com.pulse.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class AnomalyCursorTest {
+
+  private static final Instant T = Instant.parse("2026-10-19T05:00:00.123456789Z");
+
+  private record Row(Instant detectedAt, long id) {}
+
+  @Test
+  void anomalyCursorRoundTripsThroughUrlSafeText() {
+    AnomalyQueryService.Cursor cursor = new AnomalyQueryService.Cursor(T, 9_007_199_254_740_993L);
+
+    String encoded = cursor.encode();
+
+    assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    assertThat(AnomalyQueryService.Cursor.decode(encoded)).isEqualTo(cursor);
+    assertThat(AnomalyQueryService.Cursor.decode(null)).isNull();
+    assertThat(AnomalyQueryService.Cursor.decode(" ")).isNull();
+  }
+
+  @Test
+  void keysetPagesVisitEveryRowOnceInOrder() {
+    // Rows sharing a detectedAt are told apart by id, as in the (detected_at, id) index
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 40; i++) rows.add(new Row(T.minusMillis(i / 3), 1000 + (i * 7) % 40));
+    rows.sort(Comparator.comparing(Row::detectedAt).thenComparingLong(Row::id).reversed());
+
+    List<Row> visited = new ArrayList<>();
+    String cursor = null;
+    do {
+      AnomalyQueryService.Cursor after = AnomalyQueryService.Cursor.decode(cursor);
+      // The repository's keyset predicate: strictly after (detectedAt, id) in descending order
+      List<Row> page = rows.stream()
+          .filter(r -> after == null
+              || r.detectedAt().isBefore(after.detectedAt())
+              || (r.detectedAt().equals(after.detectedAt()) && r.id() < after.id()))
+          .limit(7)
+          .toList();
+      visited.addAll(page);
+      Row last = page.isEmpty() ? null : page.get(page.size() - 1);
+      cursor = page.size() < 7 ? null : new AnomalyQueryService.Cursor(last.detectedAt(), last.id()).encode();
+    } while (cursor != null);
+
+    assertThat(visited).containsExactlyElementsOf(rows);
+  }
+
+  @Test
+  void statsCursorKeepsKeywordsContainingTheSeparator() {
+    AnomalyStatsService.Cursor cursor = new AnomalyStatsService.Cursor(T, "a|b|c");
+
+    assertThat(AnomalyStatsService.Cursor.decode(cursor.encode())).isEqualTo(cursor);
+  }
+
+  @Test
+  void rejectsACursorThatDoesNotDecode() {
+    assertThatThrownBy(() -> AnomalyQueryService.Cursor.decode("not a cursor!"))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    assertThatThrownBy(() -> AnomalyStatsService.Cursor.decode("bm8tc2VwYXJhdG9y"))
+        .isInstanceOf(ResponseStatusException.class);
+  }
+}
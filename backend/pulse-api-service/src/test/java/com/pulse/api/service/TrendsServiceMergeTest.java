@@ -0,0 +1,64 @@
+package com.pulse.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+class TrendsServiceMergeTest {
+
+  // ZREVRANGE order over the union: score descending, then member descending
+  private static final Comparator<TypedTuple<String>> ZREVRANGE =
+      Comparator.comparing((TypedTuple<String> t) -> t.getScore()).reversed()
+          .thenComparing(TypedTuple::getValue, Comparator.reverseOrder());
+
+  @Test
+  void mergesShardsInZrevrangeOrderIncludingTies() {
+    List<List<TypedTuple<String>>> shards = List.of(
+        List.of(tuple("rust", 9), tuple("go", 5), tuple("c", 1)),
+        List.of(tuple("zig", 9), tuple("java", 5)),
+        List.of(),
+        List.of(tuple("kotlin", 7), tuple("ada", 5)));
+
+    assertThat(members(TrendsService.merge(shards, 0, 10)))
+        .containsExactly("zig", "rust", "kotlin", "java", "go", "ada", "c");
+    assertThat(members(TrendsService.merge(shards, 2, 3))).containsExactly("kotlin", "java", "go");
+    assertThat(members(TrendsService.merge(shards, 6, 5))).containsExactly("c");
+    assertThat(TrendsService.merge(shards, 7, 5)).isEmpty();
+  }
+
+  @Test
+  void everyPageMatchesTheSameSliceOfTheSortedUnion() {
+    Random random = new Random(7);
+    List<List<TypedTuple<String>>> shards = new ArrayList<>();
+    List<TypedTuple<String>> union = new ArrayList<>();
+    for (int s = 0; s < 4; s++) {
+      List<TypedTuple<String>> shard = new ArrayList<>();
+      for (int i = 0; i < 50; i++) shard.add(tuple("kw" + s + "-" + i, random.nextInt(20)));
+      shard.sort(ZREVRANGE);
+      shards.add(shard);
+      union.addAll(shard);
+    }
+    union.sort(ZREVRANGE);
+
+    List<String> paged = new ArrayList<>();
+    for (int offset = 0; offset < union.size(); offset += 15) {
+      paged.addAll(members(TrendsService.merge(shards, offset, 15)));
+    }
+
+    assertThat(paged).containsExactlyElementsOf(members(union));
+  }
+
+  private static TypedTuple<String> tuple(String member, double score) {
+    return new DefaultTypedTuple<>(member, score);
+  }
+
+  private static List<String> members(List<TypedTuple<String>> tuples) {
+    return tuples.stream().map(TypedTuple::getValue).toList();
+  }
+}
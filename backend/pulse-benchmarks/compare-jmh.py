@@ -0,0 +1,54 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files (baseline vs candidate).
+
+Usage: compare-jmh.py baseline.json candidate.json [--threshold 5]
+
+Prints one row per benchmark/params with the relative change and flags regressions beyond the
+threshold (percent). Exits 1 when any benchmark regressed, so CI can gate on it.
+"""
+import argparse
+import json
+import sys
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        rows = json.load(f)
+    out = {}
+    for r in rows:
+        params = ",".join(f"{k}={v}" for k, v in sorted((r.get("params") or {}).items()))
+        key = r["benchmark"].rsplit(".", 2)[-2:]
+        key = ".".join(key) + (f"[{params}]" if params else "")
+        m = r["primaryMetric"]
+        out[key] = (r["mode"], m["score"], m.get("scoreError") or 0.0, m["scoreUnit"])
+    return out
+
+
+def main():
+    ap = argparse.ArgumentParser()
+    ap.add_argument("baseline")
+    ap.add_argument("candidate")
+    ap.add_argument("--threshold", type=float, default=5.0)
+    args = ap.parse_args()
+
+    base, cand = load(args.baseline), load(args.candidate)
+    regressed = False
+    print(f"{'benchmark':60} {'baseline':>14} {'candidate':>14} {'change':>9}")
+    for key in sorted(set(base) | set(cand)):
+        if key not in base or key not in cand:
+            print(f"{key:60} {'-' if key not in base else f'{base[key][1]:.3f}':>14} "
+                  f"{'-' if key not in cand else f'{cand[key][1]:.3f}':>14}")
+            continue
+        mode, b, _, unit = base[key]
+        _, c, _, _ = cand[key]
+        change = (c - b) / b * 100 if b else 0.0
+        # Throughput: higher is better; avgt/sample/ss: lower is better
+        worse = -change if mode == "thrpt" else change
+        flag = "  REGRESSED" if worse > args.threshold else ""
+        regressed |= bool(flag)
+        print(f"{key:60} {b:14.3f} {c:14.3f} {change:+8.1f}% {unit}{flag}")
+    sys.exit(1 if regressed else 0)
+
+
+if __name__ == "__main__":
+    main()
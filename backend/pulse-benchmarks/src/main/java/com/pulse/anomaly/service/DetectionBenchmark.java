@@ -0,0 +1,90 @@
+package com.pulse.anomaly.service;
+
+import com.pulse.history.HistoryCodec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One detection chunk over a synthetic keyword set, without Redis: per keyword, push the new
+ * count into its history blob (record path) and decode + stats + z-score (detect path), as
+ * RedisTrendSource.load and AnomalyDetectionService.checkSingleKeyword do.
+ *
+ * Lives in the service's package to reach the package-private computeStats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectionBenchmark {
+
+  @Param({"2000"})          // default pulse.scheduler.chunk-size
+  public int keywords;
+
+  @Param({"360"})           // default pulse.anomalies.history-window
+  public int window;
+
+  private byte[][] blobs;
+  private long[] counts;
+  private long nowSec;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(3);
+    blobs = new byte[keywords][];
+    counts = new long[keywords];
+    nowSec = 1_700_000_000L;
+    for (int k = 0; k < keywords; k++) {
+      // Cumulative counters with a per-keyword rate; ~1% of keywords spike on the current tick
+      long rate = 1 + random.nextInt(40);
+      long[] h = new long[window];
+      long[] at = new long[window];
+      long v = 10_000L + random.nextInt(10_000);
+      for (int i = window - 1; i >= 0; i--) {
+        v += Math.max(0, rate + (long) (random.nextGaussian() * Math.sqrt(rate)));
+        h[i] = v;
+        at[i] = nowSec - 5L * (i + 1);
+      }
+      blobs[k] = HistoryCodec.encode(h, at);
+      counts[k] = h[0] + (random.nextDouble() < 0.01 ? rate * 20 : rate);
+    }
+  }
+
+  @Benchmark
+  public int recordChunk() {
+    int changed = 0;
+    for (int k = 0; k < keywords; k++) {
+      Long newest = HistoryCodec.newest(blobs[k]);
+      if (newest == null || newest != counts[k]) {
+        changed += HistoryCodec.push(blobs[k], counts[k], nowSec, window).length > 0 ? 1 : 0;
+      }
+    }
+    return changed;
+  }
+
+  @Benchmark
+  public int detectChunk() {
+    int candidates = 0;
+    for (int k = 0; k < keywords; k++) {
+      long[] history = HistoryCodec.decode(blobs[k]);
+      if (history.length < 3) continue;
+      AnomalyDetectionService.Stats stats = AnomalyDetectionService.computeStats(history, 1);
+      if (stats.stddev() <= 0.0) continue;
+      double z = (history[0] - stats.mean()) / stats.stddev();
+      if (z >= 3.0) candidates++;
+    }
+    return candidates;
+  }
+}
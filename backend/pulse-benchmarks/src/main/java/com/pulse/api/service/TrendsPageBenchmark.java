@@ -0,0 +1,124 @@
+package com.pulse.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pulse.api.store.EmbeddedTrends;
+import com.pulse.bench.support.InMemoryRedis;
+import com.pulse.history.HistoryCodec;
+import com.pulse.shard.TrendShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+/**
+ * Per-page cost of real sparklines on /api/trends, against the in-memory Redis stand-in: the
+ * uncached page load (top-N round trip, PFCOUNT, one pipelined MGET + ZMSCORE for the page's
+ * histories, decode and time-based sparklines) and the history fetch on its own.
+ *
+ * Lives in the service's package to reach the package-private loadTopRange.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrendsPageBenchmark {
+
+  // Small ranking: the stand-in sorts the whole ZSET per ZREVRANGE, which real Redis does not
+  private static final int KEYWORDS = 1_000;
+
+  @Param({"20", "100"})
+  public int pageSize;
+
+  @Param({"360"})           // default pulse.anomalies.history-window
+  public int window;
+
+  private TrendsService trends;
+  private KeywordHistoryService history;
+  private List<String> page;
+
+  @Setup
+  public void setup() {
+    InMemoryRedis store = new InMemoryRedis();
+    StringRedisTemplate redis = store.template();
+    Random random = new Random(11);
+    long nowSec = System.currentTimeMillis() / 1000;
+    for (int k = 0; k < KEYWORDS; k++) {
+      String kw = "kw" + k;
+      // Zipf-ish volumes so the top of trends:global is stable
+      long count = 1_000_000L / (k + 1) + random.nextInt(50);
+      redis.opsForZSet().add("trends:global", kw, count);
+      redis.opsForZSet().add("trends:lastSeen", kw, nowSec - random.nextInt(600));
+    }
+    for (int m = 0; m < 60; m++) {
+      redis.opsForHyperLogLog().add("pulse:summary:{active}:m:" + (nowSec / 60 - m), "kw" + random.nextInt(KEYWORDS));
+    }
+
+    // Histories for the top of the ranking only; samples irregularly spaced like change-only ticks
+    page = new ArrayList<>(pageSize);
+    for (int k = 0; k < Math.max(pageSize, 100); k++) {
+      String kw = "kw" + k;
+      if (k < pageSize) page.add(kw);
+      long[] counts = new long[window];
+      long[] at = new long[window];
+      long v = 1_000_000L / (k + 1);
+      long t = nowSec;
+      for (int i = 0; i < window; i++) {
+        counts[i] = v;
+        at[i] = t;
+        v -= 1 + random.nextInt(40);
+        t -= 5L * (1 + random.nextInt(3));
+      }
+      byte[] key = ("trends:hist:" + kw).getBytes(StandardCharsets.UTF_8);
+      byte[] blob = HistoryCodec.encode(counts, at);
+      redis.execute((RedisCallback<Object>) connection -> connection.stringCommands().set(key, blob));
+    }
+
+    SimpleMeterRegistry metrics = new SimpleMeterRegistry();
+    TrendShards shards = new TrendShards(1);
+    StaticListableBeanFactory beans = new StaticListableBeanFactory();
+    history = new KeywordHistoryService(redis, metrics, shards, beans.getBeanProvider(EmbeddedTrends.class),
+        "trends:hist:", "trends:lastSeen", 5000, 1024);
+    ActiveKeywordCounter active = new ActiveKeywordCounter(redis, metrics, shards,
+        beans.getBeanProvider(EmbeddedTrends.class), "pulse:summary:{active}:m:", 1440, false, "trends:lastSeen");
+    trends = new TrendsService(redis, new ObjectMapper(), new MappingJackson2CborHttpMessageConverter(), history,
+        active, new RecentPostsService(redis, "posts:", 100000), shards, beans.getBeanProvider(EmbeddedTrends.class),
+        metrics, "trends:global", 2000, 30000, 256, 10, "trends:related:", 10);
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdown() {
+    trends.shutdownRefresher();
+    history.shutdownRefresher();
+  }
+
+  @Benchmark
+  public Object page() {
+    return trends.loadTopRange(0, pageSize);
+  }
+
+  @Benchmark
+  public Object historyFetch() {
+    return history.fetch(page);
+  }
+}
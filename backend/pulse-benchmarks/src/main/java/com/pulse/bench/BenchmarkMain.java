@@ -0,0 +1,27 @@
+package com.pulse.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the shaded jar: the regular JMH command line, defaulting to a JSON result file
+ * (target/jmh-result.json) so runs from different builds can be diffed with compare-jmh.py.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    List<String> argv = new ArrayList<>(Arrays.asList(args));
+    if (!argv.contains("-rf")) {
+      argv.add("-rf");
+      argv.add("json");
+    }
+    if (!argv.contains("-rff")) {
+      argv.add("-rff");
+      argv.add("target/jmh-result.json");
+    }
+    org.openjdk.jmh.Main.main(argv.toArray(new String[0]));
+  }
+}
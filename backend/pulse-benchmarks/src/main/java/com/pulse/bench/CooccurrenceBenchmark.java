@@ -0,0 +1,93 @@
+package com.pulse.bench;
+
+import com.pulse.bench.support.Fields;
+import com.pulse.bench.support.InMemoryRedis;
+import com.pulse.bench.support.PostCorpus;
+import com.pulse.processing.service.CooccurrenceTracker;
+import com.pulse.processing.service.ProcessingMetrics;
+import com.pulse.processing.text.Stopwords;
+import com.pulse.processing.text.Tokenizer;
+import com.pulse.shard.TrendShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CooccurrenceTracker.record per post: hot-set lookup of the post's distinct tokens and the
+ * k(k+1)/2 striped pair-count updates. The hot set is the corpus' most frequent tokens; between
+ * iterations the tables are decayed and re-indexed as the publish job would (not measured).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CooccurrenceBenchmark {
+
+  private static final int CORPUS_SIZE = 4096;
+
+  @Param({"500", "2000"})
+  public int hotTokens;
+
+  @Param({"8", "16"})
+  public int maxHotPerPost;
+
+  private CooccurrenceTracker tracker;
+  private List<Set<String>> posts;
+  private List<String> hot;
+  private int next;
+
+  @Setup
+  public void setup() {
+    Tokenizer tokenizer = new Tokenizer(Stopwords.load(Optional.of("/stopwords-iso-en.txt"), Set.of()), 3, 24);
+    posts = new ArrayList<>(CORPUS_SIZE);
+    Map<String, Integer> frequency = new HashMap<>();
+    for (String post : PostCorpus.standard(7).posts(CORPUS_SIZE)) {
+      Set<String> distinct = new HashSet<>(tokenizer.tokens(post));
+      posts.add(distinct);
+      for (String token : distinct) frequency.merge(token, 1, Integer::sum);
+    }
+    hot = frequency.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+        .limit(hotTokens)
+        .map(Map.Entry::getKey)
+        .toList();
+
+    tracker = new CooccurrenceTracker(new InMemoryRedis().template(),
+        new ProcessingMetrics(new SimpleMeterRegistry()), new TrendShards(1));
+    Fields.set(tracker, "hotTokens", hotTokens);
+    Fields.set(tracker, "maxHotPerPost", maxHotPerPost);
+    Fields.invoke(tracker, "init");
+    tracker.updateHotTokens(hot);
+  }
+
+  @TearDown(Level.Iteration)
+  public void decay() {
+    tracker.updateHotTokens(hot);
+  }
+
+  @Benchmark
+  public void record() {
+    tracker.record(posts.get(next++ & (CORPUS_SIZE - 1)));
+  }
+}
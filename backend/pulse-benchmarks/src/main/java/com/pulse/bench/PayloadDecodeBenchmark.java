@@ -0,0 +1,136 @@
+package com.pulse.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pulse.api.avro.DetectedAnomalyDecoder;
+import com.pulse.api.model.AnomalyEvent;
+import com.pulse.bench.support.PostCorpus;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Payload decoding in both consumers:
+ * - processing, redis-pipeline profile: JSON "payload" field -> text (as RedisStreamConsumer does);
+ * - processing, kafka-avro profile: Confluent-framed RawSocialPost Avro -> text;
+ * - API: Confluent-framed DetectedAnomaly Avro -> AnomalyEvent (DetectedAnomalyDecoder).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadDecodeBenchmark {
+
+  private static final int SAMPLES = 1024;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private String[] jsonPayloads;
+  private byte[][] rawPostAvro;
+  private byte[][] anomalyAvro;
+  private GenericDatumReader<GenericRecord> rawPostReader;
+  private BinaryDecoder rawPostDecoder;
+  private DetectedAnomalyDecoder anomalyDecoder;
+  private int next;
+
+  @Setup
+  public void setup() throws IOException {
+    PostCorpus corpus = PostCorpus.standard(11);
+    Schema rawPost = schema("/avro/raw_social_post.avsc");
+    Schema anomaly = schema("/avro/detected_anomaly.avsc");
+    rawPostReader = new GenericDatumReader<>(rawPost);
+    anomalyDecoder = new DetectedAnomalyDecoder();
+
+    jsonPayloads = new String[SAMPLES];
+    rawPostAvro = new byte[SAMPLES][];
+    anomalyAvro = new byte[SAMPLES][];
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < SAMPLES; i++) {
+      String text = corpus.post();
+      jsonPayloads[i] = mapper.writeValueAsString(Map.of(
+          "id", "t3_" + Long.toString(i, 36), "text", text, "timestamp", now - i,
+          "source", "reddit", "lang", "en"));
+
+      GenericData.Record post = new GenericData.Record(rawPost);
+      post.put("id", "t3_" + Long.toString(i, 36));
+      post.put("text", text);
+      post.put("timestamp", now - i);
+      post.put("source", "reddit");
+      post.put("lang", "en");
+      rawPostAvro[i] = confluentFramed(rawPost, post);
+
+      GenericData.Record a = new GenericData.Record(anomaly);
+      a.put("keyword", corpus.term());
+      a.put("current_count", 40 + i % 100);
+      a.put("average_count", 12.5);
+      a.put("stddev", 3.1);
+      a.put("z_score", 4.0 + (i % 10) / 10.0);
+      a.put("timestamp", now - i);
+      a.put("window_start", now - 3_600_000L);
+      a.put("window_end", now);
+      a.put("metadata", Map.of("id", Integer.toString(i)));
+      anomalyAvro[i] = confluentFramed(anomaly, a);
+    }
+  }
+
+  @Benchmark
+  public String processingJson() throws IOException {
+    JsonNode node = mapper.readTree(jsonPayloads[next++ & (SAMPLES - 1)]);
+    JsonNode textNode = node.get("text");
+    return textNode == null || textNode.isNull() ? "" : textNode.asText("");
+  }
+
+  @Benchmark
+  public String processingAvro() throws IOException {
+    byte[] payload = rawPostAvro[next++ & (SAMPLES - 1)];
+    rawPostDecoder = DecoderFactory.get().binaryDecoder(payload, 5, payload.length - 5, rawPostDecoder);
+    GenericRecord record = rawPostReader.read(null, rawPostDecoder);
+    Object text = record.get("text");
+    return text == null ? "" : text.toString();
+  }
+
+  @Benchmark
+  public AnomalyEvent apiDetectedAnomaly() throws IOException {
+    return anomalyDecoder.decode(anomalyAvro[next++ & (SAMPLES - 1)]);
+  }
+
+  // Magic byte + 4-byte schema id, as KafkaAvroSerializer writes
+  private static byte[] confluentFramed(Schema schema, GenericRecord record) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(new byte[] {0, 0, 0, 0, 1});
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static Schema schema(String path) throws IOException {
+    try (InputStream in = Objects.requireNonNull(PayloadDecodeBenchmark.class.getResourceAsStream(path), path)) {
+      return new Schema.Parser().parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.pulse.bench;
+
+import com.pulse.bench.support.Fields;
+import com.pulse.bench.support.InMemoryRedis;
+import com.pulse.bench.support.PostCorpus;
+import com.pulse.processing.service.ActivityBuffer;
+import com.pulse.processing.service.CooccurrenceTracker;
+import com.pulse.processing.service.ProcessingMetrics;
+import com.pulse.processing.service.RecentPostIndex;
+import com.pulse.processing.service.StreamProcessor;
+import com.pulse.processing.store.EmbeddedTrendStore;
+import com.pulse.processing.store.RedisTrendStore;
+import com.pulse.processing.store.TrendStore;
+import com.pulse.processing.text.Stopwords;
+import com.pulse.processing.text.Tokenizer;
+import com.pulse.shard.TrendShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * StreamProcessor.handleMessage end to end (tokenize, intern, both pipelined round trips) against
+ * the in-memory Redis stand-in, so the score is client-side cost per post. The activity buffer is
+ * flushed between iterations, as the scheduler would; so is the recent-posts index, whose per-post
+ * cost (buffering the post under each of its tokens) is part of the score, as is the co-occurrence
+ * tracker's (hot set: the corpus' 2000 most frequent tokens; CooccurrenceBenchmark isolates it).
+ * With store=embedded the same posts go to the
+ * in-process EmbeddedTrendStore (dictionaryCapacity does not apply there).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamProcessorBenchmark {
+
+  private static final int CORPUS_SIZE = 4096;
+
+  // Small capacity exercises dictionary eviction; the default never evicts on this corpus
+  @Param({"262144", "4096"})
+  public int dictionaryCapacity;
+
+  @Param({"redis", "embedded"})
+  public String store;
+
+  private InMemoryRedis redis;
+  private StreamProcessor processor;
+  private ActivityBuffer activity;
+  private RecentPostIndex postIndex;
+  private CooccurrenceTracker cooccurrence;
+  private List<String> hotTokens;
+  private List<String> posts;
+  private int next;
+
+  @Setup
+  public void setup() {
+    redis = new InMemoryRedis();
+    StringRedisTemplate template = redis.template();
+
+    ProcessingMetrics metrics = new ProcessingMetrics(new SimpleMeterRegistry());
+    TrendShards shards = new TrendShards(1);
+    activity = new ActivityBuffer(template, metrics, shards);
+    Fields.set(activity, "activityZsetKey", "trends:lastSeen");
+    Fields.set(activity, "summaryKey", "pulse:summary");
+    Fields.set(activity, "activeHllPrefix", "pulse:summary:{active}:m:");
+    Fields.set(activity, "retentionMinutes", 1440L);
+
+    posts = PostCorpus.standard(7).posts(CORPUS_SIZE);
+
+    // Only the Redis deployment indexes recent posts and tracks co-occurrence (both beans are
+    // @Profile("!embedded-store"))
+    StaticListableBeanFactory beans = new StaticListableBeanFactory();
+    if (!store.equals("embedded")) {
+      postIndex = new RecentPostIndex(template, metrics, true, "posts:", 100000, 20, 3600, 500, 20000);
+      cooccurrence = new CooccurrenceTracker(template, metrics, shards);
+      Fields.invoke(cooccurrence, "init");
+      hotTokens = mostFrequentTokens(posts, 2000);
+      cooccurrence.updateHotTokens(hotTokens);
+      beans.addBean("recentPostIndex", postIndex);
+      beans.addBean("cooccurrenceTracker", cooccurrence);
+    }
+
+    processor = new StreamProcessor(template, trendStore(template, metrics, shards), metrics,
+        beans.getBeanProvider(RecentPostIndex.class), beans.getBeanProvider(CooccurrenceTracker.class));
+  }
+
+  private static List<String> mostFrequentTokens(List<String> posts, int n) {
+    Tokenizer tokenizer = new Tokenizer(Stopwords.load(Optional.of("/stopwords-iso-en.txt"), Set.of()), 3, 24);
+    Map<String, Integer> frequency = new HashMap<>();
+    for (String post : posts) {
+      for (String token : new HashSet<>(tokenizer.tokens(post))) frequency.merge(token, 1, Integer::sum);
+    }
+    return frequency.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+        .limit(n)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+
+  private TrendStore trendStore(StringRedisTemplate template, ProcessingMetrics metrics, TrendShards shards) {
+    if (store.equals("embedded")) {
+      EmbeddedTrendStore embedded = new EmbeddedTrendStore();
+      Fields.set(embedded, "dfWindowSeconds", 86400L);
+      Fields.set(embedded, "dfMaxRatio", 0.30);
+      Fields.set(embedded, "dfBuckets", 12);
+      // Fresh path, so restore() starts empty
+      Fields.set(embedded, "snapshotPath", tempSnapshotPath());
+      Fields.invoke(embedded, "restore");
+      return embedded;
+    }
+    RedisTrendStore redisStore = new RedisTrendStore(template, activity, metrics, shards);
+    Fields.set(redisStore, "globalKey", "trends:global");
+    Fields.set(redisStore, "activityZsetKey", "trends:lastSeen");
+    Fields.set(redisStore, "dfTtlSeconds", 86400L);
+    Fields.set(redisStore, "dfMaxRatio", 0.30);
+    Fields.set(redisStore, "dictionaryCapacity", dictionaryCapacity);
+    Fields.set(redisStore, "summaryKey", "pulse:summary");
+    Fields.invoke(redisStore, "initKeys");
+    return redisStore;
+  }
+
+  private static String tempSnapshotPath() {
+    try {
+      Path dir = Files.createTempDirectory("pulse-bench");
+      dir.toFile().deleteOnExit();
+      return dir.resolve("trend-snapshot.bin").toString();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void flushActivity() {
+    activity.flush();
+    if (postIndex != null) postIndex.flush();
+    if (cooccurrence != null) cooccurrence.updateHotTokens(hotTokens);
+  }
+
+  @Benchmark
+  public void handleMessage() {
+    processor.handleMessage(posts.get(next++ & (CORPUS_SIZE - 1)));
+  }
+}
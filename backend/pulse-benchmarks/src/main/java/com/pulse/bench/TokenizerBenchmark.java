@@ -0,0 +1,59 @@
+package com.pulse.bench;
+
+import com.pulse.bench.support.PostCorpus;
+import com.pulse.processing.text.Stopwords;
+import com.pulse.processing.text.Tokenizer;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Tokenizer.tokens and Stopwords.contains over the synthetic post corpus
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+  private static final int CORPUS_SIZE = 4096;
+
+  private Tokenizer tokenizer;
+  private Stopwords stopwords;
+  private List<String> posts;
+  private String[] words;
+  private int next;
+
+  @Setup
+  public void setup() {
+    stopwords = Stopwords.load(Optional.of("/stopwords-iso-en.txt"), Set.of());
+    tokenizer = new Tokenizer(stopwords, 3, 24);
+    PostCorpus corpus = PostCorpus.standard(42);
+    posts = corpus.posts(CORPUS_SIZE);
+    words = String.join(" ", posts).split("\\s+");
+  }
+
+  @Benchmark
+  public List<String> tokens() {
+    return tokenizer.tokens(posts.get(next++ & (CORPUS_SIZE - 1)));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void stopwordsContains(Blackhole bh) {
+    int base = (next++ * 64) % (words.length - 64);
+    for (int i = 0; i < 64; i++) bh.consume(stopwords.contains(words[base + i]));
+  }
+}
@@ -0,0 +1,25 @@
+package com.pulse.bench.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import org.springframework.util.ReflectionUtils;
+
+/** Wires @Value fields and lifecycle hooks on service classes without starting a Spring context. */
+public final class Fields {
+
+  private Fields() {}
+
+  public static void set(Object target, String name, Object value) {
+    Field f = ReflectionUtils.findField(target.getClass(), name);
+    if (f == null) throw new IllegalArgumentException("No field '" + name + "' on " + target.getClass());
+    ReflectionUtils.makeAccessible(f);
+    ReflectionUtils.setField(f, target, value);
+  }
+
+  public static void invoke(Object target, String method) {
+    Method m = ReflectionUtils.findMethod(target.getClass(), method);
+    if (m == null) throw new IllegalArgumentException("No method '" + method + "' on " + target.getClass());
+    ReflectionUtils.makeAccessible(m);
+    ReflectionUtils.invokeMethod(m, target);
+  }
+}
@@ -0,0 +1,255 @@
+package com.pulse.bench.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Single-process Redis stand-in for benchmarks: a RedisConnectionFactory whose connections are
+ * dynamic proxies over in-memory maps.
+ *
+ * Only the commands the benchmarked code issues are implemented (INCR, GET/SET/MGET, EXPIRE/TTL, ZINCRBY,
+ * ZADD, ZSCORE, ZMSCORE, ZREVRANGE WITHSCORES, ZCARD, HINCRBY, HGET, HSET, PFADD, PFCOUNT (exact),
+ * SMEMBERS); pipelining queues results and returns them on
+ * closePipeline exactly like a real connection, so executePipelined behaves as in production.
+ * Anything else returns null/0/false. TTLs are recorded but never count down. Not thread-safe
+ * beyond a single lock: benchmarks measure client-side work, not Redis.
+ */
+public final class InMemoryRedis {
+
+  private final Map<String, Object> data = new HashMap<>();
+  private final Map<String, Long> ttls = new HashMap<>();
+
+  public StringRedisTemplate template() {
+    return new StringRedisTemplate(connectionFactory());
+  }
+
+  public RedisConnectionFactory connectionFactory() {
+    return (RedisConnectionFactory) Proxy.newProxyInstance(
+        InMemoryRedis.class.getClassLoader(),
+        new Class<?>[] {RedisConnectionFactory.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "getConnection" -> newConnection();
+          case "getConvertPipelineAndTxResults" -> true;
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "equals" -> proxy == args[0];
+          case "toString" -> "InMemoryRedisConnectionFactory";
+          default -> defaultValue(method);
+        });
+  }
+
+  public synchronized int size() {
+    return data.size();
+  }
+
+  public synchronized void clear() {
+    data.clear();
+    ttls.clear();
+  }
+
+  private RedisConnection newConnection() {
+    return (RedisConnection) Proxy.newProxyInstance(
+        InMemoryRedis.class.getClassLoader(),
+        new Class<?>[] {RedisConnection.class},
+        new Connection());
+  }
+
+  private final class Connection implements InvocationHandler {
+    private List<Object> pipeline;
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      String name = method.getName();
+      switch (name) {
+        case "openPipeline" -> { pipeline = new ArrayList<>(); return null; }
+        case "closePipeline" -> {
+          List<Object> results = pipeline != null ? pipeline : List.of();
+          pipeline = null;
+          return results;
+        }
+        case "isPipelined" -> { return pipeline != null; }
+        case "isQueueing", "isClosed" -> { return false; }
+        case "close" -> { return null; }
+        case "hashCode" -> { return System.identityHashCode(proxy); }
+        case "equals" -> { return proxy == args[0]; }
+        case "toString" -> { return "InMemoryRedisConnection"; }
+        default -> { }
+      }
+      // keyCommands(), stringCommands(), ... all resolve to this same proxy
+      if (name.endsWith("Commands") && (args == null || args.length == 0)) return proxy;
+
+      Object result;
+      synchronized (InMemoryRedis.this) {
+        result = execute(name, args);
+      }
+      if (result == UNSUPPORTED) result = defaultValue(method);
+      if (pipeline != null) {
+        pipeline.add(result);
+        return defaultValue(method);
+      }
+      return result;
+    }
+  }
+
+  private static final Object UNSUPPORTED = new Object();
+
+  @SuppressWarnings("unchecked")
+  private Object execute(String name, Object[] args) {
+    switch (name) {
+      case "incr" -> {
+        return incrBy(key(args[0]), 1);
+      }
+      case "incrBy" -> {
+        return incrBy(key(args[0]), ((Number) args[1]).longValue());
+      }
+      case "get" -> {
+        Object v = data.get(key(args[0]));
+        return v instanceof byte[] b ? b : null;
+      }
+      case "mGet" -> {
+        List<byte[]> out = new ArrayList<>();
+        for (Object k : (Object[]) args[0]) {
+          Object v = data.get(key(k));
+          out.add(v instanceof byte[] b ? b : null);
+        }
+        return out;
+      }
+      case "set", "setEx" -> {
+        boolean withTtl = name.equals("setEx");
+        byte[] value = (byte[]) args[withTtl ? 2 : 1];
+        data.put(key(args[0]), value);
+        if (withTtl) ttls.put(key(args[0]), ((Number) args[1]).longValue());
+        else ttls.remove(key(args[0]));
+        return Boolean.TRUE;
+      }
+      case "expire", "pExpire" -> {
+        String key = key(args[0]);
+        if (!data.containsKey(key)) return false;
+        long seconds = ((Number) args[1]).longValue();
+        ttls.put(key, name.equals("pExpire") ? seconds / 1000 : seconds);
+        return true;
+      }
+      case "ttl" -> {
+        String key = key(args[0]);
+        return data.containsKey(key) ? ttls.getOrDefault(key, -1L) : -2L;
+      }
+      case "zIncrBy" -> {
+        Map<String, Double> z = (Map<String, Double>) data.computeIfAbsent(key(args[0]), k -> new HashMap<String, Double>());
+        return z.merge(key(args[2]), ((Number) args[1]).doubleValue(), Double::sum);
+      }
+      case "zAdd" -> {
+        Map<String, Double> z = (Map<String, Double>) data.computeIfAbsent(key(args[0]), k -> new HashMap<String, Double>());
+        if (args[1] instanceof Set<?> tuples) {
+          long added = 0;
+          for (Object t : tuples) {
+            Tuple tuple = (Tuple) t;
+            if (z.put(key(tuple.getValue()), tuple.getScore()) == null) added++;
+          }
+          return added;
+        }
+        return z.put(key(args[2]), ((Number) args[1]).doubleValue()) == null;
+      }
+      case "zScore" -> {
+        Object z = data.get(key(args[0]));
+        return z instanceof Map<?, ?> m ? m.get(key(args[1])) : null;
+      }
+      case "zMScore" -> {
+        Object z = data.get(key(args[0]));
+        List<Double> out = new ArrayList<>();
+        for (Object m : (Object[]) args[1]) out.add(z instanceof Map<?, ?> map ? (Double) map.get(key(m)) : null);
+        return out;
+      }
+      case "zRevRangeWithScores" -> {
+        Object z = data.get(key(args[0]));
+        Set<Tuple> out = new LinkedHashSet<>();
+        if (!(z instanceof Map<?, ?> m)) return out;
+        long start = ((Number) args[1]).longValue();
+        long end = ((Number) args[2]).longValue();
+        ((Map<String, Double>) m).entrySet().stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+            .skip(start)
+            .limit(Math.max(0, end - start + 1))
+            .forEach(e -> out.add(new DefaultTuple(e.getKey().getBytes(StandardCharsets.ISO_8859_1), e.getValue())));
+        return out;
+      }
+      case "zCard" -> {
+        Object z = data.get(key(args[0]));
+        return z instanceof Map<?, ?> m ? (long) m.size() : 0L;
+      }
+      case "hIncrBy" -> {
+        Map<String, byte[]> h = (Map<String, byte[]>) data.computeIfAbsent(key(args[0]), k -> new HashMap<String, byte[]>());
+        String field = key(args[1]);
+        byte[] cur = h.get(field);
+        long next = (cur == null ? 0L : Long.parseLong(new String(cur, StandardCharsets.US_ASCII)))
+            + ((Number) args[2]).longValue();
+        h.put(field, Long.toString(next).getBytes(StandardCharsets.US_ASCII));
+        return next;
+      }
+      case "hGet" -> {
+        Object h = data.get(key(args[0]));
+        return h instanceof Map<?, ?> m ? m.get(key(args[1])) : null;
+      }
+      case "hSet" -> {
+        Map<String, byte[]> h = (Map<String, byte[]>) data.computeIfAbsent(key(args[0]), k -> new HashMap<String, byte[]>());
+        return h.put(key(args[1]), (byte[]) args[2]) == null;
+      }
+      case "pfAdd" -> {
+        Set<String> hll = (Set<String>) data.computeIfAbsent(key(args[0]), k -> new HashSet<String>());
+        boolean changed = false;
+        for (Object v : (Object[]) args[1]) changed |= hll.add(key(v));
+        return changed ? 1L : 0L;
+      }
+      case "pfCount" -> {
+        Set<String> union = new HashSet<>();
+        for (Object k : (Object[]) args[0]) {
+          if (data.get(key(k)) instanceof Set<?> hll) for (Object v : hll) union.add((String) v);
+        }
+        return (long) union.size();
+      }
+      case "sMembers" -> {
+        Object s = data.get(key(args[0]));
+        Set<byte[]> out = new HashSet<>();
+        if (s instanceof Collection<?> c) for (Object v : c) out.add(((String) v).getBytes(StandardCharsets.ISO_8859_1));
+        return out;
+      }
+      default -> {
+        return UNSUPPORTED;
+      }
+    }
+  }
+
+  private long incrBy(String key, long delta) {
+    Object cur = data.get(key);
+    long next = (cur instanceof byte[] b ? Long.parseLong(new String(b, StandardCharsets.US_ASCII)) : 0L) + delta;
+    data.put(key, Long.toString(next).getBytes(StandardCharsets.US_ASCII));
+    return next;
+  }
+
+  // Byte keys are compared by content; ISO-8859-1 maps every byte to one char losslessly
+  private static String key(Object raw) {
+    return raw instanceof byte[] b ? new String(b, StandardCharsets.ISO_8859_1) : String.valueOf(raw);
+  }
+
+  private static Object defaultValue(Method method) {
+    Class<?> t = method.getReturnType();
+    if (t == boolean.class) return false;
+    if (t == long.class) return 0L;
+    if (t == int.class) return 0;
+    if (t == double.class) return 0.0;
+    return null;
+  }
+}
@@ -0,0 +1,109 @@
+package com.pulse.bench.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of social-post-like text.
+ *
+ * Vocabulary is drawn from a Zipf distribution (a few very frequent terms, a long tail), mixed
+ * with English stopwords, hashtags, mentions, URLs, numbers, accented words and emoji, and post
+ * lengths follow a short-heavy distribution (most posts are a sentence, some are long bodies) like
+ * the Reddit title+body records the ingestion service emits.
+ */
+public final class PostCorpus {
+
+  private static final String[] STOPWORDS = {
+      "the", "a", "an", "and", "or", "but", "is", "are", "was", "to", "of", "in", "on", "for",
+      "with", "this", "that", "it", "its", "at", "by", "from", "be", "have", "has", "just", "so",
+      "i", "you", "we", "they", "my", "your", "not", "no", "what", "when", "how", "why", "all"
+  };
+  private static final String[] SYLLABLES = {
+      "ka", "lo", "mi", "tra", "den", "vor", "sel", "pha", "qui", "zen", "bor", "lin", "gra", "tor",
+      "mes", "nu", "ri", "sta", "cle", "pon", "dar", "fi", "wex", "yul", "ob", "ent", "ion", "ary"
+  };
+  private static final String[] ACCENTED = {"café", "naïve", "résumé", "jalapeño", "über", "façade"};
+  private static final String[] EMOJI = {"🔥", "🚀", "😂", "👀", "💯", "🤔"};
+  private static final String[] PUNCT = {".", ",", "!", "?", "...", ":", ";", " -"};
+
+  private final Random random;
+  private final String[] vocabulary;
+  private final double[] cumulative;
+
+  public PostCorpus(long seed, int vocabularySize, double zipfExponent) {
+    this.random = new Random(seed);
+    this.vocabulary = new String[vocabularySize];
+    for (int i = 0; i < vocabularySize; i++) vocabulary[i] = word(i);
+    this.cumulative = new double[vocabularySize];
+    double sum = 0;
+    for (int i = 0; i < vocabularySize; i++) {
+      sum += 1.0 / Math.pow(i + 1, zipfExponent);
+      cumulative[i] = sum;
+    }
+    for (int i = 0; i < vocabularySize; i++) cumulative[i] /= sum;
+  }
+
+  public static PostCorpus standard(long seed) {
+    return new PostCorpus(seed, 50_000, 1.07);
+  }
+
+  public List<String> posts(int n) {
+    List<String> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) out.add(post());
+    return out;
+  }
+
+  public String post() {
+    int words = postLength();
+    StringBuilder sb = new StringBuilder(words * 7);
+    for (int i = 0; i < words; i++) {
+      if (i > 0) sb.append(' ');
+      double r = random.nextDouble();
+      if (r < 0.40) sb.append(STOPWORDS[random.nextInt(STOPWORDS.length)]);
+      else if (r < 0.88) sb.append(maybeCapitalize(term()));
+      else if (r < 0.92) sb.append('#').append(term());
+      else if (r < 0.94) sb.append('@').append(term()).append(random.nextInt(100));
+      else if (r < 0.95) sb.append("https://example.com/").append(term()).append('/').append(random.nextInt(1_000_000));
+      else if (r < 0.97) sb.append(random.nextInt(10_000));
+      else if (r < 0.985) sb.append(ACCENTED[random.nextInt(ACCENTED.length)]);
+      else sb.append(EMOJI[random.nextInt(EMOJI.length)]);
+      if (random.nextDouble() < 0.08) sb.append(PUNCT[random.nextInt(PUNCT.length)]);
+    }
+    return sb.toString();
+  }
+
+  public String term() {
+    double u = random.nextDouble();
+    int lo = 0, hi = cumulative.length - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (cumulative[mid] < u) lo = mid + 1; else hi = mid;
+    }
+    return vocabulary[lo];
+  }
+
+  // ~70% one-liners (titles), ~25% short paragraphs, ~5% long self-posts
+  private int postLength() {
+    double r = random.nextDouble();
+    if (r < 0.70) return 6 + random.nextInt(20);
+    if (r < 0.95) return 30 + random.nextInt(90);
+    return 150 + random.nextInt(650);
+  }
+
+  private String maybeCapitalize(String w) {
+    return random.nextDouble() < 0.15 ? Character.toUpperCase(w.charAt(0)) + w.substring(1) : w;
+  }
+
+  // Stable pronounceable words: rank i always maps to the same word
+  private static String word(int i) {
+    StringBuilder sb = new StringBuilder();
+    int n = i;
+    do {
+      sb.append(SYLLABLES[n % SYLLABLES.length]);
+      n /= SYLLABLES.length;
+    } while (n > 0);
+    if (sb.length() < 3) sb.append("er");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,403 @@
+#!/usr/bin/env python3
+"""
+End-to-end load generator and throughput harness for the Redis-stream pipeline.
+
+Writes raw_posts stream records (same JSON payload as reddit_ingest.py) at a target rate with a
+Zipfian vocabulary and an optional burst pattern, injects keyword spikes, and measures while the
+local services run:
+
+  - ingest lag        consumer-group lag on raw_posts (entries and age of last delivered id)
+  - throughput        posts/s processed, from pulse:summary posts_total
+  - detection latency injected spike -> entry on the anomalies:live stream
+  - API latency       p50/p95/p99 of /api/trends and /api/summary under polling load
+
+Everything runs against the docker-compose Redis/Postgres plus the three services started
+locally (see infra/docker/scripts/loadtest.sh).
+
+Examples:
+  ./loadgen.py --rate 2000 --duration 300
+  ./loadgen.py --rate 5000 --pattern square --burst-factor 4 --burst-period 60 --spikes 3
+  ./loadgen.py --rate 1000 --duration 180 --json-out results.json
+"""
+import argparse
+import bisect
+import json
+import math
+import os
+import random
+import string
+import threading
+import time
+import urllib.request
+import uuid
+from typing import Dict, List, Optional
+
+import redis
+
+REDIS_HOST = os.getenv("REDIS_HOST", "localhost")
+REDIS_PORT = int(os.getenv("REDIS_PORT", "6379"))
+REDIS_DB = int(os.getenv("REDIS_DB", "0"))
+RAW_POSTS_STREAM = os.getenv("RAW_POSTS_STREAM", "raw_posts")
+RAW_POSTS_MAXLEN = int(os.getenv("RAW_POSTS_MAXLEN", "100000"))
+REDIS_STREAM_GROUP = os.getenv("REDIS_STREAM_GROUP", "pulse-processing")
+ANOMALY_LIVE_STREAM = os.getenv("ANOMALY_LIVE_STREAM", "anomalies:live")
+SUMMARY_KEY = os.getenv("PULSE_SUMMARY_KEY", "pulse:summary")
+API_URL = os.getenv("TRENDS_API_URL", "http://localhost:8086").rstrip("/")
+
+STOPWORDS = ("the a an and or but is are was to of in on for with this that it at by from be "
+             "have has just so i you we they my your not no what when how why all").split()
+SYLLABLES = ("ka lo mi tra den vor sel pha qui zen bor lin gra tor mes nu ri sta cle pon dar fi "
+             "wex yul ob ent ion ary").split()
+
+
+# --- Corpus -----------------------------------------------------------------------------------
+
+def make_vocabulary(size: int) -> List[str]:
+    """Stable letters-only words (the tokenizer keeps [a-z] only); rank i -> same word."""
+    words = []
+    for i in range(size):
+        n, parts = i, []
+        while True:
+            parts.append(SYLLABLES[n % len(SYLLABLES)])
+            n //= len(SYLLABLES)
+            if n == 0:
+                break
+        w = "".join(parts)
+        words.append(w if len(w) >= 3 else w + "er")
+    return words
+
+
+class Corpus:
+    def __init__(self, vocab_size: int, zipf: float, seed: int):
+        self.rng = random.Random(seed)
+        self.vocab = make_vocabulary(vocab_size)
+        acc, self.cum = 0.0, []
+        for i in range(vocab_size):
+            acc += 1.0 / math.pow(i + 1, zipf)
+            self.cum.append(acc)
+
+    def text(self, extra: Optional[str] = None) -> str:
+        r = self.rng.random()
+        n = 6 + self.rng.randrange(20) if r < 0.7 else 30 + self.rng.randrange(90)
+        terms = self.rng.choices(self.vocab, cum_weights=self.cum, k=max(1, int(n * 0.6)))
+        stops = self.rng.choices(STOPWORDS, k=max(1, n - len(terms)))
+        words = terms + stops
+        self.rng.shuffle(words)
+        if extra:
+            words.insert(self.rng.randrange(len(words) + 1), extra)
+        return " ".join(words)
+
+
+def make_record(text: str) -> Dict[str, object]:
+    return {
+        "id": str(uuid.uuid4()),
+        "text": text[:8000],
+        "timestamp": int(time.time() * 1000),
+        "source": "loadgen",
+        "lang": "en",
+    }
+
+
+# --- Rate shaping -----------------------------------------------------------------------------
+
+def rate_at(args, elapsed: float) -> float:
+    """Target posts/s at a point in time for the selected burst pattern."""
+    if args.pattern == "square":
+        high = (elapsed % args.burst_period) < args.burst_period * args.burst_duty
+        return args.rate * (args.burst_factor if high else 1.0)
+    if args.pattern == "sine":
+        phase = 2 * math.pi * elapsed / args.burst_period
+        return args.rate * (1.0 + (args.burst_factor - 1.0) * (0.5 + 0.5 * math.sin(phase)))
+    # poisson: the producer re-draws the rate once per second around this mean
+    return args.rate
+
+
+# --- Shared state -----------------------------------------------------------------------------
+
+class Stats:
+    def __init__(self):
+        self.lock = threading.Lock()
+        self.sent = 0
+        self.samples: List[Dict[str, float]] = []
+        self.api: Dict[str, List[float]] = {}
+        self.api_errors: Dict[str, int] = {}
+        self.spikes: Dict[str, Dict[str, Optional[float]]] = {}
+
+    def api_sample(self, name: str, ms: Optional[float]):
+        with self.lock:
+            if ms is None:
+                self.api_errors[name] = self.api_errors.get(name, 0) + 1
+            else:
+                self.api.setdefault(name, []).append(ms)
+
+
+def percentile(values: List[float], p: float) -> Optional[float]:
+    if not values:
+        return None
+    s = sorted(values)
+    k = min(len(s) - 1, max(0, int(math.ceil(p / 100.0 * len(s))) - 1))
+    return s[k]
+
+
+# --- Workers ----------------------------------------------------------------------------------
+
+def producer(args, r: redis.Redis, corpus: Corpus, stats: Stats, stop: threading.Event, t0: float):
+    """Token-bucket producer: every tick, pipeline as many XADDs as the target rate allows."""
+    tick = 0.01
+    credit = 0.0
+    last = time.monotonic()
+    spike_kws = list(stats.spikes.keys())
+    baseline_every = max(1, int(args.rate / max(args.spike_baseline_rps * len(spike_kws), 0.001))) if spike_kws else 0
+    n = 0
+    drawn_second, drawn_rate = -1, 0.0
+    while not stop.is_set():
+        now = time.monotonic()
+        elapsed = now - t0
+        rate = rate_at(args, elapsed)
+        if args.pattern == "poisson":
+            # One draw per wall-clock second, so each second's count varies like Poisson(rate)
+            # (normal approximation); drawing per tick would average the noise away
+            if int(elapsed) != drawn_second:
+                drawn_second = int(elapsed)
+                drawn_rate = max(0.0, corpus.rng.gauss(rate, math.sqrt(rate)))
+            rate = drawn_rate
+        credit += rate * (now - last)
+        last = now
+        batch = int(credit)
+        if batch > 0:
+            credit -= batch
+            pipe = r.pipeline(transaction=False)
+            for _ in range(batch):
+                n += 1
+                extra = None
+                # Keep a small baseline for spike keywords so detection has history to compare with
+                if baseline_every and n % baseline_every == 0:
+                    extra = spike_kws[n // baseline_every % len(spike_kws)]
+                rec = make_record(corpus.text(extra))
+                pipe.xadd(RAW_POSTS_STREAM, {"payload": json.dumps(rec)},
+                          maxlen=RAW_POSTS_MAXLEN, approximate=True)
+            pipe.execute()
+            with stats.lock:
+                stats.sent += batch
+        time.sleep(tick)
+
+
+def inject_spikes(args, r: redis.Redis, corpus: Corpus, stats: Stats, stop: threading.Event, t0: float):
+    """After warm-up, fire each spike keyword as a burst of posts, spaced spike_interval apart."""
+    for i, kw in enumerate(list(stats.spikes.keys())):
+        at = t0 + args.warmup + i * args.spike_interval
+        while time.monotonic() < at:
+            if stop.wait(0.2):
+                return
+        pipe = r.pipeline(transaction=False)
+        for _ in range(args.spike_posts):
+            rec = make_record(corpus.text(kw))
+            pipe.xadd(RAW_POSTS_STREAM, {"payload": json.dumps(rec)},
+                      maxlen=RAW_POSTS_MAXLEN, approximate=True)
+        pipe.execute()
+        with stats.lock:
+            stats.spikes[kw]["injected"] = time.time()
+            stats.sent += args.spike_posts
+        print(f"[spike] injected '{kw}' x{args.spike_posts}")
+
+
+def anomaly_tail(r: redis.Redis, stats: Stats, stop: threading.Event):
+    """Watch anomalies:live (written by the anomaly service) for the injected keywords."""
+    last_id = "$"
+    while not stop.is_set():
+        try:
+            resp = r.xread({ANOMALY_LIVE_STREAM: last_id}, count=100, block=500)
+        except redis.RedisError:
+            time.sleep(0.5)
+            continue
+        for _, entries in resp or []:
+            for entry_id, fields in entries:
+                last_id = entry_id
+                kw = fields.get("keyword")
+                with stats.lock:
+                    s = stats.spikes.get(kw)
+                    if s is not None and s.get("injected") and s.get("detected") is None:
+                        s["detected"] = time.time()
+                        s["z"] = float(fields.get("zScore", "nan"))
+                        print(f"[spike] detected '{kw}' after {s['detected'] - s['injected']:.2f}s "
+                              f"(z={s['z']:.2f})")
+
+
+def api_poller(name: str, url: str, rps: float, stats: Stats, stop: threading.Event):
+    interval = 1.0 / rps if rps > 0 else 1.0
+    while not stop.is_set():
+        start = time.perf_counter()
+        try:
+            with urllib.request.urlopen(url, timeout=5) as resp:
+                resp.read()
+            stats.api_sample(name, (time.perf_counter() - start) * 1000.0)
+        except Exception:
+            stats.api_sample(name, None)
+        stop.wait(max(0.0, interval - (time.perf_counter() - start)))
+
+
+def group_lag(r: redis.Redis) -> Dict[str, float]:
+    """Entries not yet delivered to the processing group and how old the last delivered id is."""
+    out = {"lag_entries": float("nan"), "lag_seconds": float("nan"), "pending": float("nan")}
+    try:
+        for g in r.xinfo_groups(RAW_POSTS_STREAM):
+            if g.get("name") != REDIS_STREAM_GROUP:
+                continue
+            out["pending"] = float(g.get("pending") or 0)
+            if g.get("lag") is not None:
+                out["lag_entries"] = float(g["lag"])
+            last = g.get("last-delivered-id") or "0-0"
+            last_ms = int(str(last).split("-")[0])
+            info = r.xinfo_stream(RAW_POSTS_STREAM)
+            newest = info.get("last-generated-id") or "0-0"
+            newest_ms = int(str(newest).split("-")[0])
+            out["lag_seconds"] = max(0.0, (newest_ms - last_ms) / 1000.0) if last_ms else float("nan")
+    except redis.RedisError:
+        pass
+    return out
+
+
+def sampler(r: redis.Redis, stats: Stats, stop: threading.Event, t0: float, quiet: bool):
+    prev_posts, prev_t = None, None
+    while not stop.wait(1.0):
+        now = time.monotonic()
+        try:
+            posts = int(r.hget(SUMMARY_KEY, "posts_total") or 0)
+        except redis.RedisError:
+            posts = None
+        lag = group_lag(r)
+        tput = float("nan")
+        if posts is not None and prev_posts is not None:
+            tput = (posts - prev_posts) / (now - prev_t)
+        prev_posts, prev_t = posts, now
+        with stats.lock:
+            sent = stats.sent
+            stats.samples.append({"t": now - t0, "sent": sent, "processed_per_s": tput, **lag})
+        if not quiet:
+            print(f"t={now - t0:6.1f}s sent={sent:>9} processed/s={tput:9.1f} "
+                  f"lag={lag['lag_entries']:>8.0f} entries ({lag['lag_seconds']:.2f}s) pending={lag['pending']:.0f}")
+
+
+# --- Report -----------------------------------------------------------------------------------
+
+def report(args, stats: Stats, wall: float) -> Dict[str, object]:
+    def finite(vals):
+        return [v for v in vals if v == v and not math.isinf(v)]
+
+    # Skip the first samples while the consumer catches up with startup
+    steady = [s for s in stats.samples if s["t"] >= min(args.warmup, wall / 2)]
+    tputs = finite([s["processed_per_s"] for s in steady])
+    lags = finite([s["lag_seconds"] for s in steady])
+    spikes = {}
+    for kw, s in stats.spikes.items():
+        lat = (s["detected"] - s["injected"]) if s.get("detected") and s.get("injected") else None
+        spikes[kw] = {"injected": s.get("injected") is not None, "detected": lat is not None,
+                      "latency_s": lat, "z": s.get("z")}
+    api = {}
+    for name, vals in stats.api.items():
+        api[name] = {"count": len(vals), "errors": stats.api_errors.get(name, 0),
+                     "p50_ms": percentile(vals, 50), "p95_ms": percentile(vals, 95),
+                     "p99_ms": percentile(vals, 99), "max_ms": max(vals) if vals else None}
+    latencies = [v["latency_s"] for v in spikes.values() if v["latency_s"] is not None]
+    return {
+        "config": {k: v for k, v in vars(args).items() if k != "json_out"},
+        "duration_s": wall,
+        "sent": stats.sent,
+        "offered_rate": stats.sent / wall if wall else 0,
+        "throughput": {"mean": sum(tputs) / len(tputs) if tputs else None,
+                       "p50": percentile(tputs, 50), "min": min(tputs) if tputs else None},
+        "ingest_lag_s": {"p50": percentile(lags, 50), "p99": percentile(lags, 99),
+                         "max": max(lags) if lags else None},
+        "detection": {"spikes": spikes, "detected": len(latencies), "injected": len(spikes),
+                      "p50_s": percentile(latencies, 50), "max_s": max(latencies) if latencies else None},
+        "api": api,
+        "samples": stats.samples,
+    }
+
+
+def print_report(res: Dict[str, object]):
+    fmt = lambda v, spec=".1f": "-" if v is None else format(v, spec)
+    print("\n=== loadgen summary ===")
+    print(f"sent {res['sent']} posts in {res['duration_s']:.1f}s (offered {res['offered_rate']:.0f}/s)")
+    t = res["throughput"]
+    print(f"processing throughput: mean {fmt(t['mean'])}/s  p50 {fmt(t['p50'])}/s  min {fmt(t['min'])}/s")
+    l = res["ingest_lag_s"]
+    print(f"ingest lag: p50 {fmt(l['p50'], '.2f')}s  p99 {fmt(l['p99'], '.2f')}s  max {fmt(l['max'], '.2f')}s")
+    d = res["detection"]
+    print(f"detection: {d['detected']}/{d['injected']} spikes  p50 {fmt(d['p50_s'], '.2f')}s  max {fmt(d['max_s'], '.2f')}s")
+    for name, a in res["api"].items():
+        print(f"api {name}: n={a['count']} err={a['errors']}  p50 {fmt(a['p50_ms'])}ms  "
+              f"p95 {fmt(a['p95_ms'])}ms  p99 {fmt(a['p99_ms'])}ms")
+
+
+def main():
+    ap = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    ap.add_argument("--rate", type=float, default=1000, help="base posts/s")
+    ap.add_argument("--duration", type=float, default=300, help="seconds")
+    ap.add_argument("--pattern", choices=["steady", "square", "sine", "poisson"], default="steady")
+    ap.add_argument("--burst-factor", type=float, default=3.0, help="peak rate multiplier (square/sine)")
+    ap.add_argument("--burst-period", type=float, default=60.0, help="seconds per burst cycle")
+    ap.add_argument("--burst-duty", type=float, default=0.25, help="fraction of a square cycle at peak")
+    ap.add_argument("--vocab", type=int, default=50000, help="vocabulary size")
+    ap.add_argument("--zipf", type=float, default=1.07, help="Zipf exponent")
+    ap.add_argument("--seed", type=int, default=42)
+    ap.add_argument("--spikes", type=int, default=2, help="keywords to inject as anomalies")
+    ap.add_argument("--spike-posts", type=int, default=600, help="posts per injected spike")
+    ap.add_argument("--spike-baseline-rps", type=float, default=4.0, help="baseline rate per spike keyword")
+    ap.add_argument("--spike-interval", type=float, default=60.0, help="seconds between spikes")
+    ap.add_argument("--warmup", type=float, default=90.0,
+                    help="seconds before the first spike (>= min-samples x scheduler interval)")
+    ap.add_argument("--api-rps", type=float, default=20.0, help="requests/s per polled endpoint (0 = off)")
+    ap.add_argument("--api-url", default=API_URL)
+    ap.add_argument("--json-out", help="write the full result (incl. per-second samples) here")
+    ap.add_argument("--quiet", action="store_true", help="no per-second progress lines")
+    args = ap.parse_args()
+
+    r = redis.Redis(host=REDIS_HOST, port=REDIS_PORT, db=REDIS_DB, decode_responses=True)
+    r.ping()
+    corpus = Corpus(args.vocab, args.zipf, args.seed)
+    stats = Stats()
+    suffix_rng = random.Random(args.seed + 1)
+    for _ in range(args.spikes):
+        kw = "lgspike" + "".join(suffix_rng.choice(string.ascii_lowercase) for _ in range(6))
+        stats.spikes[kw] = {"injected": None, "detected": None, "z": None}
+
+    stop = threading.Event()
+    t0 = time.monotonic()
+    threads = [
+        threading.Thread(target=producer, args=(args, r, corpus, stats, stop, t0), daemon=True),
+        threading.Thread(target=sampler, args=(r, stats, stop, t0, args.quiet), daemon=True),
+        threading.Thread(target=anomaly_tail, args=(r, stats, stop), daemon=True),
+    ]
+    if args.spikes:
+        threads.append(threading.Thread(target=inject_spikes,
+                                        args=(args, r, Corpus(args.vocab, args.zipf, args.seed + 2), stats, stop, t0),
+                                        daemon=True))
+    if args.api_rps > 0:
+        for name, path in (("trends", "/api/trends?limit=20"), ("summary", "/api/summary")):
+            threads.append(threading.Thread(target=api_poller,
+                                            args=(name, args.api_url + path, args.api_rps, stats, stop),
+                                            daemon=True))
+
+    print(f"loadgen: {args.rate:.0f} posts/s ({args.pattern}) for {args.duration:.0f}s -> "
+          f"{REDIS_HOST}:{REDIS_PORT}/{RAW_POSTS_STREAM}; spikes={list(stats.spikes)}")
+    for t in threads:
+        t.start()
+    try:
+        time.sleep(args.duration)
+    except KeyboardInterrupt:
+        pass
+    stop.set()
+    for t in threads:
+        t.join(timeout=5)
+
+    res = report(args, stats, time.monotonic() - t0)
+    print_report(res)
+    if args.json_out:
+        with open(args.json_out, "w", encoding="utf-8") as f:
+            json.dump(res, f, indent=2)
+        print(f"wrote {args.json_out}")
+
+
+if __name__ == "__main__":
+    main()
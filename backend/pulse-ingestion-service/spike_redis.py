@@ -23,6 +23,7 @@ REDIS_PORT = int(os.getenv("REDIS_PORT", "6379"))
 REDIS_DB = int(os.getenv("REDIS_DB", "0"))
 RAW_POSTS_STREAM = os.getenv("RAW_POSTS_STREAM", "raw_posts")
 RAW_POSTS_MAXLEN = int(os.getenv("RAW_POSTS_MAXLEN", "100000"))
+HISTORY_KEY_PREFIX = os.getenv("ANOMALY_HISTORY_KEY_PREFIX", "trends:hist:")
 
 def make_post(text: str) -> Dict[str, object]:
     """Create a single post record."""
@@ -52,20 +53,56 @@ def send_pulse(r: redis.Redis, keyword: str, posts: int, rps: int = 0):
 def clear_state(r: redis.Redis, kw: str):
     """Reset all Redis keys for a keyword and PRIME the doc counter."""
     print(f"Clearing state for '{kw}'")
-    r.delete(f"trends:history:{kw}")
+    r.delete(f"{HISTORY_KEY_PREFIX}{kw}")
+    r.delete(f"trends:history:{kw}")  # legacy list format
     r.zrem("trends:global", kw)
     r.hdel("trends:last_counts", kw)
     r.delete(f"anomaly:last_emitted_z:{kw}")
     r.delete(f"trends:df:{kw}")
 
+def _read_varint(buf: bytes, pos: int):
+    result, shift = 0, 0
+    while pos < len(buf):
+        b = buf[pos]
+        pos += 1
+        result |= (b & 0x7F) << shift
+        if not b & 0x80:
+            break
+        shift += 7
+    return result, pos
+
+def decode_history(blob: bytes | None) -> list[int]:
+    """Decode the anomaly service's varint/delta history blob into counts (newest first).
+
+    Version 2 interleaves a time gap after each count delta; version 1 has counts only."""
+    if not blob or len(blob) < 2 or blob[0] not in (1, 2):
+        return []
+    timed = blob[0] == 2
+    unzigzag = lambda v: (v >> 1) ^ -(v & 1)
+    n, pos = _read_varint(blob, 1)
+    if n <= 0:
+        return []
+    raw, pos = _read_varint(blob, pos)
+    if timed:
+        _, pos = _read_varint(blob, pos)  # newest sample's epoch second
+    out = [unzigzag(raw)]
+    while len(out) < n and pos < len(blob):
+        raw, pos = _read_varint(blob, pos)
+        if timed:
+            _, pos = _read_varint(blob, pos)
+        out.append(out[-1] - unzigzag(raw))
+    return out
+
 def compute_expected_z(r: redis.Redis, kw: str, zt: float = 3.0):
     """Compute expected z-score and needed posts (baseline excludes current, sample std)."""
-    history_strs = r.lrange(f"trends:history:{kw}", 0, -1)
-    if not history_strs or len(history_strs) < 2:
-        print(f"  not enough history (n={len(history_strs) if history_strs else 0})")
+    # The history blob is binary, so read it through a non-decoding client on r's server/db
+    raw = redis.Redis(connection_pool=redis.ConnectionPool(
+        **{**r.connection_pool.connection_kwargs, "decode_responses": False}))
+    history = decode_history(raw.get(f"{HISTORY_KEY_PREFIX}{kw}"))
+    if len(history) < 2:
+        print(f"  not enough history (n={len(history)})")
         return
     
-    history = [int(x) for x in history_strs]
     current = history[0]
     baseline = history[1:]
     
@@ -1,11 +1,16 @@
 package com.pulse.processing;
 
+import com.pulse.shard.TrendShards;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@Import(TrendShards.class)
 @EnableKafka
+@EnableScheduling
 public class PulseProcessingApplication {
   public static void main(String[] args) {
     SpringApplication.run(PulseProcessingApplication.class, args);
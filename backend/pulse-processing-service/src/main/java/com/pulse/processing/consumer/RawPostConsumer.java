@@ -31,8 +31,13 @@ public class RawPostConsumer {
       @Header(name = KafkaHeaders.OFFSET, required = false) Long offset) {
     
     String text = record.get("text") == null ? "" : record.get("text").toString();
-    processor.handleMessage(text);
+    Object ts = record.get("timestamp");
+    processor.handleMessage(stringOf(record.get("id")), stringOf(record.get("source")), text, ts instanceof Long l ? l : 0L);
     
     log.debug("Processed message from partition={} offset={}", partition, offset);
   }
+
+  private static String stringOf(Object value) {
+    return value == null ? null : value.toString();
+  }
 }
\ No newline at end of file
@@ -117,7 +117,14 @@ public class RedisStreamConsumer {
                     if (textNode == null || textNode.isNull()) return;
                     String text = textNode.asText("");
                     if (!text.isEmpty()) {
-                        processor.handleMessage(text);
+                        JsonNode ts = node.get("timestamp");
+                        JsonNode id = node.get("id");
+                        JsonNode source = node.get("source");
+                        processor.handleMessage(
+                            id != null && !id.isNull() ? id.asText() : message.getId().getValue(),
+                            source != null && !source.isNull() ? source.asText() : null,
+                            text,
+                            ts != null && ts.canConvertToLong() ? ts.asLong() : 0L);
                         messagesConsumed.increment();
                         if (log.isDebugEnabled()) {
                             log.debug("Consumed stream record id={} textLen={}", message.getId(), text.length());
@@ -0,0 +1,154 @@
+package com.pulse.processing.service;
+
+import com.pulse.shard.TrendShards;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.DefaultStringTuple;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coalesces keyword activity in memory and flushes it in one pipeline per interval.
+ *
+ * Per flush, every keyword seen since the last flush gets a single ZADD into its shard of the
+ * lastSeen ZSET (still used by the anomaly service's candidate scan) and a single PFADD into the
+ * per-minute HyperLogLog bucket it was seen in. Active-keyword counts for any window are PFCOUNT
+ * over the union of the window's buckets, so nothing has to ZCOUNT the vocabulary-sized ZSET.
+ * The summary hash's post and mention totals are accumulated here too and applied with one
+ * HINCRBY each per flush, so the hash is not a per-post hot key.
+ */
+@Component
+@Profile("!embedded-store")
+public class ActivityBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityBuffer.class);
+
+    private final StringRedisTemplate redis;
+    private final ProcessingMetrics metrics;
+    private final TrendShards shards;
+    // Writers share the read side; the flush takes the write side only for the map swap
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    // token -> last seen (epoch seconds); minute bucket -> tokens seen in it
+    private volatile ConcurrentHashMap<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<Long, Set<String>> minuteBuckets = new ConcurrentHashMap<>();
+    private volatile LongAdder posts = new LongAdder();
+    private volatile LongAdder mentions = new LongAdder();
+
+    @Value("${pulse.trends.activity-zset-key:trends:lastSeen}")
+    private String activityZsetKey;
+
+    @Value("${pulse.summary.key:pulse:summary}")
+    private String summaryKey;
+
+    @Value("${pulse.summary.active-hll-prefix:pulse:summary:{active}:m:}")
+    private String activeHllPrefix;
+
+    @Value("${pulse.summary.active-retention-minutes:1440}")  // widest answerable window
+    private long retentionMinutes;
+
+    public ActivityBuffer(StringRedisTemplate redis, ProcessingMetrics metrics, TrendShards shards) {
+        this.redis = redis;
+        this.metrics = metrics;
+        this.shards = shards;
+    }
+
+    // One processed post and the tokens it counted toward trends
+    public void record(Collection<String> tokens, long epochSecond) {
+        long minute = epochSecond / 60;
+        swapLock.readLock().lock();
+        try {
+            posts.increment();
+            if (tokens.isEmpty()) return;
+            mentions.add(tokens.size());
+            Set<String> bucket = minuteBuckets.computeIfAbsent(minute, m -> ConcurrentHashMap.newKeySet());
+            for (String token : tokens) {
+                lastSeen.merge(token, epochSecond, Math::max);
+                bucket.add(token);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pulse.summary.flush-interval-ms:1000}")
+    public void flush() {
+        // Swap first so writers continue into fresh maps while we drain the old ones
+        Map<String, Long> seen;
+        Map<Long, Set<String>> buckets;
+        long postCount;
+        long mentionCount;
+        swapLock.writeLock().lock();
+        try {
+            seen = lastSeen;
+            buckets = minuteBuckets;
+            postCount = posts.sum();
+            mentionCount = mentions.sum();
+            if (postCount == 0 && seen.isEmpty() && buckets.isEmpty()) return;
+            lastSeen = new ConcurrentHashMap<>();
+            minuteBuckets = new ConcurrentHashMap<>();
+            posts = new LongAdder();
+            mentions = new LongAdder();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        long ttlSeconds = (retentionMinutes + 1) * 60;
+        long start = System.nanoTime();
+        try {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                if (!seen.isEmpty()) {
+                    List<Set<StringRedisConnection.StringTuple>> byShard = new ArrayList<>(shards.count());
+                    for (int i = 0; i < shards.count(); i++) byShard.add(new HashSet<>());
+                    for (Map.Entry<String, Long> e : seen.entrySet()) {
+                        byShard.get(shards.shardOf(e.getKey())).add(new DefaultStringTuple(e.getKey(), e.getValue()));
+                    }
+                    for (int i = 0; i < shards.count(); i++) {
+                        if (!byShard.get(i).isEmpty()) conn.zAdd(shards.key(activityZsetKey, i), byShard.get(i));
+                    }
+                }
+                if (postCount > 0) conn.hIncrBy(summaryKey, "posts_total", postCount);
+                if (mentionCount > 0) conn.hIncrBy(summaryKey, "mentions_total", mentionCount);
+                for (Map.Entry<Long, Set<String>> e : buckets.entrySet()) {
+                    if (e.getValue().isEmpty()) continue;
+                    String key = activeHllPrefix + e.getKey();
+                    conn.pfAdd(key, e.getValue().toArray(new String[0]));
+                    conn.expire(key, ttlSeconds);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Best effort: the next flush carries fresh activity; a missed interval only dents the KPI
+            log.warn("Activity flush failed ({} keywords): {}", seen.size(), e.getMessage());
+            // Counters are cheap to carry over; the next flush retries them
+            posts.add(postCount);
+            mentions.add(mentionCount);
+        } finally {
+            metrics.activityFlushTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,342 @@
+package com.pulse.processing.service;
+
+import com.pulse.shard.TrendShards;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.DefaultStringTuple;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Decayed co-occurrence counts between hot keywords, published as "related trends".
+ *
+ * Only the current top {@code hot-tokens} of trends:global are tracked, and at most
+ * {@code max-hot-per-post} of them per post, so a post costs at most k(k+1)/2 counter updates no
+ * matter how long it is. Counts live in {@code stripes} fixed-size primitive maps (PairCounts,
+ * each behind its own lock) holding at most {@code max-pairs} entries in total; new pairs past
+ * that are dropped and counted. A pair (a, a) holds a's own post count.
+ *
+ * Every {@code publish-interval-ms} the hot set is re-read and fresh maps are swapped in; posts
+ * keep recording into them while the old counts decay by the elapsed half-lives and are re-indexed
+ * in stripe by stripe (pairs that fell below {@code min-count} or left the hot set are dropped).
+ * Each of the top {@code publish-keywords} then gets its {@code top-k} neighbours by cosine
+ * similarity (co / sqrt(count a x count b)) written to the ZSET {@code trends:related:<keyword>},
+ * which the API returns with the keyword detail.
+ */
+@Component
+@Profile("!embedded-store")
+public class CooccurrenceTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(CooccurrenceTracker.class);
+
+    private final StringRedisTemplate redis;
+    private final ProcessingMetrics metrics;
+    private final TrendShards shards;
+    // Posts share the read side; a rebuild takes the write side only to swap in the new state
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final LongAdder dropped = new LongAdder();
+    private volatile State state;
+    private long lastDecayNanos = System.nanoTime();
+
+    @Value("${pulse.cooccurrence.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${pulse.trends.zset-key:trends:global}")
+    private String globalKey = "trends:global";
+
+    @Value("${pulse.cooccurrence.key-prefix:trends:related:}")
+    private String keyPrefix = "trends:related:";
+
+    @Value("${pulse.cooccurrence.hot-tokens:2000}")
+    private int hotTokens = 2000;
+
+    @Value("${pulse.cooccurrence.max-hot-per-post:16}")
+    private int maxHotPerPost = 16;
+
+    @Value("${pulse.cooccurrence.max-pairs:262144}")
+    private int maxPairs = 262144;
+
+    @Value("${pulse.cooccurrence.stripes:16}")              // power of two
+    private int stripes = 16;
+
+    @Value("${pulse.cooccurrence.half-life-seconds:900}")
+    private long halfLifeSeconds = 900;
+
+    @Value("${pulse.cooccurrence.min-count:0.5}")           // decayed pairs below this are dropped
+    private float minCount = 0.5f;
+
+    @Value("${pulse.cooccurrence.min-cooccurrences:3}")     // (decayed) co-occurrences before a pair is published
+    private float minCooccurrences = 3f;
+
+    @Value("${pulse.cooccurrence.top-k:10}")
+    private int topK = 10;
+
+    @Value("${pulse.cooccurrence.publish-keywords:200}")
+    private int publishKeywords = 200;
+
+    @Value("${pulse.cooccurrence.publish-interval-ms:30000}")
+    private long publishIntervalMs = 30000;
+
+    public CooccurrenceTracker(StringRedisTemplate redis, ProcessingMetrics metrics, TrendShards shards) {
+        this.redis = redis;
+        this.metrics = metrics;
+        this.shards = shards;
+    }
+
+    // Hot tokens by trend rank (index = rank) and their pair counts
+    private record State(String[] tokens, Map<String, Integer> index, PairCounts[] counts) {}
+
+    @PostConstruct
+    void init() {
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes));
+        this.state = newState(new String[0]);
+        metrics.bindCooccurrence(this);
+        log.info("Co-occurrence tracker: enabled={} hotTokens={} maxPairs={} (~{} KiB)",
+                enabled, hotTokens, maxPairs, memoryBytes() / 1024);
+    }
+
+    private State newState(String[] tokens) {
+        Map<String, Integer> index = new HashMap<>(tokens.length * 2);
+        for (int i = 0; i < tokens.length; i++) index.put(tokens[i], i);
+        PairCounts[] counts = new PairCounts[stripes];
+        for (int i = 0; i < stripes; i++) counts[i] = new PairCounts(Math.max(1, maxPairs / stripes));
+        return new State(tokens, index, counts);
+    }
+
+    // One processed post's distinct tokens
+    public void record(Collection<String> tokens) {
+        if (!enabled || tokens.isEmpty()) return;
+        rebuildLock.readLock().lock();
+        try {
+            State s = state;
+            if (s.tokens().length == 0) return;
+            // Keep the best-ranked hot tokens (lowest index), not whichever the set iterates first
+            int[] hot = new int[tokens.size()];
+            int n = 0;
+            for (String token : tokens) {
+                Integer i = s.index().get(token);
+                if (i != null) hot[n++] = i;
+            }
+            if (n == 0) return;
+            Arrays.sort(hot, 0, n);
+            n = Math.min(n, maxHotPerPost);
+            for (int i = 0; i < n; i++) {
+                for (int j = i; j < n; j++) {
+                    add(s.counts(), PairCounts.key(hot[i], hot[j]), 1f);
+                }
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private boolean add(PairCounts[] counts, long key, float delta) {
+        PairCounts stripe = counts[stripeOf(key)];
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.add(key, delta);
+        }
+        if (!added) dropped.increment();
+        return added;
+    }
+
+    private int stripeOf(long key) {
+        int h = (int) (key ^ (key >>> 32));
+        return (h ^ (h >>> 16)) & (stripes - 1);
+    }
+
+    @Scheduled(initialDelay = 5000, fixedDelayString = "${pulse.cooccurrence.publish-interval-ms:30000}")
+    public void publish() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        try {
+            String[] hot = loadHotTokens();
+            Snapshot snapshot = rebuild(hot != null ? hot : state.tokens());
+            write(snapshot);
+        } catch (Exception e) {
+            log.warn("Co-occurrence publish failed: {}", e.getMessage());
+        } finally {
+            metrics.recordCooccurrencePublish(System.nanoTime() - start, dropped.sumThenReset());
+        }
+    }
+
+    /** Replaces the hot set (index = rank) and decays and re-indexes the counts; visible for benchmarks. */
+    public void updateHotTokens(List<String> tokens) {
+        rebuild(tokens.toArray(new String[0]));
+    }
+
+    // Surviving pairs in the new index, for computing neighbours outside the lock
+    private record Snapshot(String[] tokens, long[] keys, float[] values, int size) {}
+
+    // Serialized by the monitor; posts only wait for the brief state swap, not the re-index
+    private synchronized Snapshot rebuild(String[] tokens) {
+        State next = newState(tokens);
+        State prev;
+        long now = System.nanoTime();
+        rebuildLock.writeLock().lock();
+        try {
+            // Once no post holds the read side, none can still be writing to prev
+            prev = state;
+            state = next;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        double halfLives = (now - lastDecayNanos) / 1e9 / Math.max(1, halfLifeSeconds);
+        float factor = (float) Math.pow(0.5, halfLives);
+        lastDecayNanos = now;
+
+        // Decay prev into next, which is already taking new posts, through the striped add
+        int[] remap = new int[prev.tokens().length];
+        for (int i = 0; i < remap.length; i++) remap[i] = next.index().getOrDefault(prev.tokens()[i], -1);
+        for (PairCounts stripe : prev.counts()) {
+            stripe.forEach((key, value) -> {
+                float v = value * factor;
+                if (v < minCount) return;
+                int a = remap[PairCounts.first(key)];
+                int b = remap[PairCounts.second(key)];
+                if (a < 0 || b < 0) return;
+                // Stripe limits differ from the old layout, so a full stripe can still refuse a pair
+                add(next.counts(), a <= b ? PairCounts.key(a, b) : PairCounts.key(b, a), v);
+            });
+        }
+
+        // Merged counts, copied one stripe at a time; stripe limits sum to at most maxPairs
+        long[] keys = new long[maxPairs];
+        float[] values = new float[maxPairs];
+        int[] size = new int[1];
+        for (PairCounts stripe : next.counts()) {
+            synchronized (stripe) {
+                stripe.forEach((key, value) -> {
+                    keys[size[0]] = key;
+                    values[size[0]++] = value;
+                });
+            }
+        }
+        return new Snapshot(tokens, keys, values, size[0]);
+    }
+
+    private record Neighbour(int token, double score) {}
+
+    private void write(Snapshot s) {
+        int published = Math.min(publishKeywords, s.tokens().length);
+        if (published == 0) return;
+
+        float[] own = new float[s.tokens().length];
+        for (int i = 0; i < s.size(); i++) {
+            long k = s.keys()[i];
+            if (PairCounts.first(k) == PairCounts.second(k)) own[PairCounts.first(k)] = s.values()[i];
+        }
+
+        // Per published keyword, a min-heap of its best topK neighbours
+        List<PriorityQueue<Neighbour>> best = new ArrayList<>(published);
+        for (int i = 0; i < published; i++) best.add(new PriorityQueue<>(Comparator.comparingDouble(Neighbour::score)));
+        for (int i = 0; i < s.size(); i++) {
+            long k = s.keys()[i];
+            int a = PairCounts.first(k);
+            int b = PairCounts.second(k);
+            float co = s.values()[i];
+            if (a == b || co < minCooccurrences || own[a] <= 0 || own[b] <= 0) continue;
+            double score = co / Math.sqrt((double) own[a] * own[b]);
+            if (a < published) offer(best.get(a), new Neighbour(b, score));
+            if (b < published) offer(best.get(b), new Neighbour(a, score));
+        }
+
+        long ttlSeconds = Math.max(60, 3 * publishIntervalMs / 1000);
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (int i = 0; i < published; i++) {
+                String key = keyPrefix + s.tokens()[i];
+                conn.del(key);
+                if (best.get(i).isEmpty()) continue;
+                Set<StringRedisConnection.StringTuple> tuples = new HashSet<>();
+                for (Neighbour n : best.get(i)) tuples.add(new DefaultStringTuple(s.tokens()[n.token()], n.score()));
+                conn.zAdd(key, tuples);
+                conn.expire(key, ttlSeconds);
+            }
+            return null;
+        });
+    }
+
+    private void offer(PriorityQueue<Neighbour> heap, Neighbour n) {
+        if (heap.size() < topK) {
+            heap.add(n);
+        } else if (heap.peek().score() < n.score()) {
+            heap.poll();
+            heap.add(n);
+        }
+    }
+
+    // Top hotTokens members of trends:global across shards, highest score first; null if Redis failed
+    private String[] loadHotTokens() {
+        String[] keys = shards.keys(globalKey);
+        List<Object> r;
+        try {
+            r = redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String key : keys) conn.zRevRangeWithScores(key, 0, hotTokens - 1);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not read hot tokens: {}", e.getMessage());
+            return null;
+        }
+        List<ZSetOperations.TypedTuple<String>> all = new ArrayList<>();
+        for (Object o : r) {
+            if (!(o instanceof Collection<?> c)) continue;
+            for (Object t : c) {
+                if (t instanceof ZSetOperations.TypedTuple<?> tuple && tuple.getValue() instanceof String) {
+                    @SuppressWarnings("unchecked")
+                    ZSetOperations.TypedTuple<String> typed = (ZSetOperations.TypedTuple<String>) tuple;
+                    all.add(typed);
+                }
+            }
+        }
+        all.sort(Comparator.comparingDouble((ZSetOperations.TypedTuple<String> t) -> t.getScore() == null ? 0.0 : t.getScore()).reversed());
+        int n = Math.min(hotTokens, all.size());
+        String[] out = new String[n];
+        for (int i = 0; i < n; i++) out[i] = all.get(i).getValue();
+        return out;
+    }
+
+    public int pairs() {
+        int n = 0;
+        for (PairCounts c : state.counts()) {
+            synchronized (c) {
+                n += c.size();
+            }
+        }
+        return n;
+    }
+
+    public int hotTokenCount() {
+        return state.tokens().length;
+    }
+
+    // Two live generations of the pair tables exist only briefly during a rebuild
+    public long memoryBytes() {
+        long slots = 0;
+        for (PairCounts c : state.counts()) slots += c.capacity();
+        return slots * (Long.BYTES + Float.BYTES);
+    }
+}
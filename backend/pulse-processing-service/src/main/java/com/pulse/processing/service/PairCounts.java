@@ -0,0 +1,85 @@
+package com.pulse.processing.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity open-addressing map from a packed token-index pair to a float count, for
+ * CooccurrenceTracker. Two primitive arrays (12 bytes per slot) sized once up front; an insert
+ * past {@code limit} entries is refused rather than growing, so memory never exceeds the
+ * configured bound. Not thread-safe: the tracker guards each instance with its own lock.
+ */
+final class PairCounts {
+
+    private static final long EMPTY = -1L;
+
+    private final long[] keys;
+    private final float[] values;
+    private final int mask;
+    private final int shift;
+    private final int limit;
+    private int size;
+
+    // limit entries at a load factor of at most 0.7
+    PairCounts(int limit) {
+        this.limit = Math.max(1, limit);
+        int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(this.limit / 0.7)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new float[capacity];
+        this.mask = capacity - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        Arrays.fill(keys, EMPTY);
+    }
+
+    static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int second(long key) {
+        return (int) key;
+    }
+
+    /** Adds delta to the pair's count; false if the pair is new and the map is full. */
+    boolean add(long key, float delta) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] += delta;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= limit) return false;
+        keys[i] = key;
+        values[i] = delta;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, float value);
+    }
+
+    // Fibonacci hashing: the top bits of the product spread the packed indices over the table
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
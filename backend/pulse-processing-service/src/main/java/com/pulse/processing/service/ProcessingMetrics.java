@@ -0,0 +1,219 @@
+package com.pulse.processing.service;
+
+import com.pulse.processing.text.TokenDictionary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters for the per-post hot path, all registered once up front so recording is a field access.
+ *
+ * Stage timers and the end-to-end latency are recorded for one in {@code sample-every} posts
+ * (a random draw, so concurrent consumers don't contend on a shared counter); the counters and
+ * per-post summaries are cheap and recorded for every post.
+ */
+@Component
+public class ProcessingMetrics {
+
+    public static final String STAGE_TOKENIZE = "tokenize";
+    public static final String STAGE_DF_UPDATE = "df_update";
+    public static final String STAGE_TREND_UPDATE = "trend_update";
+    public static final String STAGE_ACTIVITY_UPDATE = "activity_update";
+
+    private final MeterRegistry registry;
+
+    private final Timer tokenize;
+    private final Timer dfUpdate;
+    private final Timer trendUpdate;
+    private final Timer activityUpdate;
+    private final Timer endToEnd;
+    private final Timer maintenance;
+    private final Timer activityFlush;
+    private final Timer compaction;
+    private final Timer activityTrim;
+    private final Timer postIndexFlush;
+    private final Timer cooccurrencePublish;
+
+    private final DistributionSummary tokensPerPost;
+    private final DistributionSummary redisCommandsPerPost;
+    private final Counter redisCommands;
+    private final Counter dfCandidates;
+    private final Counter dfSuppressed;
+    private final Counter compactionDecayed;
+    private final Counter compactionEvicted;
+    private final Counter activityTrimmed;
+    private final Counter activityTrimChunks;
+    private final Counter activityTrimCleaned;
+    private final Counter postsIndexed;
+    private final Counter postsDropped;
+    private final Counter cooccurrenceDropped;
+    private final AtomicLong activityTrimBacklog = new AtomicLong();
+    private final AtomicLong compactionOverCap = new AtomicLong();
+
+    @Value("${pulse.processing.metrics.sample-every:8}")     // 1 = time every post
+    private int sampleEvery = 8;
+
+    public ProcessingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.tokenize = stageTimer(STAGE_TOKENIZE);
+        this.dfUpdate = stageTimer(STAGE_DF_UPDATE);
+        this.trendUpdate = stageTimer(STAGE_TREND_UPDATE);
+        this.activityUpdate = stageTimer(STAGE_ACTIVITY_UPDATE);
+        this.endToEnd = Timer.builder("pulse_processing_end_to_end_seconds")
+                .description("Post timestamp to trend update (sampled)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry);
+        this.maintenance = Timer.builder("pulse_processing_maintenance_seconds")
+                .description("Duration of the periodic lastSeen trim and keyword count")
+                .register(registry);
+        this.activityFlush = Timer.builder("pulse_processing_activity_flush_seconds")
+                .description("Duration of the batched lastSeen ZADD + HyperLogLog PFADD flush")
+                .register(registry);
+        this.compaction = Timer.builder("pulse_processing_compaction_seconds")
+                .description("Duration of one decay compaction pass over trends:global")
+                .register(registry);
+        this.activityTrim = Timer.builder("pulse_processing_activity_trim_seconds")
+                .description("Duration of one chunked trim pass over trends:lastSeen")
+                .register(registry);
+        this.postIndexFlush = Timer.builder("pulse_processing_post_index_flush_seconds")
+                .description("Duration of the batched recent-posts index flush")
+                .register(registry);
+        this.cooccurrencePublish = Timer.builder("pulse_processing_cooccurrence_publish_seconds")
+                .description("Duration of one co-occurrence decay, re-index and related-keywords publish")
+                .register(registry);
+        this.tokensPerPost = DistributionSummary.builder("pulse_processing_tokens_per_post")
+                .description("Distinct tokens per processed post")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1024.0)
+                .register(registry);
+        this.redisCommandsPerPost = DistributionSummary.builder("pulse_processing_redis_commands_per_post")
+                .description("Redis commands issued by handleMessage per post")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(4096.0)
+                .register(registry);
+        this.redisCommands = registry.counter("pulse_processing_redis_commands_total");
+        this.dfCandidates = registry.counter("pulse_processing_df_candidates_total");
+        this.dfSuppressed = registry.counter("pulse_processing_df_suppressed_total");
+        this.compactionDecayed = registry.counter("pulse_processing_compaction_decayed_total");
+        this.compactionEvicted = registry.counter("pulse_processing_compaction_evicted_total");
+        this.activityTrimmed = registry.counter("pulse_processing_activity_trimmed_total");
+        this.activityTrimChunks = registry.counter("pulse_processing_activity_trim_chunks_total");
+        this.activityTrimCleaned = registry.counter("pulse_processing_activity_trim_cleaned_keys_total");
+        this.postsIndexed = registry.counter("pulse_processing_posts_indexed_total");
+        this.postsDropped = registry.counter("pulse_processing_posts_index_dropped_total");
+        this.cooccurrenceDropped = registry.counter("pulse_processing_cooccurrence_dropped_pairs_total");
+        Gauge.builder("pulse_processing_activity_trim_backlog", activityTrimBacklog, AtomicLong::get)
+                .description("lastSeen members past retention left after the last trim pass")
+                .register(registry);
+        Gauge.builder("pulse_processing_compaction_over_cap", compactionOverCap, AtomicLong::get)
+                .description("trends:global members above max-tokens after the last compaction pass (active keywords)")
+                .register(registry);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("pulse_processing_stage_seconds")
+                .description("Time spent in each handleMessage stage (sampled)")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(registry);
+    }
+
+    // Dictionary occupancy and churn, read lazily at scrape time
+    public void bindDictionary(TokenDictionary dictionary) {
+        Gauge.builder("pulse_processing_dictionary_size", dictionary, TokenDictionary::size).register(registry);
+        Gauge.builder("pulse_processing_dictionary_capacity", dictionary, TokenDictionary::capacity).register(registry);
+        Gauge.builder("pulse_processing_dictionary_evictions", dictionary, TokenDictionary::evictions).register(registry);
+    }
+
+    // Co-occurrence table occupancy and its fixed memory bound, read lazily at scrape time
+    public void bindCooccurrence(CooccurrenceTracker tracker) {
+        Gauge.builder("pulse_processing_cooccurrence_pairs", tracker, CooccurrenceTracker::pairs).register(registry);
+        Gauge.builder("pulse_processing_cooccurrence_hot_tokens", tracker, CooccurrenceTracker::hotTokenCount).register(registry);
+        Gauge.builder("pulse_processing_cooccurrence_bytes", tracker, CooccurrenceTracker::memoryBytes).register(registry);
+    }
+
+    public boolean sample() {
+        return sampleEvery <= 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0;
+    }
+
+    public void recordStages(long tokenizeNanos, long dfNanos, long trendNanos, long activityNanos) {
+        tokenize.record(tokenizeNanos, TimeUnit.NANOSECONDS);
+        dfUpdate.record(dfNanos, TimeUnit.NANOSECONDS);
+        trendUpdate.record(trendNanos, TimeUnit.NANOSECONDS);
+        activityUpdate.record(activityNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Posts without a timestamp (or stamped in the future by a skewed clock) are skipped
+    public void recordEndToEnd(long postTimestampMs, long nowMs) {
+        if (postTimestampMs <= 0 || nowMs < postTimestampMs) return;
+        endToEnd.record(nowMs - postTimestampMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordPost(int distinctTokens, int commands, int suppressed) {
+        tokensPerPost.record(distinctTokens);
+        redisCommandsPerPost.record(commands);
+        redisCommands.increment(commands);
+        dfCandidates.increment(distinctTokens);
+        if (suppressed > 0) dfSuppressed.increment(suppressed);
+    }
+
+    public Timer maintenanceTimer() {
+        return maintenance;
+    }
+
+    public Timer activityFlushTimer() {
+        return activityFlush;
+    }
+
+    public Timer compactionTimer() {
+        return compaction;
+    }
+
+    public Timer activityTrimTimer() {
+        return activityTrim;
+    }
+
+    public Timer postIndexFlushTimer() {
+        return postIndexFlush;
+    }
+
+    // Posts written to the recent-posts index, and posts skipped because a flush buffer was full
+    public void recordPostIndex(long indexed, long dropped) {
+        postsIndexed.increment(indexed);
+        if (dropped > 0) postsDropped.increment(dropped);
+    }
+
+    // New pairs refused because the table was full, since the previous publish
+    public void recordCooccurrencePublish(long nanos, long droppedPairs) {
+        cooccurrencePublish.record(nanos, TimeUnit.NANOSECONDS);
+        if (droppedPairs > 0) cooccurrenceDropped.increment(droppedPairs);
+    }
+
+    public void recordActivityTrim(long chunks, long removed, long cleanedKeys, long backlog) {
+        activityTrimChunks.increment(chunks);
+        activityTrimmed.increment(removed);
+        activityTrimCleaned.increment(cleanedKeys);
+        activityTrimBacklog.set(backlog);
+    }
+
+    public void recordCompaction(long decayed, long evicted, long overCap) {
+        compactionDecayed.increment(decayed);
+        compactionEvicted.increment(evicted);
+        compactionOverCap.set(overCap);
+    }
+}
@@ -0,0 +1,210 @@
+package com.pulse.processing.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded inverted index of recent posts, read by the API's keyword detail (related posts).
+ *
+ * Post bodies live in a fixed ring of {@code capacity} slots ({@code posts:slot:<seq % capacity>},
+ * value {@code seq \t timestampMs \t source \t id \t text}), so the index never holds more than
+ * {@code capacity} posts however fast they arrive. Each token keeps a list of the sequence numbers
+ * of its newest {@code ring-size} posts ({@code posts:kw:<token>}, newest first). A reader takes
+ * LRANGE on the token's list and GETs the slots, skipping any whose sequence no longer matches
+ * (overwritten by a newer post). Slots and token lists expire after {@code max-age-seconds}.
+ *
+ * Like ActivityBuffer, posts are buffered in memory and written in one pipeline per interval: one
+ * SETEX per post still referenced after each token's ring is trimmed, and one LPUSH + LTRIM +
+ * EXPIRE per token seen in the interval.
+ */
+@Component
+@Profile("!embedded-store")
+public class RecentPostIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RecentPostIndex.class);
+
+    private final StringRedisTemplate redis;
+    private final ProcessingMetrics metrics;
+    private final boolean enabled;
+    private final String keyPrefix;
+    private final int capacity;
+    private final int ringSize;
+    private final long maxAgeSeconds;
+    private final int maxTextChars;
+    private final int maxBuffered;
+    // Writers share the read side; the flush takes the write side only for the buffer swap
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Pending pending;
+
+    public RecentPostIndex(StringRedisTemplate redis, ProcessingMetrics metrics,
+                           @Value("${pulse.posts.enabled:true}") boolean enabled,
+                           @Value("${pulse.posts.key-prefix:posts:}") String keyPrefix,
+                           @Value("${pulse.posts.capacity:100000}") int capacity,
+                           @Value("${pulse.posts.ring-size:20}") int ringSize,
+                           @Value("${pulse.posts.max-age-seconds:3600}") long maxAgeSeconds,
+                           @Value("${pulse.posts.max-text-chars:500}") int maxTextChars,
+                           @Value("${pulse.posts.max-buffered:20000}") int maxBuffered) {
+        this.redis = redis;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.keyPrefix = keyPrefix;
+        this.capacity = Math.max(1, capacity);
+        this.ringSize = Math.max(1, ringSize);
+        this.maxAgeSeconds = Math.max(1, maxAgeSeconds);
+        this.maxTextChars = Math.max(1, maxTextChars);
+        this.maxBuffered = Math.max(1, maxBuffered);
+        this.pending = new Pending(this.maxBuffered, this.ringSize);
+    }
+
+    private record Post(String id, String source, long timestampMs, String text) {}
+
+    // Buffer-local indices of a token's newest posts in the current interval
+    private static final class Ring {
+        private final int[] slots;
+        private int added;
+
+        Ring(int size) {
+            this.slots = new int[size];
+        }
+
+        synchronized void add(int index) {
+            slots[added++ % slots.length] = index;
+        }
+
+        // Oldest first, so an LPUSH of the result leaves the newest at the head
+        synchronized int[] retained() {
+            int n = Math.min(added, slots.length);
+            int[] out = new int[n];
+            for (int i = 0; i < n; i++) out[i] = slots[(added - n + i) % slots.length];
+            return out;
+        }
+    }
+
+    private static final class Pending {
+        final AtomicReferenceArray<Post> posts;
+        final AtomicInteger next = new AtomicInteger();
+        final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+        final int ringSize;
+
+        Pending(int maxBuffered, int ringSize) {
+            this.posts = new AtomicReferenceArray<>(maxBuffered);
+            this.ringSize = ringSize;
+        }
+    }
+
+    // One processed post and its distinct tokens; id and source may be null
+    public void record(String id, String source, long timestampMs, String text, Collection<String> tokens) {
+        if (!enabled || tokens.isEmpty()) return;
+        String body = text.length() > maxTextChars ? text.substring(0, maxTextChars) : text;
+        swapLock.readLock().lock();
+        try {
+            Pending p = pending;
+            int index = p.next.getAndIncrement();
+            // Full buffer: the post is counted as dropped at the next flush
+            if (index >= p.posts.length()) return;
+            p.posts.set(index, new Post(id, source, timestampMs, body));
+            for (String token : tokens) {
+                p.rings.computeIfAbsent(token, t -> new Ring(p.ringSize)).add(index);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pulse.posts.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) return;
+        Pending p;
+        swapLock.writeLock().lock();
+        try {
+            p = pending;
+            if (p.next.get() == 0) return;
+            pending = new Pending(maxBuffered, ringSize);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        int buffered = Math.min(p.next.get(), p.posts.length());
+        long dropped = p.next.get() - buffered;
+
+        // Only posts that survived some token's ring trim are written
+        List<Map.Entry<String, int[]>> rings = new ArrayList<>(p.rings.size());
+        boolean[] used = new boolean[buffered];
+        for (Map.Entry<String, Ring> e : p.rings.entrySet()) {
+            int[] retained = e.getValue().retained();
+            for (int index : retained) used[index] = true;
+            rings.add(Map.entry(e.getKey(), retained));
+        }
+        int written = 0;
+        for (boolean u : used) if (u) written++;
+        if (written == 0) return;
+
+        long start = System.nanoTime();
+        try {
+            // Reserve a contiguous sequence range for this flush's posts, in arrival order
+            Long last = redis.opsForValue().increment(keyPrefix + "seq", written);
+            long seq = (last == null ? written : last) - written + 1;
+            long[] seqs = new long[buffered];
+            for (int i = 0; i < buffered; i++) {
+                if (used[i]) seqs[i] = seq++;
+            }
+
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (int i = 0; i < buffered; i++) {
+                    if (!used[i]) continue;
+                    conn.setEx(keyPrefix + "slot:" + (seqs[i] % capacity), maxAgeSeconds, encode(seqs[i], p.posts.get(i)));
+                }
+                for (Map.Entry<String, int[]> e : rings) {
+                    int[] retained = e.getValue();
+                    String[] members = new String[retained.length];
+                    for (int i = 0; i < retained.length; i++) members[i] = Long.toString(seqs[retained[i]]);
+                    String key = keyPrefix + "kw:" + e.getKey();
+                    conn.lPush(key, members);
+                    conn.lTrim(key, 0, ringSize - 1);
+                    conn.expire(key, maxAgeSeconds);
+                }
+                return null;
+            });
+            metrics.recordPostIndex(written, dropped);
+        } catch (Exception e) {
+            // Best effort: related posts are a convenience, the next interval indexes fresh ones
+            log.warn("Recent-posts flush failed ({} posts, {} tokens): {}", written, rings.size(), e.getMessage());
+        } finally {
+            metrics.postIndexFlushTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String encode(long seq, Post post) {
+        return seq + "\t" + post.timestampMs() + "\t" + field(post.source()) + "\t" + field(post.id()) + "\t" + post.text();
+    }
+
+    // Text is the last field, so only the others have to be kept free of tabs
+    private static String field(String value) {
+        return value == null ? "" : value.replace('\t', ' ');
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,229 @@
+package com.pulse.processing.store;
+
+import com.pulse.processing.service.ProcessingMetrics;
+import com.pulse.shard.TrendShards;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The single trimmer for trends:lastSeen, replacing the unbounded ZREMRANGEBYSCORE that every
+ * processing and anomaly instance used to issue on its own.
+ *
+ * One instance at a time (SET NX lock) removes members older than the retention in chunks of
+ * {@code chunk-size}: each chunk is one Lua call on one shard key (ZRANGEBYSCORE ... LIMIT +
+ * ZREM, so it stays cluster-safe and short), followed by one pipelined cleanup of the evicted
+ * keywords' per-keyword keys. Chunks are paced by {@code pause-ms} and a pass stops after
+ * {@code max-per-run} members; the remainder is reported as backlog and picked up next run, so
+ * catching up after an outage never turns into one long blocking command. Passes run on their own
+ * thread, like TrendCompactor's, so a paced pass never holds the shared scheduler thread.
+ *
+ * Cleanup deletes the history blob (and the legacy history list and last_counts field). The DF
+ * counter is deleted only while the token is below the suppression ratio: a token missing from
+ * lastSeen may simply be too common to be counted, and dropping its DF would un-suppress it.
+ */
+@Component
+@Profile("!embedded-store")
+public class ActivityTrimmer {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityTrimmer.class);
+
+    private static final String DOCS_TOTAL_KEY = "trends:docs_total";
+    private static final String LEGACY_HISTORY_PREFIX = "trends:history:";
+    private static final String LEGACY_LAST_COUNTS_KEY = "trends:last_counts";
+
+    private final StringRedisTemplate redis;
+    private final TrendShards shards;
+    private final ProcessingMetrics metrics;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> trimScript;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("activity-trimmer").daemon().factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${pulse.trends.activity-zset-key:trends:lastSeen}")
+    private String activityZsetKey;
+
+    @Value("${pulse.trends.history-key-prefix:trends:hist:}")
+    private String historyKeyPrefix;
+
+    @Value("${pulse.processing.df-max-ratio:0.20}")
+    private double dfMaxRatio;
+
+    @Value("${pulse.maintenance.activity-trim.retention-seconds:86400}")
+    private long retentionSeconds;
+
+    @Value("${pulse.maintenance.activity-trim.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${pulse.maintenance.activity-trim.pause-ms:5}")
+    private long pauseMs;
+
+    @Value("${pulse.maintenance.activity-trim.max-per-run:100000}")
+    private long maxPerRun;
+
+    @Value("${pulse.maintenance.activity-trim.lock-key:trends:lastSeen:trim:lock}")
+    private String lockKey;
+
+    @Value("${pulse.maintenance.activity-trim.lock-ttl-ms:600000}")
+    private long lockTtlMs;
+
+    public ActivityTrimmer(StringRedisTemplate redis, TrendShards shards, ProcessingMetrics metrics) {
+        this.redis = redis;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.trimScript = new DefaultRedisScript<>();
+        this.trimScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/trim-older-than.lua")));
+        this.trimScript.setResultType(List.class);
+    }
+
+    private static final class Pass {
+        long chunks;
+        long removed;
+        long cleaned;
+    }
+
+    // Hands the pass to the trimmer thread; skipped while the previous one is still running
+    @Scheduled(fixedDelayString = "${pulse.maintenance.activity-trim.interval-ms:60000}")
+    public void schedule() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            worker.execute(() -> {
+                try {
+                    trim();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public void trim() {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redis.opsForValue().setIfAbsent(lockKey, token, Duration.ofMillis(lockTtlMs));
+            if (!Boolean.TRUE.equals(acquired)) return;
+        } catch (Exception e) {
+            log.warn("Activity trim skipped: {}", e.getMessage());
+            return;
+        }
+        try {
+            metrics.activityTrimTimer().record(this::run);
+        } finally {
+            try {
+                if (token.equals(redis.opsForValue().get(lockKey))) redis.delete(lockKey);
+            } catch (Exception ignored) {}
+        }
+    }
+
+    private void run() {
+        long cutoff = Instant.now().getEpochSecond() - retentionSeconds;
+        long maxDf = maxUnsuppressedDf();
+        Pass pass = new Pass();
+        try {
+            for (String key : shards.keys(activityZsetKey)) {
+                while (pass.removed < maxPerRun) {
+                    int limit = (int) Math.min(chunkSize, maxPerRun - pass.removed);
+                    List<String> evicted = trimChunk(key, cutoff, limit);
+                    pass.chunks++;
+                    pass.removed += evicted.size();
+                    if (!evicted.isEmpty()) pass.cleaned += cleanup(evicted, maxDf);
+                    if (evicted.size() < limit) break;
+                    if (pauseMs > 0) Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Activity trim failed after {} members: {}", pass.removed, e.getMessage());
+        }
+
+        long backlog = 0;
+        try {
+            for (String key : shards.keys(activityZsetKey)) {
+                Long n = redis.opsForZSet().count(key, Double.NEGATIVE_INFINITY, (double) cutoff);
+                if (n != null) backlog += n;
+            }
+        } catch (Exception ignored) {}
+        metrics.recordActivityTrim(pass.chunks, pass.removed, pass.cleaned, backlog);
+        if (pass.removed > 0) {
+            log.info("Activity trim: removed {} lastSeen members older than {} in {} chunks, cleaned {} keys, backlog {}",
+                pass.removed, cutoff, pass.chunks, pass.cleaned, backlog);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> trimChunk(String key, long cutoff, int limit) {
+        List<String> members = redis.execute(trimScript, List.of(key), Long.toString(cutoff), Integer.toString(limit));
+        return members == null ? List.of() : members;
+    }
+
+    // DF count above which a token is suppressed, from the (sharded) docs-total window counters
+    private long maxUnsuppressedDf() {
+        long docs = 0;
+        try {
+            List<String> totals = redis.opsForValue().multiGet(List.of(shards.keys(DOCS_TOTAL_KEY)));
+            if (totals != null) {
+                for (String t : totals) {
+                    if (t != null) docs += Long.parseLong(t);
+                }
+            }
+        } catch (Exception ignored) {}
+        return (long) Math.floor(docs * dfMaxRatio);
+    }
+
+    // Two pipelined round trips: read the DF counters, then delete what belongs to evicted keywords
+    private long cleanup(List<String> keywords, long maxDf) {
+        List<Object> dfs = redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String kw : keywords) conn.get("trends:df:" + kw);
+            return null;
+        });
+        List<Object> deleted = redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (int i = 0; i < keywords.size(); i++) {
+                String kw = keywords.get(i);
+                conn.del(historyKeyPrefix + kw);
+                conn.del(LEGACY_HISTORY_PREFIX + kw);
+                if (dfs.get(i) instanceof String df && parseLong(df) <= maxDf) conn.del("trends:df:" + kw);
+            }
+            conn.hDel(LEGACY_LAST_COUNTS_KEY, keywords.toArray(new String[0]));
+            return null;
+        });
+        long cleaned = 0;
+        for (Object o : deleted) {
+            if (o instanceof Long n) cleaned += n;
+        }
+        return cleaned;
+    }
+
+    private static long parseLong(String s) {
+        try { return Long.parseLong(s); } catch (NumberFormatException e) { return Long.MAX_VALUE; }
+    }
+}
@@ -0,0 +1,277 @@
+package com.pulse.processing.store;
+
+import com.pulse.history.HistoryCodec;
+import com.pulse.snapshot.TrendSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process TrendStore for single-node deployments: no network round trip per post.
+ *
+ * Trend counts are striped LongAdders, document frequencies and the docs total are sliding
+ * windows of time buckets (see WindowCounter), and each active keyword keeps a bounded
+ * HistoryCodec history sampled every history interval, the same samples the anomaly service
+ * records into trends:hist:* in Redis mode. The whole state is written to a memory-mapped
+ * snapshot file every snapshot interval (and on shutdown); it is reloaded on startup for crash
+ * recovery and read by the anomaly and API services running with the same profile.
+ *
+ * Maintenance removes keywords under the map's bin lock and marks them removed; a post that was
+ * updating a keyword while it was removed re-applies its update to the keyword's new entry.
+ */
+@Component
+@Profile("embedded-store")
+public class EmbeddedTrendStore implements TrendStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedTrendStore.class);
+
+    // ZREVRANGE order: count descending, ties by keyword descending
+    private static final Comparator<Keyword> RANK_ORDER = Comparator.comparingLong((Keyword k) -> k.rankedCount)
+        .reversed().thenComparing(k -> k.name, Comparator.reverseOrder());
+
+    private final ConcurrentHashMap<String, Keyword> keywords = new ConcurrentHashMap<>();
+    private final LongAdder posts = new LongAdder();
+    private final LongAdder mentions = new LongAdder();
+    private WindowCounter docs;
+
+    @Value("${pulse.processing.df-ttl-seconds:86400}")     // DF window length
+    private long dfWindowSeconds;
+
+    @Value("${pulse.processing.df-max-ratio:0.20}")
+    private double dfMaxRatio;
+
+    @Value("${pulse.embedded.df-buckets:12}")               // window resolution: 24h / 12 = 2h buckets
+    private int dfBuckets;
+
+    @Value("${pulse.maintenance.max-tokens:100000}")
+    private long maxTokens;
+
+    @Value("${pulse.maintenance.activity-ttl-seconds:604800}")
+    private long activityTtlSeconds;
+
+    @Value("${pulse.embedded.history-length:360}")
+    private int historyLength;
+
+    @Value("${pulse.embedded.history-horizon-seconds:3600}") // only keywords seen this recently are sampled
+    private long historyHorizonSeconds;
+
+    @Value("${pulse.embedded.snapshot-path:data/trend-snapshot.bin}")
+    private String snapshotPath;
+
+    @Value("${pulse.embedded.active-horizon-seconds:86400}") // API active-keyword windows are answered up to this
+    private int activeHorizonSeconds;
+
+    // Previous snapshot's order; guarded by writeSnapshot
+    private List<Keyword> ranking = new ArrayList<>();
+
+    private static final class Keyword {
+        final String name;
+        final LongAdder count = new LongAdder();
+        final WindowCounter df;
+        volatile long lastSeen;
+        volatile boolean removed;   // set under the map's bin lock as the entry is unmapped
+        byte[] history;             // guarded by this
+        boolean ranked;             // guarded by writeSnapshot
+        long rankedCount;           // count as of the snapshot being written
+
+        Keyword(String name, WindowCounter df) {
+            this.name = name;
+            this.df = df;
+        }
+    }
+
+    @PostConstruct
+    void restore() {
+        this.docs = newWindow();
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            log.info("Embedded trend store: no snapshot at {}, starting empty", path.toAbsolutePath());
+            return;
+        }
+        try {
+            TrendSnapshot snap = TrendSnapshot.open(path);
+            long at = snap.writtenAtMs() / 1000;
+            // Window counts are restored into the snapshot's bucket; they age out from there
+            docs.add(at, snap.docsInWindow());
+            posts.add(snap.postsTotal());
+            mentions.add(snap.mentionsTotal());
+            for (int i = 0; i < snap.size(); i++) {
+                TrendSnapshot.Entry e = snap.entry(i);
+                Keyword k = new Keyword(e.keyword(), newWindow());
+                k.count.add(e.count());
+                k.df.add(at, e.df());
+                k.lastSeen = e.lastSeen();
+                k.history = e.history().length > 0 ? e.history() : null;
+                k.ranked = true;
+                keywords.put(e.keyword(), k);
+                ranking.add(k);   // already in rank order
+            }
+            log.info("Embedded trend store: restored {} keywords from {} (written {})",
+                keywords.size(), path.toAbsolutePath(), Instant.ofEpochMilli(snap.writtenAtMs()));
+        } catch (Exception e) {
+            log.warn("Embedded trend store: could not read snapshot {}: {}", path.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private WindowCounter newWindow() {
+        int buckets = Math.max(1, dfBuckets);
+        return new WindowCounter(buckets, Math.max(1, dfWindowSeconds / buckets));
+    }
+
+    @Override
+    public PostResult recordPost(List<String> tokens, long epochSecond, boolean timed) {
+        long t0 = timed ? System.nanoTime() : 0L;
+
+        Set<String> distinct = new HashSet<>(tokens);
+        long totalDocs = docs.incrementAndSum(epochSecond);
+        List<Keyword> touched = new ArrayList<>(distinct.size());
+        List<Keyword> candidates = new ArrayList<>(distinct.size());
+        for (String token : distinct) {
+            Keyword k = keywords.computeIfAbsent(token, t -> new Keyword(t, newWindow()));
+            touched.add(k);
+            // If too ubiquitous in the window, skip counting toward trends
+            if (counts(k.df.incrementAndSum(epochSecond), totalDocs)) candidates.add(k);
+        }
+        long t1 = timed ? System.nanoTime() : 0L;
+
+        for (Keyword k : candidates) k.count.increment();
+        long t2 = timed ? System.nanoTime() : 0L;
+
+        for (Keyword k : candidates) {
+            if (k.lastSeen < epochSecond) k.lastSeen = epochSecond;
+        }
+        posts.increment();
+        mentions.add(candidates.size());
+        for (Keyword k : touched) {
+            if (k.removed) reapply(k.name, epochSecond, totalDocs);
+        }
+        long t3 = timed ? System.nanoTime() : 0L;
+
+        return new PostResult(distinct.size(), candidates.size(), 0, t1 - t0, t2 - t1, t3 - t2);
+    }
+
+    private boolean counts(long df, long totalDocs) {
+        return (double) df / totalDocs <= dfMaxRatio;
+    }
+
+    // Maintenance removed the keyword while this post was updating it: the update may have landed
+    // on the unmapped entry, so apply it again to the current one
+    private void reapply(String token, long epochSecond, long totalDocs) {
+        Keyword k = keywords.computeIfAbsent(token, t -> new Keyword(t, newWindow()));
+        if (!counts(k.df.incrementAndSum(epochSecond), totalDocs)) return;
+        k.count.increment();
+        if (k.lastSeen < epochSecond) k.lastSeen = epochSecond;
+    }
+
+    // One history sample per recently active keyword, pushed only when the count moved
+    @Scheduled(fixedDelayString = "${pulse.embedded.history-interval-ms:5000}")
+    void sampleHistory() {
+        long nowSec = Instant.now().getEpochSecond();
+        long since = nowSec - historyHorizonSeconds;
+        for (Keyword k : keywords.values()) {
+            if (k.lastSeen < since) continue;
+            long now = k.count.sum();
+            synchronized (k) {
+                Long prev = HistoryCodec.newest(k.history);
+                if (prev == null || prev != now) k.history = HistoryCodec.push(k.history, now, nowSec, historyLength);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pulse.embedded.snapshot-interval-ms:5000}")
+    synchronized void writeSnapshot() {
+        long startMs = System.currentTimeMillis();
+        long nowSec = startMs / 1000;
+        // Re-rank the previous order with new keywords appended: counts move little between
+        // snapshots, so the list is nearly sorted and the merge sort runs in close to linear time
+        List<Keyword> next = new ArrayList<>(keywords.size());
+        for (Keyword k : ranking) {
+            if (k.removed) continue;
+            k.rankedCount = k.count.sum();
+            next.add(k);
+        }
+        for (Keyword k : keywords.values()) {
+            if (k.ranked) continue;
+            k.ranked = true;
+            k.rankedCount = k.count.sum();
+            next.add(k);
+        }
+        next.sort(RANK_ORDER);
+        ranking = next;
+
+        List<TrendSnapshot.Entry> entries = new ArrayList<>(next.size());
+        for (Keyword k : next) {
+            byte[] history;
+            synchronized (k) {
+                history = k.history != null ? k.history : new byte[0];
+            }
+            entries.add(new TrendSnapshot.Entry(k.name, k.rankedCount, k.lastSeen, k.df.sum(nowSec), history));
+        }
+        try {
+            TrendSnapshot.write(Path.of(snapshotPath), startMs, docs.sum(nowSec), posts.sum(), mentions.sum(),
+                entries, activeHorizonSeconds);
+            if (log.isDebugEnabled()) {
+                log.debug("Embedded snapshot: {} keywords in {} ms", entries.size(), System.currentTimeMillis() - startMs);
+            }
+        } catch (Exception e) {
+            log.warn("Embedded snapshot write failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void snapshotOnShutdown() {
+        writeSnapshot();
+    }
+
+    @Override
+    public void maintenance() {
+        // 1) Drop keywords not seen within the activity retention
+        long cutoff = Instant.now().getEpochSecond() - activityTtlSeconds;
+        int pruned = 0;
+        for (Keyword k : keywords.values()) {
+            if (k.lastSeen < cutoff && remove(k, cutoff)) pruned++;
+        }
+        if (pruned > 0) log.debug("Maintenance: pruned {} keywords not seen since {}", pruned, cutoff);
+
+        // 2) Enforce the tracked-keyword cap by removing the lowest counts
+        int excess = (int) Math.min(Integer.MAX_VALUE, keywords.size() - maxTokens);
+        if (maxTokens > 0 && excess > 0) {
+            List<Map.Entry<Keyword, Long>> byCount = new ArrayList<>(keywords.size());
+            for (Keyword k : keywords.values()) byCount.add(Map.entry(k, k.count.sum()));
+            byCount.sort(Map.Entry.comparingByValue());
+            int removed = 0;
+            for (int i = 0; i < excess; i++) {
+                if (remove(byCount.get(i).getKey(), Long.MAX_VALUE)) removed++;
+            }
+            log.info("Maintenance: trimmed embedded store to {} keywords (removed {})", maxTokens, removed);
+        }
+    }
+
+    // Unmaps k only if it is still the mapped entry and was not seen since the cutoff, marking it
+    // removed inside the bin lock so a concurrent recordPost re-applies its update
+    private boolean remove(Keyword k, long seenBefore) {
+        keywords.computeIfPresent(k.name, (name, cur) -> {
+            if (cur != k || cur.lastSeen >= seenBefore) return cur;
+            cur.removed = true;
+            return null;
+        });
+        return k.removed;
+    }
+}
@@ -0,0 +1,186 @@
+package com.pulse.processing.store;
+
+import com.pulse.processing.service.ActivityBuffer;
+import com.pulse.processing.service.ProcessingMetrics;
+import com.pulse.processing.text.TokenDictionary;
+import com.pulse.shard.TrendShards;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default TrendStore: per-post updates go to the shared Redis keys (sharded, see TrendShards) in
+ * two pipelined round trips; activity and summary counters are coalesced by ActivityBuffer.
+ */
+@Component
+@Profile("!embedded-store")
+public class RedisTrendStore implements TrendStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisTrendStore.class);
+
+    private static final String DOCS_TOTAL_KEY = "trends:docs_total";
+
+    private final StringRedisTemplate redis;
+    private final ActivityBuffer activity;
+    private final ProcessingMetrics metrics;
+    private final TrendShards shards;
+
+    @Value("${pulse.trends.zset-key:trends:global}")
+    private String globalKey;
+
+    @Value("${pulse.trends.activity-zset-key:trends:lastSeen}")
+    private String activityZsetKey;
+
+    @Value("${pulse.processing.df-ttl-seconds:86400}")     // rolling window (24h)
+    private long dfTtlSeconds;
+
+    @Value("${pulse.processing.df-max-ratio:0.20}")        // suppress tokens in >20% of docs
+    private double dfMaxRatio;
+
+    // Interned token ids; bounded, CLOCK-evicted, off-heap (see TokenDictionary)
+    @Value("${pulse.processing.dictionary-capacity:262144}")
+    private int dictionaryCapacity;
+
+    // Dashboard KPI counters read by /api/summary
+    @Value("${pulse.summary.key:pulse:summary}")
+    private String summaryKey;
+
+    private TokenDictionary dictionary;
+    // Per-shard key bytes, indexed by shard
+    private byte[][] globalKeys;
+    private byte[][] docsTotalKeys;
+
+    public RedisTrendStore(StringRedisTemplate redis, ActivityBuffer activity, ProcessingMetrics metrics,
+                           TrendShards shards) {
+        this.redis = redis;
+        this.activity = activity;
+        this.metrics = metrics;
+        this.shards = shards;
+    }
+
+    @PostConstruct
+    void initKeys() {
+        this.dictionary = new TokenDictionary(dictionaryCapacity, "trends:df:");
+        this.globalKeys = keyBytes(shards.keys(globalKey));
+        this.docsTotalKeys = keyBytes(shards.keys(DOCS_TOTAL_KEY));
+        metrics.bindDictionary(dictionary);
+        log.info("Token dictionary: capacity={} ids; trend shards={}", dictionaryCapacity, shards.count());
+    }
+
+    @Override
+    public PostResult recordPost(List<String> tokens, long epochSecond, boolean timed) {
+        long t0 = timed ? System.nanoTime() : 0L;
+
+        // Unique token ids per document (for document-frequency)
+        int[] ids = uniqueSorted(dictionary.internAll(tokens));
+        byte[][] dfKeys = new byte[ids.length][];
+        for (int i = 0; i < ids.length; i++) dfKeys[i] = dictionary.dfKey(ids[i]);
+
+        // Each post counts toward one randomly chosen docs-total shard, so no single key takes every
+        // INCR; shard count x N is an unbiased estimate of the window's total documents
+        byte[] docsTotalKey = docsTotalKeys[shards.sharded() ? ThreadLocalRandom.current().nextInt(shards.count()) : 0];
+
+        // Round trip 1: rolling total docs counter and every DF counter, then their TTLs. A counter
+        // without one (-1) was just created, or predates the TTL and would otherwise never reset.
+        List<Object> incrs = redis.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().incr(docsTotalKey);
+            for (byte[] key : dfKeys) connection.stringCommands().incr(key);
+            connection.keyCommands().ttl(docsTotalKey);
+            for (byte[] key : dfKeys) connection.keyCommands().ttl(key);
+            return null;
+        });
+        int ttls = 1 + ids.length;
+        long shardDocs = asLong(incrs.get(0));
+        long totalDocs = shardDocs * shards.count();
+        long t1 = timed ? System.nanoTime() : 0L;
+
+        // Round trip 2: start TTL windows on counters that have none, count non-ubiquitous tokens
+        List<String> counted = new ArrayList<>(ids.length);
+        int[] expires = new int[1];
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            if (asLong(incrs.get(ttls)) == -1) {
+                connection.keyCommands().expire(docsTotalKey, dfTtlSeconds);
+                expires[0]++;
+            }
+            for (int i = 0; i < ids.length; i++) {
+                long df = asLong(incrs.get(i + 1));
+                if (asLong(incrs.get(ttls + i + 1)) == -1) {
+                    connection.keyCommands().expire(dfKeys[i], dfTtlSeconds);
+                    expires[0]++;
+                }
+
+                // If too ubiquitous in the window, skip counting toward trends
+                if (totalDocs > 0 && (double) df / totalDocs > dfMaxRatio) continue;
+
+                // Count token toward global trends, in the token's shard
+                String token = dictionary.token(ids[i]);
+                connection.zSetCommands().zIncrBy(globalKeys[shards.shardOf(token)], 1.0, dictionary.member(ids[i]));
+                counted.add(token);
+            }
+            return null;
+        });
+        long t2 = timed ? System.nanoTime() : 0L;
+
+        // Last-seen, per-minute HLL activity and summary counters are coalesced and flushed by ActivityBuffer
+        activity.record(counted, epochSecond);
+        long t3 = timed ? System.nanoTime() : 0L;
+
+        // INCRs + TTLs + EXPIREs + ZINCRBYs
+        int commands = 2 * (1 + ids.length) + expires[0] + counted.size();
+        return new PostResult(ids.length, counted.size(), commands, t1 - t0, t2 - t1, t3 - t2);
+    }
+
+    // Sorts in place and compacts duplicates; returns the distinct prefix
+    private static int[] uniqueSorted(int[] ids) {
+        if (ids.length < 2) return ids;
+        Arrays.sort(ids);
+        int n = 1;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] != ids[n - 1]) ids[n++] = ids[i];
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    private static byte[][] keyBytes(String[] keys) {
+        byte[][] out = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) out[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        return out;
+    }
+
+    private static long asLong(Object o) {
+        return o instanceof Number n ? n.longValue() : 0L;
+    }
+
+    @Override
+    public void maintenance() {
+        try {
+            // lastSeen is trimmed by ActivityTrimmer and the size cap enforced by TrendCompactor;
+            // here only the tracked-keyword count is refreshed
+            Long total = null;
+            for (String key : shards.keys(globalKey)) {
+                Long size = null;
+                try { size = redis.opsForZSet().zCard(key); } catch (Exception ignored) {}
+                if (size == null) continue;
+                total = (total == null ? 0 : total) + size;
+            }
+
+            // Publish the tracked-keyword total for the summary endpoint (ZCARD is O(1))
+            if (total != null) {
+                try { redis.opsForHash().put(summaryKey, "keywords_total", Long.toString(total)); } catch (Exception ignored) {}
+            }
+        } catch (Exception e) {
+            log.warn("Maintenance task failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.pulse.processing.store;
+
+import com.pulse.processing.service.ProcessingMetrics;
+import com.pulse.shard.TrendShards;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background decay compaction of trends:global, replacing the rank-based tail trim.
+ *
+ * Each pass walks every shard with ZSCAN in {@code chunk-size} batches. A keyword idle for longer
+ * than {@code idle-seconds} (lastSeen, one ZMSCORE per batch) is ranked for eviction by its score
+ * times 2^(-idle time past idle-seconds / half-life); one whose lastSeen was already trimmed counts
+ * as idle for the activity retention. Idle keywords whose decayed score falls below
+ * {@code min-score} are evicted; if a shard is still over its share of {@code max-tokens}, the
+ * lowest decayed idle keywords go next. Active keywords are never evicted: a shard that stays over
+ * its cap with active keywords alone is logged and reported as pulse_processing_compaction_over_cap.
+ *
+ * The decay is computed, never written back: trends:global stays a cumulative count, which the
+ * anomaly service's trends:hist samples and segment log difference into volumes.
+ *
+ * Evictions run a short Lua script per batch that removes a member only if its score has not
+ * risen since it was read. No command touches more than one batch, so Redis is never blocked for
+ * long even on a 1M-member ZSET. A lock keeps concurrent processing instances from compacting at
+ * once, and passes run on their own thread: a paced pass over a large ZSET would otherwise hold
+ * the shared scheduler thread the flush jobs (ActivityBuffer, RecentPostIndex, CooccurrenceTracker)
+ * run on.
+ */
+@Component
+@Profile("!embedded-store")
+public class TrendCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendCompactor.class);
+
+    private static final int MAX_CANDIDATES = 1_000_000;
+
+    private final StringRedisTemplate redis;
+    private final TrendShards shards;
+    private final ProcessingMetrics metrics;
+    private final DefaultRedisScript<Long> evictScript;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("trend-compactor").daemon().factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${pulse.trends.zset-key:trends:global}")
+    private String globalKey;
+
+    @Value("${pulse.trends.activity-zset-key:trends:lastSeen}")
+    private String activityZsetKey;
+
+    @Value("${pulse.maintenance.max-tokens:100000}")
+    private long maxTokens;
+
+    @Value("${pulse.maintenance.compaction.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${pulse.maintenance.compaction.half-life-seconds:21600}")
+    private double halfLifeSeconds;
+
+    @Value("${pulse.maintenance.compaction.idle-seconds:3600}")
+    private long idleSeconds;
+
+    @Value("${pulse.maintenance.compaction.min-score:1.0}")
+    private double minScore;
+
+    @Value("${pulse.maintenance.compaction.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${pulse.maintenance.compaction.pause-ms:2}")     // yield between batches
+    private long pauseMs;
+
+    @Value("${pulse.maintenance.compaction.lock-key:trends:compaction:lock}")
+    private String lockKey;
+
+    @Value("${pulse.maintenance.activity-trim.retention-seconds:86400}")  // lastSeen kept this long
+    private long activityRetentionSeconds;
+
+    public TrendCompactor(StringRedisTemplate redis, TrendShards shards, ProcessingMetrics metrics) {
+        this.redis = redis;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.evictScript = new DefaultRedisScript<>();
+        this.evictScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/evict-unchanged.lua")));
+        this.evictScript.setResultType(Long.class);
+    }
+
+    // score as read (the eviction guard), decayed for ordering
+    private record Candidate(String member, double score, double decayed) {}
+
+    private static final class Pass {
+        long decayed;
+        long evicted;
+        long overCap;
+    }
+
+    // Hands the pass to the compactor thread; skipped while the previous one is still running
+    @Scheduled(fixedDelayString = "${pulse.maintenance.compaction.interval-ms:60000}",
+               initialDelayString = "${pulse.maintenance.compaction.interval-ms:60000}")
+    public void schedule() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            worker.execute(() -> {
+                try {
+                    compact();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    public void compact() {
+        String token = UUID.randomUUID().toString();
+        long lockTtlMs = Math.max(intervalMs, 60_000L) * 5;
+        try {
+            Boolean acquired = redis.opsForValue().setIfAbsent(lockKey, token, Duration.ofMillis(lockTtlMs));
+            if (!Boolean.TRUE.equals(acquired)) return;
+        } catch (Exception e) {
+            log.warn("Compaction skipped: {}", e.getMessage());
+            return;
+        }
+        try {
+            metrics.compactionTimer().record(this::run);
+        } finally {
+            try {
+                if (token.equals(redis.opsForValue().get(lockKey))) redis.delete(lockKey);
+            } catch (Exception ignored) {}
+        }
+    }
+
+    private void run() {
+        long idleBefore = System.currentTimeMillis() / 1000 - idleSeconds;
+        long perShardMax = maxTokens > 0 ? Math.max(1, (maxTokens + shards.count() - 1) / shards.count()) : 0;
+
+        Pass pass = new Pass();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            try {
+                compactShard(shard, idleBefore, perShardMax, pass);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Compaction of shard {} failed: {}", shard, e.getMessage());
+            }
+        }
+        metrics.recordCompaction(pass.decayed, pass.evicted, pass.overCap);
+        if (pass.evicted > 0) {
+            log.info("Compaction: ranked {} idle keywords by decayed score, evicted {}", pass.decayed, pass.evicted);
+        }
+    }
+
+    private void compactShard(int shard, long idleBefore, long perShardMax, Pass pass) throws InterruptedException {
+        String key = shards.key(globalKey, shard);
+        String lastSeenKey = shards.key(activityZsetKey, shard);
+        Long card = redis.opsForZSet().zCard(key);
+        if (card == null || card == 0) return;
+        int keep = (int) Math.min(MAX_CANDIDATES, perShardMax > 0 ? Math.max(0, card - perShardMax) : 0);
+        // Max-heap of the `keep` lowest decayed idle keywords, eviction candidates for the size cap
+        PriorityQueue<Candidate> lowest = new PriorityQueue<>(Math.max(1, keep),
+            Comparator.comparingDouble(Candidate::decayed).reversed());
+
+        List<ZSetOperations.TypedTuple<String>> batch = new ArrayList<>(chunkSize);
+        ScanOptions options = ScanOptions.scanOptions().count(chunkSize).build();
+        // ZSCAN may repeat a member across a rehash; decaying it twice in one pass is harmless
+        try (Cursor<ZSetOperations.TypedTuple<String>> cursor = redis.opsForZSet().scan(key, options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= chunkSize) {
+                    compactBatch(key, lastSeenKey, batch, idleBefore, lowest, keep, pass);
+                    batch.clear();
+                    if (pauseMs > 0) Thread.sleep(pauseMs);
+                }
+            }
+        }
+        if (!batch.isEmpty()) compactBatch(key, lastSeenKey, batch, idleBefore, lowest, keep, pass);
+
+        if (perShardMax <= 0) return;
+        Long size = redis.opsForZSet().zCard(key);
+        long excess = size == null ? 0 : size - perShardMax;
+        if (excess <= 0) return;
+
+        List<Candidate> ascending = new ArrayList<>(lowest);
+        ascending.sort(Comparator.comparingDouble(Candidate::decayed));
+        List<Candidate> victims = ascending.subList(0, (int) Math.min(excess, ascending.size()));
+        for (int i = 0; i < victims.size(); i += chunkSize) {
+            pass.evicted += evict(key, victims.subList(i, Math.min(victims.size(), i + chunkSize)));
+        }
+
+        // Not enough idle keywords to get under the cap. A rank-based trim would evict the newest
+        // (lowest raw count) active keywords, so the excess stays until they go idle.
+        size = redis.opsForZSet().zCard(key);
+        excess = size == null ? 0 : size - perShardMax;
+        if (excess > 0) {
+            pass.overCap += excess;
+            log.warn("Compaction: {} is {} over its cap of {} with active keywords only", key, excess, perShardMax);
+        }
+    }
+
+    private void compactBatch(String key, String lastSeenKey, List<ZSetOperations.TypedTuple<String>> batch,
+                              long idleBefore, PriorityQueue<Candidate> lowest, int keep, Pass pass) {
+        String[] members = new String[batch.size()];
+        for (int i = 0; i < members.length; i++) members[i] = batch.get(i).getValue();
+        List<Double> seen = redis.opsForZSet().score(lastSeenKey, (Object[]) members);
+
+        List<Candidate> evictions = new ArrayList<>();
+        for (int i = 0; i < members.length; i++) {
+            Double score = batch.get(i).getScore();
+            Double lastSeen = seen != null ? seen.get(i) : null;
+            if (members[i] == null || score == null) continue;
+            if (lastSeen != null && lastSeen >= idleBefore) continue;
+
+            double idleFor = lastSeen != null ? idleBefore - lastSeen : Math.max(0, activityRetentionSeconds - idleSeconds);
+            double decayed = halfLifeSeconds > 0 ? score * Math.pow(0.5, idleFor / halfLifeSeconds) : score;
+            pass.decayed++;
+            Candidate c = new Candidate(members[i], score, decayed);
+            if (decayed < minScore) {
+                evictions.add(c);
+                continue;
+            }
+            if (keep > 0) {
+                if (lowest.size() < keep) lowest.add(c);
+                else if (decayed < lowest.peek().decayed()) {
+                    lowest.poll();
+                    lowest.add(c);
+                }
+            }
+        }
+        if (!evictions.isEmpty()) pass.evicted += evict(key, evictions);
+    }
+
+    // Scores only grow by whole increments, so +0.5 absorbs float formatting of the score read
+    private long evict(String key, List<Candidate> victims) {
+        Object[] args = new Object[victims.size() * 2];
+        for (int i = 0; i < victims.size(); i++) {
+            args[2 * i] = victims.get(i).member();
+            args[2 * i + 1] = Double.toString(victims.get(i).score() + 0.5);
+        }
+        Long removed = redis.execute(evictScript, List.of(key), args);
+        return removed == null ? 0 : removed;
+    }
+}
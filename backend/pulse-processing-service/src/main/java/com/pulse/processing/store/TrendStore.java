@@ -0,0 +1,28 @@
+package com.pulse.processing.store;
+
+import java.util.List;
+
+/**
+ * Destination of the per-post trend updates made by StreamProcessor.
+ *
+ * RedisTrendStore (default) maintains the shared Redis keys the anomaly and API services read.
+ * EmbeddedTrendStore (profile {@code embedded-store}) keeps the same state in process for
+ * single-node deployments and publishes it through a memory-mapped snapshot file.
+ */
+public interface TrendStore {
+
+    /**
+     * Applies one post: document-frequency window, docs total, trend counts for tokens under the
+     * DF ratio, and keyword activity. Stage timings are only measured when {@code timed}.
+     */
+    PostResult recordPost(List<String> tokens, long epochSecond, boolean timed);
+
+    /** Periodic pruning, driven by StreamProcessor's maintenance schedule. */
+    void maintenance();
+
+    /** What a post contributed; remote commands are 0 for in-process stores. */
+    record PostResult(int distinctTokens, int counted, int commands,
+                      long dfNanos, long trendNanos, long activityNanos) {
+        public static final PostResult EMPTY = new PostResult(0, 0, 0, 0, 0, 0);
+    }
+}
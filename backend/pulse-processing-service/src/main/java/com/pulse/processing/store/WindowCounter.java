@@ -0,0 +1,45 @@
+package com.pulse.processing.store;
+
+/**
+ * Count of events over a sliding window made of fixed-width time buckets.
+ *
+ * Buckets form a ring indexed by bucket number; a bucket is cleared lazily the first time it is
+ * reused for a newer bucket number, so idle counters cost nothing. The window sum is the total of
+ * buckets that are still inside the window.
+ */
+final class WindowCounter {
+
+    private final long bucketSeconds;
+    private final long[] counts;
+    private final long[] epochs;
+
+    WindowCounter(int buckets, long bucketSeconds) {
+        this.bucketSeconds = Math.max(1, bucketSeconds);
+        this.counts = new long[buckets];
+        this.epochs = new long[buckets];
+    }
+
+    synchronized long incrementAndSum(long epochSecond) {
+        add(epochSecond, 1);
+        return sum(epochSecond);
+    }
+
+    synchronized void add(long epochSecond, long n) {
+        long epoch = epochSecond / bucketSeconds;
+        int i = (int) (epoch % counts.length);
+        if (epochs[i] != epoch) {
+            epochs[i] = epoch;
+            counts[i] = 0;
+        }
+        counts[i] += n;
+    }
+
+    synchronized long sum(long epochSecond) {
+        long epoch = epochSecond / bucketSeconds;
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (epoch - epochs[i] < counts.length) total += counts[i];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,209 @@
+package com.pulse.processing.text;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Interns tokens to dense int ids (0..capacity-1) so the pipeline can work on primitives.
+ *
+ * The open-addressing table, per-id hashes and token bytes live off-heap in direct buffers;
+ * the only on-heap state is a per-id cache of the token String and its Redis key bytes, so
+ * nothing is rebuilt per post. When full, an id is reclaimed with CLOCK (second-chance) eviction:
+ * an id stays valid until at least {@code capacity} further distinct tokens have been interned.
+ *
+ * Tokens must be ASCII and at most {@link #MAX_TOKEN_LENGTH} chars, which the Tokenizer
+ * guarantees ([a-z], 3..24). All methods are synchronized; interning a whole post takes the lock
+ * once.
+ */
+public final class TokenDictionary {
+
+    public static final int MAX_TOKEN_LENGTH = 31;
+    private static final int RECORD_BYTES = MAX_TOKEN_LENGTH + 1;   // [len][ascii bytes...]
+    private static final int EMPTY = 0;
+
+    private final int capacity;
+    private final int mask;
+    private final byte[] dfKeyPrefix;
+
+    private final IntBuffer table;      // slot -> id + 1 (0 = empty)
+    private final IntBuffer hashes;     // id -> token hash
+    private final IntBuffer slots;      // id -> slot index in table
+    private final ByteBuffer records;   // id -> [len][bytes]
+    private final ByteBuffer referenced; // id -> CLOCK reference bit
+
+    private final String[] strings;
+    private final byte[][] members;
+    private final byte[][] dfKeys;
+
+    private int size;
+    private int hand;
+    private long evictions;
+
+    public TokenDictionary(int capacity, String dfKeyPrefix) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.mask = tableSize - 1;
+        this.dfKeyPrefix = dfKeyPrefix.getBytes(StandardCharsets.UTF_8);
+
+        this.table = ByteBuffer.allocateDirect(tableSize * Integer.BYTES).asIntBuffer();
+        this.hashes = ByteBuffer.allocateDirect(capacity * Integer.BYTES).asIntBuffer();
+        this.slots = ByteBuffer.allocateDirect(capacity * Integer.BYTES).asIntBuffer();
+        this.records = ByteBuffer.allocateDirect(capacity * RECORD_BYTES);
+        this.referenced = ByteBuffer.allocateDirect(capacity);
+
+        this.strings = new String[capacity];
+        this.members = new byte[capacity][];
+        this.dfKeys = new byte[capacity][];
+    }
+
+    // Interns every token; out[i] is the id of tokens.get(i)
+    public synchronized int[] internAll(List<String> tokens) {
+        int[] out = new int[tokens.size()];
+        for (int i = 0; i < out.length; i++) out[i] = intern(tokens.get(i));
+        return out;
+    }
+
+    public synchronized int intern(String token) {
+        int len = token.length();
+        if (len == 0 || len > MAX_TOKEN_LENGTH) {
+            throw new IllegalArgumentException("Token length out of range: " + len);
+        }
+        for (int i = 0; i < len; i++) {
+            if (token.charAt(i) > 0x7F) throw new IllegalArgumentException("Non-ASCII token: " + token);
+        }
+        int h = hash(token);
+        int slot = h & mask;
+        while (true) {
+            int v = table.get(slot);
+            if (v == EMPTY) break;
+            int id = v - 1;
+            if (hashes.get(id) == h && matches(id, token)) {
+                referenced.put(id, (byte) 1);
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size < capacity ? size++ : evict();
+        // Eviction may have shifted entries; find the insertion slot again
+        slot = h & mask;
+        while (table.get(slot) != EMPTY) slot = (slot + 1) & mask;
+
+        int base = id * RECORD_BYTES;
+        records.put(base, (byte) len);
+        for (int i = 0; i < len; i++) records.put(base + 1 + i, (byte) token.charAt(i));
+        hashes.put(id, h);
+        slots.put(id, slot);
+        table.put(slot, id + 1);
+        referenced.put(id, (byte) 1);
+        strings[id] = token;
+        members[id] = null;
+        dfKeys[id] = null;
+        return id;
+    }
+
+    public synchronized String token(int id) {
+        return strings[id];
+    }
+
+    // ZSET member bytes for the token
+    public synchronized byte[] member(int id) {
+        byte[] m = members[id];
+        if (m == null) {
+            int base = id * RECORD_BYTES;
+            m = new byte[records.get(base)];
+            records.get(base + 1, m);
+            members[id] = m;
+        }
+        return m;
+    }
+
+    // dfKeyPrefix + token, built once per id
+    public synchronized byte[] dfKey(int id) {
+        byte[] k = dfKeys[id];
+        if (k == null) {
+            byte[] m = member(id);
+            k = new byte[dfKeyPrefix.length + m.length];
+            System.arraycopy(dfKeyPrefix, 0, k, 0, dfKeyPrefix.length);
+            System.arraycopy(m, 0, k, dfKeyPrefix.length, m.length);
+            dfKeys[id] = k;
+        }
+        return k;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    // CLOCK: clear reference bits until an unreferenced id is found, then unlink it
+    private int evict() {
+        while (true) {
+            int id = hand;
+            hand = (hand + 1) % capacity;
+            if (referenced.get(id) != 0) {
+                referenced.put(id, (byte) 0);
+                continue;
+            }
+            removeSlot(slots.get(id));
+            evictions++;
+            return id;
+        }
+    }
+
+    // Backward-shift deletion keeps linear probe chains intact without tombstones
+    private void removeSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (true) {
+            int v = table.get(next);
+            if (v == EMPTY) break;
+            int id = v - 1;
+            int home = hashes.get(id) & mask;
+            // Move the entry back if its home slot is not cyclically within (hole, next]
+            boolean movable = hole <= next
+                ? (home <= hole || home > next)
+                : (home <= hole && home > next);
+            if (movable) {
+                table.put(hole, v);
+                slots.put(id, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table.put(hole, EMPTY);
+    }
+
+    private boolean matches(int id, String token) {
+        int base = id * RECORD_BYTES;
+        int len = records.get(base);
+        if (len != token.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (records.get(base + 1 + i) != (byte) token.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a over chars with a final avalanche so low bits spread across the table
+    private static int hash(String token) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
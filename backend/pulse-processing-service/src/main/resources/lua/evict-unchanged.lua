@@ -0,0 +1,12 @@
+-- Removes members from a ZSET only if their score has not risen since the caller read it.
+-- KEYS[1] = ZSET, ARGV = member1, maxScore1, member2, maxScore2, ...
+-- Returns the number of members removed.
+local removed = 0
+for i = 1, #ARGV, 2 do
+  local score = redis.call('ZSCORE', KEYS[1], ARGV[i])
+  if score and tonumber(score) <= tonumber(ARGV[i + 1]) then
+    redis.call('ZREM', KEYS[1], ARGV[i])
+    removed = removed + 1
+  end
+end
+return removed
@@ -0,0 +1,7 @@
+-- Removes up to ARGV[2] members scored at or below ARGV[1] from one ZSET and returns them.
+-- KEYS[1] = ZSET. Bounded by the limit, so a single call never blocks Redis for long.
+local members = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+if #members > 0 then
+  redis.call('ZREM', KEYS[1], unpack(members))
+end
+return members
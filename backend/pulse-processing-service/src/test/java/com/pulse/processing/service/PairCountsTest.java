@@ -0,0 +1,52 @@
+package com.pulse.processing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PairCountsTest {
+
+    @Test
+    void packsAndUnpacksPairs() {
+        long key = PairCounts.key(1999, Integer.MAX_VALUE);
+
+        assertThat(PairCounts.first(key)).isEqualTo(1999);
+        assertThat(PairCounts.second(key)).isEqualTo(Integer.MAX_VALUE);
+        assertThat(PairCounts.key(0, 0)).isNotEqualTo(-1L);
+    }
+
+    @Test
+    void accumulatesCountsPerPair() {
+        PairCounts counts = new PairCounts(100);
+
+        assertThat(counts.add(PairCounts.key(1, 2), 1f)).isTrue();
+        assertThat(counts.add(PairCounts.key(1, 2), 2.5f)).isTrue();
+        assertThat(counts.add(PairCounts.key(2, 1), 1f)).isTrue();
+        assertThat(counts.add(PairCounts.key(0, 0), 4f)).isTrue();
+
+        Map<Long, Float> seen = new HashMap<>();
+        counts.forEach(seen::put);
+        assertThat(seen).containsOnly(
+                Map.entry(PairCounts.key(1, 2), 3.5f),
+                Map.entry(PairCounts.key(2, 1), 1f),
+                Map.entry(PairCounts.key(0, 0), 4f));
+        assertThat(counts.size()).isEqualTo(3);
+    }
+
+    @Test
+    void refusesNewPairsPastTheLimitButKeepsCountingExistingOnes() {
+        PairCounts counts = new PairCounts(1000);
+        for (int i = 0; i < 1000; i++) assertThat(counts.add(PairCounts.key(i, i + 1), 1f)).isTrue();
+
+        assertThat(counts.add(PairCounts.key(5000, 5001), 1f)).isFalse();
+        assertThat(counts.add(PairCounts.key(7, 8), 1f)).isTrue();
+
+        assertThat(counts.size()).isEqualTo(1000);
+        assertThat(counts.capacity()).isGreaterThanOrEqualTo((int) Math.ceil(1000 / 0.7));
+        Map<Long, Float> seen = new HashMap<>();
+        counts.forEach(seen::put);
+        assertThat(seen).hasSize(1000).containsEntry(PairCounts.key(7, 8), 2f);
+    }
+}
@@ -0,0 +1,80 @@
+package com.pulse.processing.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TokenDictionaryTest {
+
+    @Test
+    void internsToStableDenseIds() {
+        TokenDictionary dict = new TokenDictionary(8, "trends:df:");
+
+        int[] ids = dict.internAll(List.of("rust", "zig", "rust", "kotlin"));
+
+        assertThat(ids).containsExactly(0, 1, 0, 2);
+        assertThat(dict.size()).isEqualTo(3);
+        assertThat(dict.token(2)).isEqualTo("kotlin");
+        assertThat(new String(dict.member(1), StandardCharsets.US_ASCII)).isEqualTo("zig");
+        assertThat(new String(dict.dfKey(0), StandardCharsets.US_ASCII)).isEqualTo("trends:df:rust");
+        assertThat(dict.evictions()).isZero();
+    }
+
+    @Test
+    void clockEvictionGivesReferencedIdsASecondChance() {
+        TokenDictionary dict = new TokenDictionary(3, "df:");
+        dict.internAll(List.of("aaa", "bbb", "ccc"));
+
+        // Full and every bit set: the hand clears all three, then reclaims id 0
+        assertThat(dict.intern("ddd")).isZero();
+        // bbb is referenced again, so the next eviction passes over it and takes ccc
+        assertThat(dict.intern("bbb")).isEqualTo(1);
+        assertThat(dict.intern("eee")).isEqualTo(2);
+
+        assertThat(dict.evictions()).isEqualTo(2);
+        assertThat(dict.intern("bbb")).isEqualTo(1);
+        assertThat(dict.intern("ddd")).isZero();
+        assertThat(dict.token(2)).isEqualTo("eee");
+        assertThat(new String(dict.member(2), StandardCharsets.US_ASCII)).isEqualTo("eee");
+        assertThat(new String(dict.dfKey(0), StandardCharsets.US_ASCII)).isEqualTo("df:ddd");
+    }
+
+    @Test
+    void lookupsSurviveEvictionChurn() {
+        // Small table, many more distinct tokens than ids: exercises backward-shift deletion
+        TokenDictionary dict = new TokenDictionary(64, "df:");
+        Map<String, Integer> last = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            String token = "tok" + random.nextInt(300);
+            int id = dict.intern(token);
+            last.put(token, id);
+            assertThat(dict.token(id)).isEqualTo(token);
+            assertThat(new String(dict.member(id), StandardCharsets.US_ASCII)).isEqualTo(token);
+        }
+        // Every token still holding its id is found by a fresh lookup, without taking a new one
+        long evictions = dict.evictions();
+        for (Map.Entry<String, Integer> e : last.entrySet()) {
+            if (e.getKey().equals(dict.token(e.getValue()))) assertThat(dict.intern(e.getKey())).isEqualTo(e.getValue());
+        }
+        assertThat(dict.evictions()).isEqualTo(evictions);
+        assertThat(dict.size()).isEqualTo(64);
+        assertThat(dict.evictions()).isPositive();
+    }
+
+    @Test
+    void rejectsTokensItCannotStore() {
+        TokenDictionary dict = new TokenDictionary(4, "df:");
+
+        assertThatThrownBy(() -> dict.intern("")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dict.intern("x".repeat(TokenDictionary.MAX_TOKEN_LENGTH + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dict.intern("café")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,208 @@
+package com.pulse.history;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding for a keyword's count history, newest sample first, with the epoch
+ * second each sample was taken at.
+ *
+ * Layout: [version:1][n:varint][newest:zigzag varint][newestAt:varint]
+ *         [(delta_i:zigzag varint, gap_i:zigzag varint) for i in 1..n-1]
+ * where delta_i = h[i-1] - h[i] and gap_i = t[i-1] - t[i]. A sample is only pushed when the count
+ * changed, so samples are irregularly spaced and readers must use the stored times rather than a
+ * fixed tick interval. Cumulative counts grow slowly and ticks are seconds apart, so most pairs fit
+ * in two to four bytes. The buffer is bounded to the configured window; pushing a new sample drops
+ * the oldest pair without decoding the rest.
+ *
+ * Version 1 blobs (counts only) still decode; their samples report time 0 (unknown) and are
+ * rewritten as version 2 on the next push.
+ *
+ * Written by the anomaly service (trends:hist:<kw>) and the processing service's embedded store,
+ * read by the API; this source directory is compiled into all three, so they share one codec.
+ */
+public final class HistoryCodec {
+
+  public static final byte VERSION = 2;
+  static final byte VERSION_COUNTS_ONLY = 1;
+
+  private HistoryCodec() {}
+
+  /** Decodes a blob into a newest-first array. Returns an empty array for null/unknown input. */
+  public static long[] decode(byte[] blob) {
+    return decode(blob, false);
+  }
+
+  /** Newest-first epoch seconds of each sample, aligned with decode; 0 where unknown. */
+  public static long[] decodeTimes(byte[] blob) {
+    return decode(blob, true);
+  }
+
+  /** Encodes a newest-first history taken at the given newest-first epoch seconds. */
+  public static byte[] encode(long[] history, long[] epochSeconds) {
+    Writer w = new Writer(4 + history.length * 3);
+    w.put(VERSION);
+    w.varint(history.length);
+    if (history.length == 0) return w.toArray();
+    w.varint(zigzagEncode(history[0]));
+    w.varint(epochSeconds[0]);
+    for (int i = 1; i < history.length; i++) {
+      w.varint(zigzagEncode(history[i - 1] - history[i]));
+      w.varint(zigzagEncode(epochSeconds[i - 1] - epochSeconds[i]));
+    }
+    return w.toArray();
+  }
+
+  /**
+   * Prepends {@code value} taken at {@code epochSecond} to an encoded history and keeps at most
+   * {@code window} samples. The previous newest sample becomes a delta pair and the existing pair
+   * bytes are copied as-is.
+   */
+  public static byte[] push(byte[] blob, long value, long epochSecond, int window) {
+    if (window <= 0) return encode(new long[0], new long[0]);
+    if (blob == null || blob.length < 2) return encode(new long[]{value}, new long[]{epochSecond});
+    if (blob[0] == VERSION_COUNTS_ONLY) return upgrade(blob, value, epochSecond, window);
+    if (blob[0] != VERSION) return encode(new long[]{value}, new long[]{epochSecond});
+
+    int[] pos = {1};
+    int n = (int) readVarint(blob, pos);
+    if (n <= 0) return encode(new long[]{value}, new long[]{epochSecond});
+    long prevNewest = zigzagDecode(readVarint(blob, pos));
+    long prevAt = readVarint(blob, pos);
+    int pairsStart = pos[0];
+
+    // Keep min(n, window - 1) old samples: the old newest plus (keep - 1) of its pairs
+    int keep = Math.min(n, window - 1);
+    int pairsEnd = pairsStart;
+    for (int i = 0; i < keep - 1 && pairsEnd < blob.length; i++) {
+      pos[0] = pairsEnd;
+      readVarint(blob, pos);
+      readVarint(blob, pos);
+      pairsEnd = pos[0];
+    }
+
+    Writer w = new Writer(blob.length + 24);
+    w.put(VERSION);
+    w.varint(keep + 1);
+    w.varint(zigzagEncode(value));
+    w.varint(epochSecond);
+    if (keep > 0) {
+      w.varint(zigzagEncode(value - prevNewest));
+      w.varint(zigzagEncode(epochSecond - prevAt));
+      w.put(blob, pairsStart, pairsEnd - pairsStart);
+    }
+    return w.toArray();
+  }
+
+  /** Returns the newest sample without decoding the rest, or null if the blob is empty. */
+  public static Long newest(byte[] blob) {
+    if (!known(blob)) return null;
+    int[] pos = {1};
+    if (readVarint(blob, pos) <= 0) return null;
+    return zigzagDecode(readVarint(blob, pos));
+  }
+
+  private static long[] decode(byte[] blob, boolean times) {
+    if (!known(blob)) return new long[0];
+    int[] pos = {1};
+    int n = (int) readVarint(blob, pos);
+    if (n <= 0) return new long[0];
+    long[] out = new long[n];
+    if (blob[0] == VERSION_COUNTS_ONLY) {
+      if (times) return out;
+      long prev = zigzagDecode(readVarint(blob, pos));
+      out[0] = prev;
+      for (int i = 1; i < n; i++) {
+        if (pos[0] >= blob.length) return Arrays.copyOf(out, i);
+        prev -= zigzagDecode(readVarint(blob, pos));
+        out[i] = prev;
+      }
+      return out;
+    }
+    long value = zigzagDecode(readVarint(blob, pos));
+    long at = readVarint(blob, pos);
+    out[0] = times ? at : value;
+    for (int i = 1; i < n; i++) {
+      if (pos[0] >= blob.length) return Arrays.copyOf(out, i);
+      value -= zigzagDecode(readVarint(blob, pos));
+      at -= zigzagDecode(readVarint(blob, pos));
+      out[i] = times ? at : value;
+    }
+    return out;
+  }
+
+  // Version 1 history re-encoded with unknown (0) times behind the new sample
+  private static byte[] upgrade(byte[] blob, long value, long epochSecond, int window) {
+    long[] old = decode(blob, false);
+    int keep = Math.min(old.length, window - 1);
+    long[] values = new long[keep + 1];
+    long[] times = new long[keep + 1];
+    values[0] = value;
+    times[0] = epochSecond;
+    System.arraycopy(old, 0, values, 1, keep);
+    return encode(values, times);
+  }
+
+  private static boolean known(byte[] blob) {
+    return blob != null && blob.length >= 2 && (blob[0] == VERSION || blob[0] == VERSION_COUNTS_ONLY);
+  }
+
+  private static long readVarint(byte[] buf, int[] pos) {
+    long result = 0;
+    int shift = 0;
+    int p = pos[0];
+    while (p < buf.length) {
+      byte b = buf[p++];
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) break;
+      shift += 7;
+    }
+    pos[0] = p;
+    return result;
+  }
+
+  private static long zigzagEncode(long v) {
+    return (v << 1) ^ (v >> 63);
+  }
+
+  private static long zigzagDecode(long v) {
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  private static final class Writer {
+    private byte[] buf;
+    private int len;
+
+    Writer(int capacity) {
+      this.buf = new byte[Math.max(8, capacity)];
+    }
+
+    void put(byte b) {
+      ensure(1);
+      buf[len++] = b;
+    }
+
+    void put(byte[] src, int off, int n) {
+      if (n <= 0) return;
+      ensure(n);
+      System.arraycopy(src, off, buf, len, n);
+      len += n;
+    }
+
+    void varint(long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[len++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[len++] = (byte) v;
+    }
+
+    byte[] toArray() {
+      return Arrays.copyOf(buf, len);
+    }
+
+    private void ensure(int n) {
+      if (len + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+    }
+  }
+}
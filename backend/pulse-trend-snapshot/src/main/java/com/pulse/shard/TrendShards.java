@@ -0,0 +1,72 @@
+package com.pulse.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes keywords to trend-state partitions.
+ *
+ * With one shard the base key names are used unchanged (trends:global, trends:lastSeen, ...).
+ * With N > 1 every base key becomes N hash-tagged keys, e.g. trends:global:{0} .. trends:global:{N-1}.
+ * Keys sharing a tag map to the same Redis Cluster slot, so one shard's global, lastSeen and
+ * docs-total keys stay together while different shards spread across nodes.
+ *
+ * Keywords are routed with jump consistent hashing over 64-bit FNV-1a, so changing N moves only
+ * ~1/N of them. This source directory is compiled into the processing, anomaly and API services
+ * (build-helper add-source), so all three route with this one implementation; each application
+ * imports the bean.
+ */
+@Component
+public final class TrendShards {
+
+  private final int count;
+
+  public TrendShards(@Value("${pulse.trends.shards:1}") int count) {
+    if (count < 1) throw new IllegalArgumentException("pulse.trends.shards must be >= 1");
+    this.count = count;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean sharded() {
+    return count > 1;
+  }
+
+  public int shardOf(String keyword) {
+    return count == 1 ? 0 : jump(fnv1a64(keyword), count);
+  }
+
+  public String key(String base, int shard) {
+    return count == 1 ? base : base + ":{" + shard + "}";
+  }
+
+  // All shard keys for a base key, in shard order
+  public String[] keys(String base) {
+    String[] keys = new String[count];
+    for (int i = 0; i < count; i++) keys[i] = key(base, i);
+    return keys;
+  }
+
+  static long fnv1a64(String s) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < s.length(); i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return h;
+  }
+
+  // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+  static int jump(long key, int buckets) {
+    long b = -1;
+    long j = 0;
+    while (j < buckets) {
+      b = j;
+      key = key * 2862933555777941757L + 1;
+      j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+    }
+    return (int) b;
+  }
+}
@@ -0,0 +1,264 @@
+package com.pulse.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point-in-time image of the processing service's embedded trend store, in a memory-mapped file
+ * that the anomaly and API services read in place. This source directory is compiled into all
+ * three services (build-helper add-source), so writer and readers share one codec.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header  [magic:4][version:4][writtenAtMs:8][docsInWindow:8][postsTotal:8][mentionsTotal:8]
+ *         [entryCount:4][indexSlots:4][activeFrom:8][activePoints:4][reserved:4]
+ * ranks   [entryOffset:4] x entryCount                        by count descending, ties by keyword descending
+ * index   [rank + 1:4] x indexSlots                           open addressing on the keyword's hash; 0 = empty
+ * active  [(lastSeen:8, seenSince:4)] x activePoints          lastSeen descending
+ * entries [keywordLen:2][keyword:UTF-8][count:8][lastSeen:8][df:8][historyLen:4][history:HistoryCodec]
+ * </pre>
+ * A top-N page is a prefix of the rank table, a keyword lookup is a probe of the index, and the
+ * active table holds, for every distinct lastSeen second since {@code activeFrom}, how many entries
+ * were seen at or after it; readers decode only the entries they return and never copy the file
+ * onto the heap. The file is written to a sibling temp file and atomically renamed over the old one:
+ * readers that already mapped the previous file keep a consistent view, and a crash mid-write
+ * leaves the last snapshot intact.
+ */
+public final class TrendSnapshot {
+
+  public static final int MAGIC = 0x50545331;   // "PTS1"
+  public static final int VERSION = 2;
+  private static final int HEADER_BYTES = 64;
+
+  /** One keyword; history is a HistoryCodec blob (newest first), empty when never sampled. */
+  public record Entry(String keyword, long count, long lastSeen, long df, byte[] history) {}
+
+  private final ByteBuffer buf;
+  private final long writtenAtMs;
+  private final long docsInWindow;
+  private final long postsTotal;
+  private final long mentionsTotal;
+  private final int size;
+  private final int slots;
+  private final long activeFrom;
+  private final int activePoints;
+  private final int indexAt;
+  private final int activeAt;
+
+  private TrendSnapshot(ByteBuffer buf) throws IOException {
+    if (buf.limit() < HEADER_BYTES || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+      throw new IOException("Not a version " + VERSION + " trend snapshot");
+    }
+    this.buf = buf;
+    this.writtenAtMs = buf.getLong(8);
+    this.docsInWindow = buf.getLong(16);
+    this.postsTotal = buf.getLong(24);
+    this.mentionsTotal = buf.getLong(32);
+    this.size = buf.getInt(40);
+    this.slots = buf.getInt(44);
+    this.activeFrom = buf.getLong(48);
+    this.activePoints = buf.getInt(56);
+    this.indexAt = HEADER_BYTES + 4 * size;
+    this.activeAt = indexAt + 4 * slots;
+  }
+
+  /** Maps a snapshot file read-only; entries are decoded on access. */
+  public static TrendSnapshot open(Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new TrendSnapshot(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+    } catch (IOException e) {
+      throw new IOException(path + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Writes {@code ranked} (already in rank order) with its index and an active table covering
+   * the {@code activeHorizonSeconds} before {@code writtenAtMs}.
+   */
+  public static void write(Path path, long writtenAtMs, long docsInWindow, long postsTotal, long mentionsTotal,
+                           List<Entry> ranked, int activeHorizonSeconds) throws IOException {
+    int n = ranked.size();
+    List<byte[]> names = new ArrayList<>(n);
+    int[] offsets = new int[n];
+    int slots = Integer.highestOneBit(Math.max(2, 2 * n) - 1) << 1;
+
+    // Entries seen per second of age, accumulated into (lastSeen, seenSince) points
+    long writtenAtSec = writtenAtMs / 1000;
+    int horizon = Math.max(0, activeHorizonSeconds);
+    int[] perAge = new int[horizon + 1];
+    int points = 0;
+    for (Entry e : ranked) {
+      long age = Math.max(0, writtenAtSec - e.lastSeen());
+      if (age <= horizon && perAge[(int) age]++ == 0) points++;
+    }
+
+    long size = HEADER_BYTES + 4L * n + 4L * slots + 12L * points;
+    for (int i = 0; i < n; i++) {
+      Entry e = ranked.get(i);
+      byte[] name = e.keyword().getBytes(StandardCharsets.UTF_8);
+      names.add(name);
+      offsets[i] = (int) size;
+      size += 2 + name.length + 24 + 4 + e.history().length;
+    }
+    if (size > Integer.MAX_VALUE) throw new IOException("Trend snapshot too large: " + size + " bytes");
+
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buf.putInt(MAGIC).putInt(VERSION).putLong(writtenAtMs).putLong(docsInWindow)
+          .putLong(postsTotal).putLong(mentionsTotal).putInt(n).putInt(slots)
+          .putLong(writtenAtSec - horizon).putInt(points).putInt(0);
+      for (int offset : offsets) buf.putInt(offset);
+
+      int indexAt = buf.position();
+      for (int i = 0; i < n; i++) {
+        int slot = slotOf(ranked.get(i).keyword(), slots);
+        while (buf.getInt(indexAt + 4 * slot) != 0) slot = (slot + 1) & (slots - 1);
+        buf.putInt(indexAt + 4 * slot, i + 1);
+      }
+      buf.position(indexAt + 4 * slots);
+
+      int seenSince = 0;
+      for (int age = 0; age <= horizon; age++) {
+        if (perAge[age] == 0) continue;
+        seenSince += perAge[age];
+        buf.putLong(writtenAtSec - age).putInt(seenSince);
+      }
+
+      for (int i = 0; i < n; i++) {
+        Entry e = ranked.get(i);
+        byte[] name = names.get(i);
+        buf.putShort((short) name.length).put(name);
+        buf.putLong(e.count()).putLong(e.lastSeen()).putLong(e.df());
+        buf.putInt(e.history().length).put(e.history());
+      }
+      buf.force();
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public long writtenAtMs() {
+    return writtenAtMs;
+  }
+
+  public long docsInWindow() {
+    return docsInWindow;
+  }
+
+  public long postsTotal() {
+    return postsTotal;
+  }
+
+  public long mentionsTotal() {
+    return mentionsTotal;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Entry at a zero-based rank by count. */
+  public Entry entry(int rank) {
+    int at = buf.getInt(HEADER_BYTES + 4 * rank);
+    byte[] name = new byte[buf.getShort(at) & 0xFFFF];
+    buf.get(at + 2, name);
+    int p = at + 2 + name.length;
+    byte[] history = new byte[buf.getInt(p + 24)];
+    buf.get(p + 28, history);
+    return new Entry(new String(name, StandardCharsets.UTF_8), buf.getLong(p), buf.getLong(p + 8),
+        buf.getLong(p + 16), history);
+  }
+
+  /** Entries at ranks [offset, offset + limit), as ZREVRANGE would return them. */
+  public List<Entry> range(int offset, int limit) {
+    int from = Math.min(Math.max(0, offset), size);
+    int to = (int) Math.min(size, (long) from + Math.max(0, limit));
+    List<Entry> out = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) out.add(entry(i));
+    return out;
+  }
+
+  // Zero-based position by count, as ZREVRANK would report it; null if absent
+  public Integer rank(String keyword) {
+    if (size == 0) return null;
+    byte[] want = keyword.getBytes(StandardCharsets.UTF_8);
+    for (int slot = slotOf(keyword, slots); ; slot = (slot + 1) & (slots - 1)) {
+      int r = buf.getInt(indexAt + 4 * slot);
+      if (r == 0) return null;
+      if (nameEquals(buf.getInt(HEADER_BYTES + 4 * (r - 1)), want)) return r - 1;
+    }
+  }
+
+  public Entry get(String keyword) {
+    Integer rank = rank(keyword);
+    return rank == null ? null : entry(rank);
+  }
+
+  /** Number of entries last seen at or after {@code epochSecond}. */
+  public long activeSince(long epochSecond) {
+    if (epochSecond < activeFrom) return scanSince(epochSecond, null);
+    // Last point (oldest lastSeen) still at or after epochSecond
+    int lo = 0;
+    int hi = activePoints - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (buf.getLong(activeAt + 12 * mid) >= epochSecond) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found < 0 ? 0 : buf.getInt(activeAt + 12 * found + 8);
+  }
+
+  /** Keywords last seen at or after {@code epochSecond}, in rank order. */
+  public List<String> keywordsSince(long epochSecond) {
+    List<String> out = new ArrayList<>();
+    scanSince(epochSecond, out);
+    return out;
+  }
+
+  // Reads only each entry's name length and lastSeen; decodes names into out when given
+  private long scanSince(long epochSecond, List<String> out) {
+    long n = 0;
+    for (int i = 0; i < size; i++) {
+      int at = buf.getInt(HEADER_BYTES + 4 * i);
+      int len = buf.getShort(at) & 0xFFFF;
+      if (buf.getLong(at + 2 + len + 8) < epochSecond) continue;
+      n++;
+      if (out != null) {
+        byte[] name = new byte[len];
+        buf.get(at + 2, name);
+        out.add(new String(name, StandardCharsets.UTF_8));
+      }
+    }
+    return n;
+  }
+
+  private boolean nameEquals(int at, byte[] want) {
+    if ((buf.getShort(at) & 0xFFFF) != want.length) return false;
+    for (int i = 0; i < want.length; i++) {
+      if (buf.get(at + 2 + i) != want[i]) return false;
+    }
+    return true;
+  }
+
+  private static int slotOf(String keyword, int slots) {
+    int h = keyword.hashCode();
+    return (h ^ (h >>> 16)) & (slots - 1);
+  }
+}
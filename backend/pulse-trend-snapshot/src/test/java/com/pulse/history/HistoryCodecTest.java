@@ -0,0 +1,95 @@
+package com.pulse.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class HistoryCodecTest {
+
+  @Test
+  void roundTripsCountsAndTimes() {
+    long[] counts = {1_000_000, 999_950, 999_950, 12, 0};
+    long[] times = {1_760_000_000, 1_759_999_995, 1_759_999_980, 1_700_000_000, 5};
+
+    byte[] blob = HistoryCodec.encode(counts, times);
+
+    assertThat(blob[0]).isEqualTo(HistoryCodec.VERSION);
+    assertThat(HistoryCodec.decode(blob)).containsExactly(counts);
+    assertThat(HistoryCodec.decodeTimes(blob)).containsExactly(times);
+    assertThat(HistoryCodec.newest(blob)).isEqualTo(1_000_000L);
+  }
+
+  @Test
+  void roundTripsDecreasingCounts() {
+    // Deltas are zigzag-encoded, so a count that went down between samples survives too
+    long[] counts = {5, 9, 2};
+    long[] times = {30, 20, 10};
+
+    byte[] blob = HistoryCodec.encode(counts, times);
+
+    assertThat(HistoryCodec.decode(blob)).containsExactly(counts);
+    assertThat(HistoryCodec.decodeTimes(blob)).containsExactly(times);
+  }
+
+  @Test
+  void pushKeepsTheNewestWindowSamples() {
+    byte[] blob = null;
+    for (int i = 1; i <= 10; i++) blob = HistoryCodec.push(blob, i * 10L, 1000L + i, 4);
+
+    assertThat(HistoryCodec.decode(blob)).containsExactly(100, 90, 80, 70);
+    assertThat(HistoryCodec.decodeTimes(blob)).containsExactly(1010, 1009, 1008, 1007);
+  }
+
+  @Test
+  void pushMatchesEncodeOfTheSameSamples() {
+    byte[] pushed = null;
+    for (int i = 1; i <= 5; i++) pushed = HistoryCodec.push(pushed, i * 3L, 100L * i, 8);
+
+    byte[] encoded = HistoryCodec.encode(new long[] {15, 12, 9, 6, 3}, new long[] {500, 400, 300, 200, 100});
+
+    assertThat(pushed).isEqualTo(encoded);
+  }
+
+  @Test
+  void decodesVersionOneWithUnknownTimesAndUpgradesOnPush() {
+    // [version 1][n=3][zigzag(10)=20][zigzag(10-7)=6][zigzag(7-3)=8]
+    byte[] v1 = {1, 3, 20, 6, 8};
+
+    assertThat(HistoryCodec.decode(v1)).containsExactly(10, 7, 3);
+    assertThat(HistoryCodec.decodeTimes(v1)).containsExactly(0, 0, 0);
+    assertThat(HistoryCodec.newest(v1)).isEqualTo(10L);
+
+    byte[] upgraded = HistoryCodec.push(v1, 12, 2000, 3);
+
+    assertThat(upgraded[0]).isEqualTo(HistoryCodec.VERSION);
+    assertThat(HistoryCodec.decode(upgraded)).containsExactly(12, 10, 7);
+    assertThat(HistoryCodec.decodeTimes(upgraded)).containsExactly(2000, 0, 0);
+  }
+
+  @Test
+  void decodesTheIntactPrefixOfATornBlob() {
+    long[] counts = {100, 90, 80, 70, 60};
+    long[] times = {1000, 995, 990, 985, 980};
+    byte[] blob = HistoryCodec.encode(counts, times);
+
+    // Every (delta, gap) pair here is two one-byte varints: drop the last two pairs
+    byte[] torn = Arrays.copyOf(blob, blob.length - 4);
+
+    assertThat(HistoryCodec.decode(torn)).containsExactly(100, 90, 80);
+    assertThat(HistoryCodec.decodeTimes(torn)).containsExactly(1000, 995, 990);
+
+    byte[] pushed = HistoryCodec.push(torn, 110, 1005, 10);
+    assertThat(HistoryCodec.decode(pushed)).containsExactly(110, 100, 90, 80);
+  }
+
+  @Test
+  void treatsMissingOrUnknownBlobsAsEmpty() {
+    assertThat(HistoryCodec.decode(null)).isEmpty();
+    assertThat(HistoryCodec.decode(new byte[] {HistoryCodec.VERSION})).isEmpty();
+    assertThat(HistoryCodec.decode(new byte[] {9, 1, 2})).isEmpty();
+    assertThat(HistoryCodec.newest(null)).isNull();
+    assertThat(HistoryCodec.decode(HistoryCodec.encode(new long[0], new long[0]))).isEmpty();
+    assertThat(HistoryCodec.decode(HistoryCodec.push(new byte[] {9, 1, 2}, 7, 70, 5))).containsExactly(7);
+  }
+}
@@ -0,0 +1,126 @@
+package com.pulse.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.pulse.history.HistoryCodec;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrendSnapshotTest {
+
+  private static final long NOW_MS = 1_760_000_000_000L;
+  private static final long NOW = NOW_MS / 1000;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void roundTripsEntriesInRankOrder() throws IOException {
+    Path file = dir.resolve("snapshot.bin");
+    byte[] history = HistoryCodec.encode(new long[] {40, 35}, new long[] {NOW, NOW - 5});
+    List<TrendSnapshot.Entry> ranked = List.of(
+        new TrendSnapshot.Entry("rust", 40, NOW, 12, history),
+        new TrendSnapshot.Entry("zig", 7, NOW - 100, 3, new byte[0]),
+        new TrendSnapshot.Entry("café", 7, NOW - 7200, 2, new byte[0]));
+
+    TrendSnapshot.write(file, NOW_MS, 100, 200, 300, ranked, 3600);
+    TrendSnapshot snapshot = TrendSnapshot.open(file);
+
+    assertThat(snapshot.writtenAtMs()).isEqualTo(NOW_MS);
+    assertThat(snapshot.docsInWindow()).isEqualTo(100);
+    assertThat(snapshot.postsTotal()).isEqualTo(200);
+    assertThat(snapshot.mentionsTotal()).isEqualTo(300);
+    assertThat(snapshot.size()).isEqualTo(3);
+    assertThat(snapshot.range(0, 10)).extracting(TrendSnapshot.Entry::keyword).containsExactly("rust", "zig", "café");
+    assertThat(snapshot.range(1, 1)).extracting(TrendSnapshot.Entry::keyword).containsExactly("zig");
+    assertThat(snapshot.range(5, 10)).isEmpty();
+
+    TrendSnapshot.Entry rust = snapshot.get("rust");
+    assertThat(rust.count()).isEqualTo(40);
+    assertThat(rust.lastSeen()).isEqualTo(NOW);
+    assertThat(rust.df()).isEqualTo(12);
+    assertThat(HistoryCodec.decode(rust.history())).containsExactly(40, 35);
+    assertThat(snapshot.rank("café")).isEqualTo(2);
+    assertThat(snapshot.get("go")).isNull();
+  }
+
+  @Test
+  void findsEveryKeywordThroughTheIndex() throws IOException {
+    Path file = dir.resolve("snapshot.bin");
+    List<TrendSnapshot.Entry> ranked = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) ranked.add(new TrendSnapshot.Entry("kw" + i, 5000 - i, NOW, 1, new byte[0]));
+
+    TrendSnapshot.write(file, NOW_MS, 0, 0, 0, ranked, 60);
+    TrendSnapshot snapshot = TrendSnapshot.open(file);
+
+    for (int i = 0; i < 5000; i++) assertThat(snapshot.rank("kw" + i)).isEqualTo(i);
+    assertThat(snapshot.rank("kw5000")).isNull();
+  }
+
+  @Test
+  void countsActiveKeywordsWithinAndBeyondTheHorizon() throws IOException {
+    Path file = dir.resolve("snapshot.bin");
+    List<TrendSnapshot.Entry> ranked = List.of(
+        new TrendSnapshot.Entry("a", 9, NOW, 1, new byte[0]),
+        new TrendSnapshot.Entry("b", 8, NOW - 10, 1, new byte[0]),
+        new TrendSnapshot.Entry("c", 7, NOW - 10, 1, new byte[0]),
+        new TrendSnapshot.Entry("d", 6, NOW - 50, 1, new byte[0]),
+        new TrendSnapshot.Entry("e", 5, NOW - 500, 1, new byte[0]));
+
+    TrendSnapshot.write(file, NOW_MS, 0, 0, 0, ranked, 100);
+    TrendSnapshot snapshot = TrendSnapshot.open(file);
+
+    assertThat(snapshot.activeSince(NOW + 1)).isZero();
+    assertThat(snapshot.activeSince(NOW)).isEqualTo(1);
+    assertThat(snapshot.activeSince(NOW - 10)).isEqualTo(3);
+    assertThat(snapshot.activeSince(NOW - 11)).isEqualTo(3);
+    assertThat(snapshot.activeSince(NOW - 100)).isEqualTo(4);
+    // Past the active table's horizon the entries are scanned instead
+    assertThat(snapshot.activeSince(NOW - 1000)).isEqualTo(5);
+    assertThat(snapshot.keywordsSince(NOW - 10)).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  void writesAnEmptySnapshot() throws IOException {
+    Path file = dir.resolve("snapshot.bin");
+
+    TrendSnapshot.write(file, NOW_MS, 0, 0, 0, List.of(), 60);
+    TrendSnapshot snapshot = TrendSnapshot.open(file);
+
+    assertThat(snapshot.size()).isZero();
+    assertThat(snapshot.get("rust")).isNull();
+    assertThat(snapshot.activeSince(0)).isZero();
+  }
+
+  @Test
+  void rejectsATruncatedOrForeignFile() throws IOException {
+    Path torn = dir.resolve("torn.bin");
+    Files.write(torn, new byte[] {0x50, 0x54, 0x53, 0x31, 0, 0, 0, 2});
+    Path foreign = dir.resolve("foreign.bin");
+    Files.write(foreign, new byte[128]);
+
+    assertThatThrownBy(() -> TrendSnapshot.open(torn)).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> TrendSnapshot.open(foreign)).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void replacesTheFileAtomicallyAndIgnoresAStaleTempFile() throws IOException {
+    Path file = dir.resolve("snapshot.bin");
+    TrendSnapshot.write(file, NOW_MS, 0, 0, 0, List.of(new TrendSnapshot.Entry("old", 1, NOW, 1, new byte[0])), 60);
+    TrendSnapshot before = TrendSnapshot.open(file);
+    // Leftover of a writer that crashed mid-write
+    Files.write(dir.resolve("snapshot.bin.tmp"), new byte[] {1, 2, 3});
+
+    TrendSnapshot.write(file, NOW_MS + 1000, 0, 0, 0, List.of(new TrendSnapshot.Entry("new", 2, NOW, 1, new byte[0])), 60);
+
+    assertThat(before.get("old")).isNotNull();
+    assertThat(TrendSnapshot.open(file).get("new").count()).isEqualTo(2);
+    assertThat(Files.exists(dir.resolve("snapshot.bin.tmp"))).isFalse();
+  }
+}
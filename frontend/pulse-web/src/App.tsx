@@ -3,6 +3,7 @@ import { AnimatePresence } from "framer-motion";
 import { useTrendsQuery } from "./hooks/useTrendsQuery";
 import { useAnomaliesQuery } from "./hooks/useAnomaliesQuery";
 import { useKeywordDetailQuery } from "./hooks/useKeywordDetailQuery";
+import { useSummaryQuery } from "./hooks/useSummaryQuery";
 import { Layout } from "./components/Layout";
 import { Header } from "./components/Header";
 import { HeroStrip } from "./components/HeroStrip";
@@ -22,7 +23,7 @@ const FALLBACK_ENV = (process.env.VITE_ENV_LABEL || "Local").toString().trim() |
 export default function App() {
   const [selectedKeyword, setSelectedKeyword] = useState<string | null>(null);
   const [filters, setFilters] = useState<AnomalyFiltersState>({ keyword: "", minZ: null, since: null });
-  const [page, setPage] = useState(0);
+  const [cursor, setCursor] = useState<string | null>(null);
   const [allAnomalies, setAllAnomalies] = useState<AnomalyEvent[]>([]);
   const [isLoadingMore, setIsLoadingMore] = useState(false);
   const [hasMore, setHasMore] = useState(true);
@@ -31,8 +32,8 @@ export default function App() {
   const [isLoadingMoreTrends, setIsLoadingMoreTrends] = useState(false);
   const [hasMoreTrends, setHasMoreTrends] = useState(true);
   const trendsQuery = useTrendsQuery();
+  const summaryQuery = useSummaryQuery();
   const anomaliesQuery = useAnomaliesQuery({
-    page: 0,
     limit: 40,
     keyword: filters.keyword.trim() || null,
     minZ: filters.minZ,
@@ -40,7 +41,7 @@ export default function App() {
   });
   // Reset paging when filters change
   useEffect(() => {
-    setPage(0);
+    setCursor(null);
   }, [filters.keyword, filters.minZ, filters.since]);
 
   // Seed initial page into aggregated list when it changes
@@ -49,7 +50,8 @@ export default function App() {
       const first = anomaliesQuery.data.anomalies;
       const byId = new Map(first.map((a) => [a.id, a] as const));
       setAllAnomalies(Array.from(byId.values()));
-      setHasMore((first?.length ?? 0) >= 40);
+      setCursor(anomaliesQuery.data.meta?.nextCursor ?? null);
+      setHasMore(Boolean(anomaliesQuery.data.meta?.nextCursor));
     } else if (anomaliesQuery.isLoading) {
       setAllAnomalies([]);
       setHasMore(true);
@@ -86,12 +88,11 @@ export default function App() {
   const liveIds = useMemo(() => new Set(stream.liveOnly.map((e) => e.id)), [stream.liveOnly]);
 
   async function loadMore() {
-    if (isLoadingMore || !hasMore) return;
+    if (isLoadingMore || !hasMore || !cursor) return;
     setIsLoadingMore(true);
     try {
-      const nextPage = page + 1;
       const resp = await fetchAnomalies({
-        page: nextPage,
+        cursor,
         limit: 40,
         keyword: filters.keyword.trim() || null,
         minZ: filters.minZ,
@@ -103,8 +104,8 @@ export default function App() {
         new Date(b.createdAt).getTime() - new Date(a.createdAt).getTime()
       );
       setAllAnomalies(sorted);
-      setPage(nextPage);
-      setHasMore((resp.anomalies?.length ?? 0) >= 40);
+      setCursor(resp.meta?.nextCursor ?? null);
+      setHasMore(Boolean(resp.meta?.nextCursor));
     } finally {
       setIsLoadingMore(false);
     }
@@ -130,6 +131,15 @@ export default function App() {
   });
 
   const kpi = useMemo(() => {
+    // Prefer the precomputed summary; derive from trends/anomalies only until it arrives
+    const summary = summaryQuery.data;
+    if (summary) {
+      return {
+        totalPosts: summary.totalPosts,
+        activeKeywords: summary.activeKeywords,
+        anomaliesToday: summary.anomaliesToday
+      };
+    }
     const tdata = trendsQuery.data as TrendsResponse | undefined;
     if (!tdata) {
       return {
@@ -144,7 +154,7 @@ export default function App() {
       activeKeywords: tdata.meta?.activeKeywords ?? tdata.trends.length,
       anomaliesToday: anomaliesQuery.data?.meta?.anomaliesToday ?? anomaliesQuery.data?.anomalies.length ?? 0
     };
-  }, [trendsQuery.data, anomaliesQuery.data]);
+  }, [summaryQuery.data, trendsQuery.data, anomaliesQuery.data]);
 
   if ((trendsQuery.isLoading || anomaliesQuery.isLoading) && !trendsQuery.data && !anomaliesQuery.data) {
     return <PageSkeleton />;
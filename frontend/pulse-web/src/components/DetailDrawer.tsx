@@ -60,6 +60,23 @@ export function DetailDrawer({ keyword, onClose, query }: DetailDrawerProps) {
               </div>
             </div>
 
+            {!!detail?.relatedKeywords?.length && (
+              <div className="mt-10">
+                <h3 className="text-sm font-semibold uppercase tracking-[0.3em] text-slate-400">Trending together</h3>
+                <div className="mt-4 flex flex-wrap gap-2">
+                  {detail.relatedKeywords.map((related) => (
+                    <span
+                      key={related.keyword}
+                      className="rounded-full border border-white/10 bg-white/5 px-3 py-1 text-xs text-slate-200"
+                    >
+                      {related.keyword}
+                      <span className="ml-2 text-slate-500">{Math.round(related.score * 100)}%</span>
+                    </span>
+                  ))}
+                </div>
+              </div>
+            )}
+
             <div className="mt-10">
               <h3 className="text-sm font-semibold uppercase tracking-[0.3em] text-slate-400">Related posts</h3>
               <div className="mt-4 space-y-3">
@@ -6,7 +6,7 @@ const BASE_QUERY_KEY = ["anomalies", "latest"] as const;
 
 export function useAnomaliesQuery(params: AnomaliesQueryParams = {}) {
   const key = [...BASE_QUERY_KEY, {
-    page: params.page ?? 0,
+    cursor: params.cursor ?? null,
     limit: params.limit ?? 40,
     keyword: params.keyword ?? null,
     minZ: params.minZ ?? null,
@@ -1,4 +1,5 @@
 import { useEffect, useMemo, useRef, useState } from "react";
+import { useQueryClient } from "@tanstack/react-query";
 import type { AnomalyEvent } from "../types";
 import { createAnomalyEventSource } from "../lib/api";
 
@@ -6,6 +7,7 @@ export function useAnomalyStream(initial: AnomalyEvent[] = [], opts?: { max?: nu
   const [live, setLive] = useState<AnomalyEvent[]>([]);
   const maxItems = opts?.max ?? 100;
   const ids = useRef<Set<string>>(new Set(initial.map((a) => a.id)));
+  const queryClient = useQueryClient();
 
   useEffect(() => {
     // reset IDs if initial changes significantly
@@ -21,12 +23,15 @@ export function useAnomalyStream(initial: AnomalyEvent[] = [], opts?: { max?: nu
         const next = [event, ...curr];
         return next.slice(0, maxItems);
       });
+    }, undefined, () => {
+      // Missed events can't be replayed: reload the REST list to fill the gap
+      queryClient.invalidateQueries({ queryKey: ["anomalies", "latest"] });
     });
 
     return () => {
       try { es.close(); } catch {}
     };
-  }, [maxItems]);
+  }, [maxItems, queryClient]);
 
   const merged = useMemo(() => {
     const byId = new Map<string, AnomalyEvent>();
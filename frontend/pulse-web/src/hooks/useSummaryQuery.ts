@@ -0,0 +1,14 @@
+import { useQuery } from "@tanstack/react-query";
+import { fetchSummary } from "../lib/api";
+import type { SummaryResponse } from "../types";
+
+const QUERY_KEY = ["summary"] as const;
+
+export function useSummaryQuery() {
+  return useQuery<SummaryResponse, Error>({
+    queryKey: QUERY_KEY,
+    queryFn: fetchSummary,
+    gcTime: 60_000,
+    refetchInterval: 5_000
+  });
+}
@@ -2,6 +2,7 @@ import axios from "axios";
 import type {
   AnomaliesResponse,
   KeywordDetailResponse,
+  SummaryResponse,
   TrendsResponse,
   AnomalyEvent
 } from "../types";
@@ -117,7 +118,7 @@ export async function fetchTrends(params: TrendsQueryParams = {}): Promise<Trend
 }
 
 export interface AnomaliesQueryParams {
-  page?: number;
+  cursor?: string | null; // opaque keyset cursor from meta.nextCursor
   limit?: number;
   keyword?: string | null;
   minZ?: number | null;
@@ -127,7 +128,7 @@ export interface AnomaliesQueryParams {
 export async function fetchAnomalies(params: AnomaliesQueryParams = {}): Promise<AnomaliesResponse> {
   const { data } = await client.get<AnomaliesResponse>("/api/anomalies", {
     params: {
-      page: params.page ?? 0,
+      cursor: params.cursor ?? undefined,
       limit: params.limit ?? 40,
       keyword: params.keyword ?? undefined,
       minZ: params.minZ ?? undefined,
@@ -137,12 +138,21 @@ export async function fetchAnomalies(params: AnomaliesQueryParams = {}): Promise
   return data;
 }
 
+export async function fetchSummary(): Promise<SummaryResponse> {
+  const { data } = await client.get<SummaryResponse>("/api/summary");
+  return data;
+}
+
 export async function fetchKeywordDetail(keyword: string): Promise<KeywordDetailResponse> {
   const { data } = await client.get<KeywordDetailResponse>(`/api/trends/${encodeURIComponent(keyword)}`);
   return data;
 }
 
-export function createAnomalyEventSource(onEvent: (event: AnomalyEvent) => void, onError?: (err: Event) => void) {
+export function createAnomalyEventSource(
+  onEvent: (event: AnomalyEvent) => void,
+  onError?: (err: Event) => void,
+  onReset?: () => void
+) {
   const url = new URL("/api/anomalies/stream", BASE_URL);
   const es = new EventSource(url.toString());
   es.addEventListener("anomaly", (e) => {
@@ -153,6 +163,10 @@ export function createAnomalyEventSource(onEvent: (event: AnomalyEvent) => void,
       // ignore parse errors
     }
   });
+  // The server could not resume from our Last-Event-ID; events may have been missed
+  es.addEventListener("reset", () => {
+    if (onReset) onReset();
+  });
   es.onerror = (ev) => {
     if (onError) onError(ev);
   };
@@ -36,9 +36,21 @@ export interface AnomaliesResponse {
   meta: {
     anomaliesToday?: number;
     windowMinutes?: number;
+    nextCursor?: string | null;
   };
 }
 
+export interface SummaryResponse {
+  totalPosts: number;
+  totalMentions: number;
+  totalKeywords: number;
+  activeKeywords: number;
+  activeKeywordsExact?: number | null; // only when the API runs in validation mode
+  windowMinutes?: number;
+  anomaliesToday: number;
+  generatedAt: string;
+}
+
 export interface KeywordDetailResponse {
   keyword: string;
   description?: string;
@@ -53,6 +65,10 @@ export interface KeywordDetailResponse {
     timestamp: string;
     link?: string;
   }>;
+  relatedKeywords?: Array<{
+    keyword: string;
+    score: number;
+  }>;
   analytics: {
     currentScore: number;
     percentile: number;
@@ -0,0 +1,250 @@
+#!/usr/bin/env python3
+"""
+Concurrency load test for pulse-api-service.
+
+Runs closed-loop HTTP/1.1 keep-alive clients against the API in steps of increasing
+concurrency while a number of SSE streams (/api/anomalies/stream) are held open, and reports
+per step: throughput, p50/p95/p99/max latency, errors and timeouts, plus how many SSE streams
+were established and stayed open. Standard library only (asyncio), so one process can hold
+thousands of connections.
+
+Compare thread models by running it twice against the same data, e.g.
+  SPRING_THREADS_VIRTUAL_ENABLED=false  (platform threads, Tomcat pool of 200)
+  SPRING_THREADS_VIRTUAL_ENABLED=true   (default: virtual threads)
+
+Examples:
+  ./api-loadtest.py --concurrency 50,200,800,2000 --duration 20 --sse 1000
+  ./api-loadtest.py --paths "/api/trends/{kw}=3,/api/anomalies?limit=20=1" --json-out vt.json
+"""
+import argparse
+import asyncio
+import json
+import os
+import random
+import time
+from typing import Dict, List, Optional, Tuple
+from urllib.parse import urlsplit
+
+API_URL = os.getenv("TRENDS_API_URL", "http://localhost:8087").rstrip("/")
+
+DEFAULT_PATHS = "/api/trends?limit=20=2,/api/trends/{kw}=4,/api/summary=1,/api/anomalies?limit=20=1"
+
+
+def percentile(values: List[float], p: float) -> Optional[float]:
+    if not values:
+        return None
+    s = sorted(values)
+    k = min(len(s) - 1, max(0, int(round(p / 100.0 * (len(s) - 1)))))
+    return s[k]
+
+
+def parse_paths(spec: str) -> List[Tuple[str, int]]:
+    out = []
+    for part in spec.split(","):
+        path, _, weight = part.strip().rpartition("=")
+        out.append((path, int(weight)))
+    return out
+
+
+async def read_response(reader: asyncio.StreamReader) -> Tuple[int, bool]:
+    """Reads one HTTP/1.1 response; returns the status code and whether the server closes."""
+    head = await reader.readuntil(b"\r\n\r\n")
+    lines = head.decode("latin-1").split("\r\n")
+    status = int(lines[0].split(" ", 2)[1])
+    headers = {}
+    for line in lines[1:]:
+        if ":" in line:
+            k, v = line.split(":", 1)
+            headers[k.strip().lower()] = v.strip()
+    if "content-length" in headers:
+        await reader.readexactly(int(headers["content-length"]))
+    elif headers.get("transfer-encoding", "").lower() == "chunked":
+        while True:
+            size = int((await reader.readuntil(b"\r\n")).split(b";")[0], 16)
+            await reader.readexactly(size + 2)
+            if size == 0:
+                break
+    return status, headers.get("connection", "").lower() == "close"
+
+
+class Step:
+    def __init__(self):
+        self.latencies: List[float] = []
+        self.errors = 0
+        self.timeouts = 0
+        self.statuses: Dict[int, int] = {}
+
+
+async def client(host: str, port: int, paths: List[str], keywords: List[str], step: Step,
+                 deadline: float, timeout: float):
+    reader = writer = None
+    while time.monotonic() < deadline:
+        path = random.choice(paths).replace("{kw}", random.choice(keywords))
+        req = f"GET {path} HTTP/1.1\r\nHost: {host}\r\nAccept: application/json\r\n\r\n".encode()
+        t0 = time.perf_counter()
+        try:
+            if writer is None:
+                reader, writer = await asyncio.wait_for(asyncio.open_connection(host, port), timeout)
+                reused = False
+            else:
+                reused = True
+            writer.write(req)
+            try:
+                status, closing = await asyncio.wait_for(read_response(reader), timeout)
+            except (ConnectionError, asyncio.IncompleteReadError):
+                if not reused:
+                    raise
+                # Keep-alive connection closed by the server between requests: retry once on a new one
+                close(writer)
+                reader, writer = await asyncio.wait_for(asyncio.open_connection(host, port), timeout)
+                writer.write(req)
+                status, closing = await asyncio.wait_for(read_response(reader), timeout)
+            if closing:
+                writer = close(writer)
+            step.latencies.append((time.perf_counter() - t0) * 1000.0)
+            step.statuses[status] = step.statuses.get(status, 0) + 1
+            if status >= 500:
+                step.errors += 1
+        except asyncio.TimeoutError:
+            step.timeouts += 1
+            writer = close(writer)
+        except (OSError, asyncio.IncompleteReadError, ValueError, IndexError):
+            step.errors += 1
+            writer = close(writer)
+            await asyncio.sleep(0.05)
+    close(writer)
+
+
+def close(writer: Optional[asyncio.StreamWriter]) -> None:
+    if writer is not None:
+        try:
+            writer.close()
+        except Exception:
+            pass
+    return None
+
+
+class SseStats:
+    def __init__(self):
+        self.established = 0
+        self.failed = 0
+        self.open = 0
+        self.connect_ms: List[float] = []
+
+
+async def sse_holder(host: str, port: int, stats: SseStats, stop: asyncio.Event, timeout: float):
+    t0 = time.perf_counter()
+    writer = None
+    try:
+        reader, writer = await asyncio.wait_for(asyncio.open_connection(host, port), timeout)
+        writer.write(f"GET /api/anomalies/stream?timeoutMs=3600000 HTTP/1.1\r\nHost: {host}\r\n"
+                     f"Accept: text/event-stream\r\n\r\n".encode())
+        head = await asyncio.wait_for(reader.readuntil(b"\r\n\r\n"), timeout)
+        if b" 200 " not in head.split(b"\r\n", 1)[0]:
+            stats.failed += 1
+            return
+        stats.established += 1
+        stats.open += 1
+        stats.connect_ms.append((time.perf_counter() - t0) * 1000.0)
+        try:
+            while not stop.is_set():
+                if not await reader.read(4096):
+                    break
+        finally:
+            stats.open -= 1
+    except (asyncio.TimeoutError, OSError, asyncio.IncompleteReadError):
+        stats.failed += 1
+    finally:
+        close(writer)
+
+
+async def fetch_keywords(host: str, port: int, timeout: float) -> List[str]:
+    try:
+        reader, writer = await asyncio.wait_for(asyncio.open_connection(host, port), timeout)
+        writer.write(f"GET /api/trends?limit=100 HTTP/1.1\r\nHost: {host}\r\nConnection: close\r\n\r\n".encode())
+        raw = await asyncio.wait_for(reader.read(-1), timeout)
+        close(writer)
+        body = raw.split(b"\r\n\r\n", 1)[1]
+        words = [t["keyword"] for t in json.loads(body).get("trends", [])]
+        return words or ["pulse"]
+    except Exception:
+        return ["pulse"]
+
+
+async def run(args) -> Dict[str, object]:
+    u = urlsplit(args.api_url)
+    host, port = u.hostname, u.port or 80
+    weighted = [p for p, w in parse_paths(args.paths) for _ in range(w)]
+    keywords = await fetch_keywords(host, port, args.timeout)
+
+    sse = SseStats()
+    stop = asyncio.Event()
+    holders = []
+    for _ in range(args.sse):
+        holders.append(asyncio.create_task(sse_holder(host, port, sse, stop, args.timeout)))
+        if args.sse_ramp > 0:
+            await asyncio.sleep(args.sse_ramp / max(1, args.sse))
+    if holders:
+        await asyncio.sleep(1.0)
+    print(f"sse: {sse.established}/{args.sse} established, {sse.failed} failed")
+
+    steps = []
+    for c in [int(x) for x in args.concurrency.split(",")]:
+        step = Step()
+        t0 = time.monotonic()
+        deadline = t0 + args.duration
+        await asyncio.gather(*[client(host, port, weighted, keywords, step, deadline, args.timeout)
+                               for _ in range(c)])
+        wall = time.monotonic() - t0
+        res = {
+            "concurrency": c,
+            "requests": len(step.latencies),
+            "rps": round(len(step.latencies) / wall, 1),
+            "p50_ms": percentile(step.latencies, 50),
+            "p95_ms": percentile(step.latencies, 95),
+            "p99_ms": percentile(step.latencies, 99),
+            "max_ms": max(step.latencies) if step.latencies else None,
+            "errors": step.errors,
+            "timeouts": step.timeouts,
+            "statuses": step.statuses,
+            "sse_open": sse.open,
+        }
+        steps.append(res)
+        fmt = lambda v: "-" if v is None else f"{v:.1f}"
+        print(f"c={c:>5}  rps={res['rps']:>8}  p50={fmt(res['p50_ms']):>7}  p95={fmt(res['p95_ms']):>7}  "
+              f"p99={fmt(res['p99_ms']):>7}  max={fmt(res['max_ms']):>8} ms  errors={step.errors}  "
+              f"timeouts={step.timeouts}  sse_open={sse.open}")
+
+    stop.set()
+    for h in holders:
+        h.cancel()
+    await asyncio.gather(*holders, return_exceptions=True)
+    return {
+        "api_url": args.api_url,
+        "paths": args.paths,
+        "sse": {"requested": args.sse, "established": sse.established, "failed": sse.failed,
+                "connect_p99_ms": percentile(sse.connect_ms, 99)},
+        "steps": steps,
+    }
+
+
+def main():
+    ap = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    ap.add_argument("--api-url", default=API_URL)
+    ap.add_argument("--concurrency", default="50,200,800", help="comma-separated client counts, one step each")
+    ap.add_argument("--duration", type=float, default=20.0, help="seconds per step")
+    ap.add_argument("--paths", default=DEFAULT_PATHS, help="path=weight list; {kw} is a current trending keyword")
+    ap.add_argument("--sse", type=int, default=0, help="SSE streams to hold open during the steps")
+    ap.add_argument("--sse-ramp", type=float, default=2.0, help="seconds over which SSE streams are opened")
+    ap.add_argument("--timeout", type=float, default=10.0, help="per-request timeout, seconds")
+    ap.add_argument("--json-out", help="write the result here")
+    args = ap.parse_args()
+
+    res = asyncio.run(run(args))
+    if args.json_out:
+        with open(args.json_out, "w") as f:
+            json.dump(res, f, indent=2)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Compare OFFSET vs keyset pagination and substring vs prefix keyword search on a
+# scratch copy of the anomalies table seeded with N rows (default 10M).
+# Usage: bash infra/docker/scripts/bench-anomalies.sh [rows]
+# The scratch table (anomalies_bench) is dropped at the end; the real table is untouched.
+
+ROWS="${1:-10000000}"
+
+DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+COMPOSE_DIR="$(cd "$DIR/.." && pwd)"
+cd "$COMPOSE_DIR"
+
+# Detect docker compose command
+if command -v docker >/dev/null 2>&1 && docker compose version >/dev/null 2>&1; then
+  DC=(docker compose)
+elif command -v docker-compose >/dev/null 2>&1; then
+  DC=(docker-compose)
+else
+  echo "Error: Docker Compose not found. Install Docker Desktop or docker-compose." >&2
+  exit 1
+fi
+
+PSQL=("${DC[@]}" exec -T postgres psql -U pulse -d pulse -v ON_ERROR_STOP=1 -v rows="$ROWS")
+
+echo "[1/3] Seeding anomalies_bench with ${ROWS} rows"
+"${PSQL[@]}" <<'SQL'
+\timing on
+DROP TABLE IF EXISTS anomalies_bench;
+CREATE TABLE anomalies_bench (
+  id BIGSERIAL PRIMARY KEY,
+  keyword TEXT NOT NULL,
+  current_count BIGINT NOT NULL,
+  average_count DOUBLE PRECISION NOT NULL,
+  stddev DOUBLE PRECISION NOT NULL,
+  z_score DOUBLE PRECISION NOT NULL,
+  detected_at TIMESTAMPTZ NOT NULL,
+  window_start TIMESTAMPTZ NULL,
+  window_end TIMESTAMPTZ NULL
+);
+-- ~50k distinct keywords, Zipf-ish skew, spread over 90 days
+INSERT INTO anomalies_bench (keyword, current_count, average_count, stddev, z_score, detected_at)
+SELECT 'kw' || (floor(power(random(), 3) * 50000))::int,
+       (100 + random() * 900)::bigint,
+       50 + random() * 100,
+       5 + random() * 20,
+       3 + random() * 7,
+       now() - (random() * interval '90 days')
+FROM generate_series(1, :rows);
+CREATE INDEX ON anomalies_bench (detected_at DESC);
+CREATE INDEX ON anomalies_bench (keyword, detected_at DESC);
+CREATE INDEX ON anomalies_bench (detected_at DESC, id DESC) INCLUDE (keyword, z_score, average_count, current_count);
+CREATE INDEX ON anomalies_bench (keyword text_pattern_ops, detected_at DESC, id DESC);
+VACUUM ANALYZE anomalies_bench;
+SQL
+
+echo "[2/3] Query plans and timings"
+"${PSQL[@]}" <<'SQL'
+\echo '--- OFFSET page 500 (old)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM anomalies_bench ORDER BY detected_at DESC OFFSET 20000 LIMIT 40;
+
+\echo '--- Keyset page after a cursor (new)'
+SELECT detected_at AS c_at, id AS c_id FROM anomalies_bench ORDER BY detected_at DESC, id DESC OFFSET 20000 LIMIT 1 \gset
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, keyword, z_score, average_count, current_count, detected_at FROM anomalies_bench
+WHERE detected_at < :'c_at' OR (detected_at = :'c_at' AND id < :c_id)
+ORDER BY detected_at DESC, id DESC LIMIT 41;
+
+\echo '--- Substring keyword filter (old)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM anomalies_bench WHERE LOWER(keyword) LIKE '%kw12%' ORDER BY detected_at DESC LIMIT 40;
+
+\echo '--- Prefix keyword filter (new)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, keyword, z_score, average_count, current_count, detected_at FROM anomalies_bench
+WHERE keyword LIKE 'kw12%' ORDER BY detected_at DESC, id DESC LIMIT 41;
+
+\echo '--- anomaliesToday COUNT (now cached in the API)'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM anomalies_bench WHERE detected_at BETWEEN date_trunc('day', now()) AND now();
+SQL
+
+echo "[3/3] Dropping anomalies_bench"
+"${PSQL[@]}" -c "DROP TABLE IF EXISTS anomalies_bench;"
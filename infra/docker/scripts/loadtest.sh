@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# End-to-end load test of the Redis-stream pipeline on one box.
+# Brings up redis + postgres from docker-compose, checks the three services are running
+# locally, then runs backend/pulse-ingestion-service/loadgen.py with the given arguments.
+# Usage: bash infra/docker/scripts/loadtest.sh [--reset] [loadgen args...]
+#   e.g. bash infra/docker/scripts/loadtest.sh --reset --rate 3000 --duration 300 --json-out run.json
+# Start the services first (SPRING_PROFILES_ACTIVE=redis-pipeline for processing and api).
+
+RESET=0
+if [[ "${1:-}" == "--reset" ]]; then
+  RESET=1
+  shift
+fi
+
+DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+COMPOSE_DIR="$(cd "$DIR/.." && pwd)"
+ROOT_DIR="$(cd "$COMPOSE_DIR/../.." && pwd)"
+INGEST_DIR="$ROOT_DIR/backend/pulse-ingestion-service"
+cd "$COMPOSE_DIR"
+
+# Detect docker compose command
+if command -v docker >/dev/null 2>&1 && docker compose version >/dev/null 2>&1; then
+  DC=(docker compose)
+elif command -v docker-compose >/dev/null 2>&1; then
+  DC=(docker-compose)
+else
+  echo "Error: Docker Compose not found. Install Docker Desktop or docker-compose." >&2
+  exit 1
+fi
+
+echo "[1/4] Starting redis and postgres"
+"${DC[@]}" up -d redis postgres >/dev/null
+
+for _ in $(seq 1 30); do
+  if "${DC[@]}" exec -T redis redis-cli PING 2>/dev/null | grep -q PONG; then break; fi
+  sleep 1
+done
+
+if [[ "$RESET" == "1" ]]; then
+  echo "[2/4] Resetting pipeline data"
+  bash "$DIR/reset-data.sh"
+else
+  echo "[2/4] Keeping existing data (pass --reset to start clean)"
+fi
+
+echo "[3/4] Checking services"
+API_URL="${TRENDS_API_URL:-http://localhost:8086}"
+for url in "http://localhost:8084/actuator/health" "http://localhost:8085/actuator/health" "$API_URL/actuator/health"; do
+  if ! curl -fsS -o /dev/null --max-time 2 "$url"; then
+    echo "  warning: $url not reachable; start the services or results will be partial" >&2
+  fi
+done
+
+echo "[4/4] Running loadgen"
+cd "$INGEST_DIR"
+if [[ ! -d .venv ]]; then
+  python3 -m venv .venv
+  .venv/bin/pip install -q -r requirements.txt
+fi
+exec .venv/bin/python loadgen.py "$@"
@@ -33,8 +33,18 @@ echo "[3/4] Truncating Postgres table: anomalies"
 echo "[4/4] Clearing Redis keys"
 # Remove top-level trend ZSET and last-counts hash
 "${DC[@]}" exec -T redis redis-cli -n 0 DEL trends:global trends:last_counts trends:lastSeen || true
-# Remove per-key history lists
+# Remove sharded trend state (trends:global:{i}, trends:lastSeen:{i}, trends:docs_total:{i})
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "trends:global:{*}" | xargs -r redis-cli -n 0 DEL'
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "trends:lastSeen:{*}" | xargs -r redis-cli -n 0 DEL'
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "trends:docs_total*" | xargs -r redis-cli -n 0 DEL'
+# Remove per-key history blobs (and legacy history lists)
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "trends:hist:*" | xargs -r redis-cli -n 0 DEL'
 "${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "trends:history:*" | xargs -r redis-cli -n 0 DEL'
+# Remove published related-keyword lists
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "trends:related:*" | xargs -r redis-cli -n 0 DEL'
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "pulse:summary*" | xargs -r redis-cli -n 0 DEL'
+# Remove the recent-posts index (post slots, per-token lists, sequence)
+"${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "posts:*" | xargs -r redis-cli -n 0 DEL'
 # Remove anomaly dedupe/last_z/cooldown keys
 "${DC[@]}" exec -T redis sh -lc 'redis-cli -n 0 --scan --pattern "anomaly:*" | xargs -r redis-cli -n 0 DEL'
 